@@ -3,12 +3,16 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 
 import controller.ImageProcessingController;
 import controller.ImageProcessingGuiController;
 import controller.ImageProcessingTextController;
+import model.ImageBackend;
+import model.ImageHistory;
 import model.ImageProcessingModel;
 import model.ImageProcessingModelImpl;
+import model.macros.FilterMacro;
 import view.ImageProcessingGuiView;
 import view.ImageProcessingGuiViewImpl;
 import view.ImageProcessingTextView;
@@ -20,11 +24,38 @@ import view.ImageProcessingTextViewImpl;
 public class ImageProcessing {
 
   /**
-   * Main method for running image processing program.
+   * Main method for running image processing program. The arguments may start with
+   * "-memory-budget N" to keep at most N megabytes of images in memory, with
+   * "-history-limit N" to keep at most N megabytes of undo history in the GUI, with "-threads N"
+   * to filter images on N threads, and with "-block-width N" to filter images in blocks of N
+   * columns, or of as many columns as fit into the cache for 0.
    *
    * @param args command line arguments
    */
   public static void main(String[] args) throws IllegalArgumentException, IOException {
+    long memoryBudget = ImageProcessingModelImpl.NO_MEMORY_BUDGET;
+    long historyLimit = ImageHistory.DEFAULT_MEMORY_LIMIT;
+    while (args.length >= 2 && (args[0].equals("-memory-budget")
+            || args[0].equals("-history-limit") || args[0].equals("-threads")
+            || args[0].equals("-block-width"))) {
+      String invalid = "Invalid " + args[0].substring(1).replace('-', ' ') + ": " + args[1];
+      long value;
+      try {
+        value = Long.parseLong(args[1]);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(invalid);
+      }
+      if (args[0].equals("-memory-budget")) {
+        memoryBudget = megabytes(value, invalid);
+      } else if (args[0].equals("-history-limit")) {
+        historyLimit = megabytes(value, invalid);
+      } else if (args[0].equals("-threads")) {
+        FilterMacro.setParallelism((int) Math.max(-1, Math.min(Integer.MAX_VALUE, value)));
+      } else {
+        FilterMacro.setBlockWidth((int) Math.max(-1, Math.min(Integer.MAX_VALUE, value)));
+      }
+      args = Arrays.copyOfRange(args, 2, args.length);
+    }
     Readable rd;
     if (args.length == 2 && args[0].equals("-file")) {
       try {
@@ -32,24 +63,44 @@ public class ImageProcessing {
       } catch (FileNotFoundException e) {
         throw new IllegalArgumentException("File not found: " + args[1]);
       }
-      ImageProcessingModel model = new ImageProcessingModelImpl();
+      ImageProcessingModel model = new ImageProcessingModelImpl(ImageBackend.PACKED,
+              ImageProcessingModelImpl.DEFAULT_OFF_HEAP_THRESHOLD, memoryBudget);
       ImageProcessingTextView view = new ImageProcessingTextViewImpl();
       ImageProcessingController controller = new ImageProcessingTextController(model, view, rd);
       controller.runController();
     } else if (args.length == 1 && args[0].equals("-text")) {
       rd = new BufferedReader(new InputStreamReader(System.in));
-      ImageProcessingModel model = new ImageProcessingModelImpl();
+      ImageProcessingModel model = new ImageProcessingModelImpl(ImageBackend.PACKED,
+              ImageProcessingModelImpl.DEFAULT_OFF_HEAP_THRESHOLD, memoryBudget);
       ImageProcessingTextView view = new ImageProcessingTextViewImpl();
       ImageProcessingController controller = new ImageProcessingTextController(model, view, rd);
       controller.runController();
     } else if (args.length == 0) {
-      ImageProcessingModel model = new ImageProcessingModelImpl();
+      ImageProcessingModel model = new ImageProcessingModelImpl(ImageBackend.PACKED,
+              ImageProcessingModelImpl.DEFAULT_OFF_HEAP_THRESHOLD, memoryBudget);
       ImageProcessingGuiView view = new ImageProcessingGuiViewImpl();
-      ImageProcessingController controller = new ImageProcessingGuiController(model, view);
+      ImageProcessingController controller = new ImageProcessingGuiController(model, view,
+              historyLimit);
       controller.runController();
     } else {
       throw new IllegalArgumentException("Invalid arguments provided.");
     }
   }
+
+  /**
+   * Converts a number of megabytes given on the command line to bytes. Numbers of bytes too large
+   * for a long are taken as the largest long, which no amount of memory reaches.
+   *
+   * @param value   number of megabytes
+   * @param invalid message to fail with if the number is negative
+   * @return number of bytes
+   * @throws IllegalArgumentException if the number is negative
+   */
+  private static long megabytes(long value, String invalid) throws IllegalArgumentException {
+    if (value < 0) {
+      throw new IllegalArgumentException(invalid);
+    }
+    return value > Long.MAX_VALUE / (1024 * 1024) ? Long.MAX_VALUE : value * 1024 * 1024;
+  }
 }
 
@@ -8,6 +8,7 @@ import java.util.Map;
 
 import model.Image;
 import model.ImageHistogramModel;
+import model.ImageHistory;
 import model.ImageProcessingModel;
 import model.macros.BlueComponentMacro;
 import model.macros.BlurMacro;
@@ -38,9 +39,11 @@ public class ImageProcessingGuiController implements ImageProcessingController,
   private final ImageProcessingGuiView view;
   private final Map<String, ImageProcessingMacro> knownCommands;
   private final String activeImage;
+  private final ImageHistory history;
 
   /**
-   * Constructor that initializes the model and view.
+   * Constructor that initializes the model and view, with the default memory limit for the undo
+   * history.
    *
    * @param model model of image processing program
    * @param view  GUI view for image processing program
@@ -48,6 +51,20 @@ public class ImageProcessingGuiController implements ImageProcessingController,
    */
   public ImageProcessingGuiController(ImageProcessingModel model, ImageProcessingGuiView view)
           throws IllegalArgumentException {
+    this(model, view, ImageHistory.DEFAULT_MEMORY_LIMIT);
+  }
+
+  /**
+   * Constructor that initializes the model and view, keeping versions of the image for undo and
+   * redo until they use more than the given number of bytes.
+   *
+   * @param model        model of image processing program
+   * @param view         GUI view for image processing program
+   * @param historyLimit number of bytes that the undo history may use
+   * @throws IllegalArgumentException if model or view are null, or the limit is negative
+   */
+  public ImageProcessingGuiController(ImageProcessingModel model, ImageProcessingGuiView view,
+                                      long historyLimit) throws IllegalArgumentException {
     if (model == null || view == null) {
       throw new IllegalArgumentException("Model or view is null");
     }
@@ -55,6 +72,7 @@ public class ImageProcessingGuiController implements ImageProcessingController,
     this.view = view;
     this.knownCommands = new HashMap<>();
     this.activeImage = "image";
+    this.history = new ImageHistory(historyLimit);
 
     knownCommands.put("horizontal flip", new HorizontalFlipMacro(this.activeImage,
             this.activeImage));
@@ -108,13 +126,11 @@ public class ImageProcessingGuiController implements ImageProcessingController,
       if (new File(srcPath).exists()) {
         ImageProcessingMacro loadMacro = new LoadMacro(srcPath, this.activeImage);
         try {
-          loadMacro.execute(this.model);
+          this.runOnActiveImage(loadMacro);
         } catch (IllegalArgumentException e) {
           this.view.showErrorMessage(e.getMessage());
         }
-        Image activeImage = this.model.getImage(this.activeImage);
-        ImageHistogramModel histogramModel = new ImageHistogramModel(activeImage);
-        this.view.refresh(activeImage, histogramModel);
+        this.refreshView();
       } else {
         this.view.showErrorMessage("File does not exist.");
       }
@@ -132,24 +148,64 @@ public class ImageProcessingGuiController implements ImageProcessingController,
     } else if (cmd.equals("mosaic")) {
       ImageProcessingMacro mosaicMacro = new MosaicMacro(
               Integer.parseInt(view.getMosaicSeeds()), this.activeImage, this.activeImage);
-      mosaicMacro.execute(this.model);
-      Image activeImage = this.model.getImage(this.activeImage);
-      ImageHistogramModel histogramModel = new ImageHistogramModel(activeImage);
-      this.view.refresh(activeImage, histogramModel);
+      this.runOnActiveImage(mosaicMacro);
+      this.refreshView();
+    } else if (cmd.equals("undo") || cmd.equals("redo")) {
+      boolean possible = cmd.equals("undo") ? this.history.canUndo() : this.history.canRedo();
+      if (!possible) {
+        this.view.showErrorMessage("Nothing to " + cmd + ".");
+        return;
+      }
+      // switching versions shares the pixels the model stored for them, without running macros
+      // or copying pixels again
+      this.model.addImage(this.activeImage,
+              cmd.equals("undo") ? this.history.undo() : this.history.redo());
+      this.refreshView();
     } else {
       ImageProcessingMacro macro = knownCommands.getOrDefault(action.getActionCommand(), null);
       if (macro == null) {
         this.view.showErrorMessage("Command not found: " + cmd);
       } else {
         try {
-          macro.execute(this.model);
-          Image activeImage = this.model.getImage(this.activeImage);
-          ImageHistogramModel histogramModel = new ImageHistogramModel(activeImage);
-          this.view.refresh(activeImage, histogramModel);
+          this.runOnActiveImage(macro);
+          this.refreshView();
         } catch (IllegalArgumentException e) {
           this.view.showErrorMessage("Failed to perform operation: " + cmd);
         }
       }
     }
   }
+
+  /**
+   * Shows the active image, its histograms and the memory used by the images in the view.
+   */
+  private void refreshView() {
+    Image activeImage = this.model.getReadOnlyImage(this.activeImage);
+    ImageHistogramModel histogramModel = new ImageHistogramModel(activeImage);
+    this.view.refresh(activeImage, histogramModel);
+    this.view.showStatus("Memory: " + this.model.getMemoryReport().getSummary() + "; history: "
+            + this.history.getSummary());
+  }
+
+  /**
+   * Runs the given macro, which writes the active image, and adds the result to the undo history
+   * while no other writer can add an image under the name of the active image.
+   *
+   * @param macro the macro to run
+   * @throws IllegalArgumentException if the macro fails
+   */
+  private void runOnActiveImage(ImageProcessingMacro macro) throws IllegalArgumentException {
+    this.model.runExclusively(() -> {
+      macro.execute(this.model);
+      this.commitVersion();
+    }, this.activeImage);
+  }
+
+  /**
+   * Adds the active image to the undo history as its newest version. The version shares the
+   * pixels the model stored for the image, so that undo and redo only add them back.
+   */
+  private void commitVersion() {
+    this.history.commit(this.model.getImage(this.activeImage));
+  }
 }
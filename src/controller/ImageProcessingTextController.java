@@ -11,6 +11,8 @@ import model.ImageProcessingModel;
 import model.macros.BlueComponentMacro;
 import model.macros.BlurMacro;
 import model.macros.BrightenMacro;
+import model.macros.CustomFilterMacro;
+import model.macros.GaussianBlurMacro;
 import model.macros.GreenComponentMacro;
 import model.macros.GreyscaleMacro;
 import model.macros.HorizontalFlipMacro;
@@ -18,11 +20,15 @@ import model.macros.ImageProcessingMacro;
 import model.macros.IntensityComponentMacro;
 import model.macros.LoadMacro;
 import model.macros.LumaComponentMacro;
+import model.macros.MedianMacro;
+import model.macros.MemoryMacro;
 import model.macros.MosaicMacro;
 import model.macros.RedComponentMacro;
+import model.macros.RestoreMacro;
 import model.macros.SaveMacro;
 import model.macros.SepiaMacro;
 import model.macros.SharpenMacro;
+import model.macros.SnapshotMacro;
 import model.macros.ValueComponentMacro;
 import model.macros.VerticalFlipMacro;
 import view.ImageProcessingTextView;
@@ -57,6 +63,9 @@ public class ImageProcessingTextController implements ImageProcessingController
 
     knownCommands.put("load", s -> new LoadMacro(s.next(), s.next()));
     knownCommands.put("save", s -> new SaveMacro(s.next(), s.next()));
+    knownCommands.put("snapshot", s -> new SnapshotMacro(s.next()));
+    knownCommands.put("restore", s -> new RestoreMacro(s.next()));
+    knownCommands.put("memory", s -> new MemoryMacro(report -> this.render(report + "\n")));
 
     knownCommands.put("horizontal-flip", s -> new HorizontalFlipMacro(s.next(), s.next()));
     knownCommands.put("vertical-flip", s -> new VerticalFlipMacro(s.next(), s.next()));
@@ -72,8 +81,12 @@ public class ImageProcessingTextController implements ImageProcessingController
     knownCommands.put("brighten", s -> new BrightenMacro(s.nextInt(), s.next(), s.next()));
 
     knownCommands.put("blur", s -> new BlurMacro(s.next(), s.next()));
+    knownCommands.put("gaussian-blur",
+        s -> new GaussianBlurMacro(s.nextDouble(), s.next(), s.next()));
+    knownCommands.put("median", s -> new MedianMacro(s.nextInt(), s.next(), s.next()));
     knownCommands.put("mosaic", s -> new MosaicMacro(s.nextInt(), s.next(), s.next()));
     knownCommands.put("sharpen", s -> new SharpenMacro(s.next(), s.next()));
+    knownCommands.put("filter", s -> new CustomFilterMacro(s.next(), s.next(), s.next()));
 
     knownCommands.put("greyscale", s -> new GreyscaleMacro(s.next(), s.next()));
     knownCommands.put("sepia", s -> new SepiaMacro(s.next(), s.next()));
@@ -111,7 +124,8 @@ public class ImageProcessingTextController implements ImageProcessingController
         try {
           macro = cmd.apply(sc);
           try {
-            macro.execute(this.model);
+            // every command names the image it writes last, so other writers of it wait
+            this.model.runExclusively(() -> macro.execute(this.model), sc.match().group());
             try {
               this.view.renderMessage("Successful " + in + " operation!\n");
             } catch (IOException e) {
@@ -140,4 +154,18 @@ public class ImageProcessingTextController implements ImageProcessingController
       throw new IllegalStateException("Failed to render message.");
     }
   }
+
+  /**
+   * Renders a message to the view.
+   *
+   * @param message the message
+   * @throws IllegalStateException if the controller is unable to transmit output
+   */
+  private void render(String message) throws IllegalStateException {
+    try {
+      this.view.renderMessage(message);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to render message.");
+    }
+  }
 }
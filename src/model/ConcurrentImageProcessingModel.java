@@ -0,0 +1,221 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class represents an image processing model that can be used by several threads at once.
+ * Every name maps to an immutable copy-on-write snapshot of its image. Reading an image never
+ * blocks: it returns a copy of the current snapshot, which shares its pixels until written to.
+ * Adding an image copies it before publishing the new snapshot in one step, so readers see either
+ * the old or the new image, never a partly written one.
+ *
+ * <p>Plain writers to the same name are not ordered: each copies its image on its own thread, and
+ * whichever publishes last wins. Every name has a lock that {@link #addImage(String, Image)} only
+ * takes to publish, so that it waits while an action run with
+ * {@link #runExclusively(Runnable, String...)} holds the name. This makes reading an image,
+ * changing it and adding it back atomic with respect to all other writers. The text and GUI
+ * controllers run every macro this way on the name it writes, so macros from several controllers
+ * that write the same name run one after the other and no update is lost.
+ */
+public class ConcurrentImageProcessingModel implements ImageProcessingModel {
+
+  private final Map<String, Image> images;
+  private final Map<String, ReentrantLock> locks;
+  private final ImageBackend backend;
+  private final long offHeapThreshold;
+
+  /**
+   * Constructor that initializes the model to store images as packed RGB pixels.
+   */
+  public ConcurrentImageProcessingModel() {
+    this(ImageBackend.PACKED);
+  }
+
+  /**
+   * Constructor that initializes the model to store images in the given storage layout.
+   *
+   * @param backend storage layout of images in this model
+   * @throws IllegalArgumentException if backend is null
+   */
+  public ConcurrentImageProcessingModel(ImageBackend backend) throws IllegalArgumentException {
+    this(backend, ImageProcessingModelImpl.DEFAULT_OFF_HEAP_THRESHOLD);
+  }
+
+  /**
+   * Constructor that initializes the model to store images in the given storage layout, except
+   * for images with more pixels than the given threshold, which are kept off the heap.
+   *
+   * @param backend          storage layout of images in this model
+   * @param offHeapThreshold number of pixels above which images are kept off the heap
+   * @throws IllegalArgumentException if backend is null or threshold is negative
+   */
+  public ConcurrentImageProcessingModel(ImageBackend backend, long offHeapThreshold)
+          throws IllegalArgumentException {
+    if (backend == null) {
+      throw new IllegalArgumentException("Backend is null.");
+    }
+    if (offHeapThreshold < 0) {
+      throw new IllegalArgumentException("Off-heap threshold cannot be negative.");
+    }
+    this.images = new ConcurrentHashMap<>();
+    this.locks = new ConcurrentHashMap<>();
+    this.backend = backend;
+    this.offHeapThreshold = offHeapThreshold;
+  }
+
+  @Override
+  public void addImage(String imageName, Image image) throws IllegalArgumentException {
+    checkName(imageName);
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    // copy outside of the lock so that other writers only wait for the publish
+    Image snapshot = ImageProcessingModelImpl.storedCopy(image,
+            this.backendFor(image.getWidth(), image.getHeight()));
+    ReentrantLock lock = this.lockFor(imageName);
+    lock.lock();
+    try {
+      this.images.put(imageName, snapshot);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Image getImage(String imageName) throws IllegalArgumentException {
+    return this.stored(imageName).copy();
+  }
+
+  @Override
+  public Image getReadOnlyImage(String imageName) throws IllegalArgumentException {
+    return new ReadOnlyImage(this.stored(imageName));
+  }
+
+  @Override
+  public Image createImage(int width, int height) throws IllegalArgumentException {
+    return CopyOnWriteImage.wrap(this.backendFor(width, height).create(width, height));
+  }
+
+  @Override
+  public MemoryReport getMemoryReport() {
+    List<ImageMemoryUsage> usages = new ArrayList<>();
+    Set<Image> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+    long total = 0;
+    for (Map.Entry<String, Image> entry : new TreeMap<>(this.images).entrySet()) {
+      ImageMemoryUsage usage = ImageProcessingModelImpl.usageOf(entry.getKey(), entry.getValue());
+      usages.add(usage);
+      if (counted.add(ImageProcessingModelImpl.storageOf(entry.getValue()))) {
+        total += usage.getBytes();
+      }
+    }
+    return new MemoryReport(usages, total);
+  }
+
+  @Override
+  public List<String> getImageNames() {
+    return new ArrayList<>(new TreeSet<>(this.images.keySet()));
+  }
+
+  /**
+   * Runs the given action while holding the locks of the given image names, so that no other
+   * writer can add images under those names until it finishes. Readers are not blocked and keep
+   * seeing the previous images until the action adds new ones. Locks are taken in the order of
+   * the names, so exclusive actions on overlapping names cannot deadlock as long as every action
+   * only adds images under its own names.
+   *
+   * @param action     the action to run
+   * @param imageNames names of the images that the action writes
+   * @throws IllegalArgumentException if action or any name is null
+   */
+  @Override
+  public void runExclusively(Runnable action, String... imageNames)
+          throws IllegalArgumentException {
+    if (action == null) {
+      throw new IllegalArgumentException("Action is null.");
+    }
+    if (imageNames == null) {
+      throw new IllegalArgumentException("Image names are null.");
+    }
+    for (String imageName : imageNames) {
+      checkName(imageName);
+    }
+    String[] sorted = imageNames.clone();
+    Arrays.sort(sorted);
+    List<ReentrantLock> held = new ArrayList<>();
+    try {
+      for (String imageName : sorted) {
+        ReentrantLock lock = this.lockFor(imageName);
+        lock.lock();
+        held.add(lock);
+      }
+      action.run();
+    } finally {
+      for (int i = held.size() - 1; i >= 0; i--) {
+        held.get(i).unlock();
+      }
+    }
+  }
+
+  /**
+   * Returns the current snapshot of the image with the given name, which must not be written to.
+   *
+   * @param imageName the name of the image
+   * @return the stored image
+   * @throws IllegalArgumentException if the image could not be found
+   */
+  private Image stored(String imageName) throws IllegalArgumentException {
+    checkName(imageName);
+    Image image = this.images.get(imageName);
+    if (image == null) {
+      throw new IllegalArgumentException("Image not found: " + imageName);
+    }
+    return image;
+  }
+
+  /**
+   * Returns the lock that exclusive actions on the image with the given name hold, and that
+   * adding an image under the name waits for.
+   *
+   * @param imageName the name of the image
+   * @return lock of the name
+   */
+  private ReentrantLock lockFor(String imageName) {
+    return this.locks.computeIfAbsent(imageName, name -> new ReentrantLock());
+  }
+
+  /**
+   * Chooses the storage layout for an image with the given dimensions.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @return storage layout of the image
+   */
+  private ImageBackend backendFor(int width, int height) {
+    if ((long) width * height > this.offHeapThreshold) {
+      return ImageBackend.OFF_HEAP;
+    }
+    return this.backend;
+  }
+
+  /**
+   * Checks that the given image name is not null, which the concurrent map cannot store.
+   *
+   * @param imageName the name to check
+   * @throws IllegalArgumentException if the name is null
+   */
+  private static void checkName(String imageName) throws IllegalArgumentException {
+    if (imageName == null) {
+      throw new IllegalArgumentException("Image name is null.");
+    }
+  }
+}
@@ -0,0 +1,235 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents an index of the pixel contents of the images stored in a model, used to
+ * store identical images only once. Every distinct content is kept as one copy-on-write image
+ * together with the number of names that refer to it. An image added under a name is looked up
+ * among the stored images of the same dimensions, comparing hashes of their pixels first; if an
+ * image with the same pixels is already stored, the name shares its pixels instead. Images are only
+ * hashed once another image of the same dimensions is added, so adding an image of new dimensions
+ * does not read its pixels. A content is dropped from the index once no name refers to it anymore,
+ * so its pixels can be freed. Images mapped from a session snapshot are not hashed, so that
+ * restoring a snapshot does not read every pixel.
+ */
+class ContentIndex {
+
+  /**
+   * A distinct content: an image sharing its pixels, the hash of its pixels once computed, and
+   * the number of names using it.
+   */
+  private static final class Entry {
+    private final Image image;
+    private long hash;
+    private boolean hashed;
+    private int names;
+
+    private Entry(Image image) {
+      this.image = image;
+      this.hashed = false;
+      this.names = 0;
+    }
+
+    private long hash() {
+      if (!this.hashed) {
+        this.hash = ContentIndex.hash(this.image);
+        this.hashed = true;
+      }
+      return this.hash;
+    }
+  }
+
+  // contents by their dimensions, the width in the upper half and the height in the lower half
+  private final Map<Long, List<Entry>> bySize;
+  private final Map<Image, Entry> byStorage;
+  private final Map<String, Entry> byName;
+  private long hits;
+  private long bytesSaved;
+
+  /**
+   * Constructor that creates an empty index.
+   */
+  ContentIndex() {
+    this.bySize = new HashMap<>();
+    this.byStorage = new IdentityHashMap<>();
+    this.byName = new HashMap<>();
+    this.hits = 0;
+    this.bytesSaved = 0;
+  }
+
+  /**
+   * Records that the given copy-on-write image is going to be stored under the given name, and
+   * returns the image to store instead. If an image with the same pixels is already stored, the
+   * returned image shares its pixels; otherwise the given image is returned. Any image previously
+   * recorded under the name is released.
+   *
+   * @param name  name of the image
+   * @param image copy-on-write image to store
+   * @return image to store under the name
+   */
+  Image intern(String name, Image image) {
+    // the image replaced under the name is no longer a candidate to share pixels with
+    this.release(name);
+    Entry entry = this.byStorage.get(storageKey(image));
+    if (entry == null && isPersistent(image)) {
+      // hashing would read the whole file; its images were deduplicated when it was written
+      entry = new Entry(image.copy());
+      this.byStorage.put(storageKey(image), entry);
+    }
+    if (entry == null) {
+      List<Entry> candidates = this.bySize.computeIfAbsent(sizeKey(image),
+              size -> new ArrayList<>());
+      // hashed only if there is an image of the same dimensions to compare with
+      long hash = candidates.isEmpty() ? 0 : hash(image);
+      for (Entry candidate : candidates) {
+        if (candidate.hash() == hash && samePixels(candidate.image, image)) {
+          entry = candidate;
+          this.hits++;
+          this.bytesSaved += image.getMemoryUsage();
+          image = entry.image.copy();
+          break;
+        }
+      }
+      if (entry == null) {
+        entry = new Entry(image.copy());
+        entry.hash = hash;
+        entry.hashed = !candidates.isEmpty();
+        candidates.add(entry);
+        this.byStorage.put(storageKey(image), entry);
+      }
+    }
+    entry.names++;
+    this.byName.put(name, entry);
+    return image;
+  }
+
+  /**
+   * Records that the image stored under the given name is no longer stored, dropping its content
+   * from the index if no other name uses it. Does nothing if no image is recorded under the name.
+   *
+   * @param name name of the image
+   */
+  void release(String name) {
+    Entry entry = this.byName.remove(name);
+    if (entry != null) {
+      this.drop(entry);
+    }
+  }
+
+  /**
+   * Removes one name from the given content, dropping the content if no name uses it anymore.
+   *
+   * @param entry the content
+   */
+  private void drop(Entry entry) {
+    if (--entry.names > 0) {
+      return;
+    }
+    long size = sizeKey(entry.image);
+    List<Entry> candidates = this.bySize.get(size);
+    if (candidates != null && candidates.remove(entry) && candidates.isEmpty()) {
+      this.bySize.remove(size);
+    }
+    this.byStorage.remove(storageKey(entry.image));
+  }
+
+  /**
+   * Returns the number of images that were found to have the same pixels as a stored image.
+   *
+   * @return number of hits so far
+   */
+  long getHitCount() {
+    return this.hits;
+  }
+
+  /**
+   * Returns the number of bytes that images found to be duplicates would have used.
+   *
+   * @return bytes saved so far
+   */
+  long getBytesSaved() {
+    return this.bytesSaved;
+  }
+
+  /**
+   * Returns the object holding the pixels of a stored copy-on-write image. A view is its own key,
+   * as it shows different pixels than the image it was created from.
+   *
+   * @param image the stored image
+   * @return key of the pixels of the image
+   */
+  private static Image storageKey(Image image) {
+    return image instanceof CopyOnWriteImage ? ((CopyOnWriteImage) image).storage() : image;
+  }
+
+  /**
+   * Checks whether the pixels of a stored image are mapped from a persistent file, which is only
+   * read on demand.
+   *
+   * @param image the stored image
+   * @return true if the image is mapped from a persistent file, false otherwise
+   */
+  private static boolean isPersistent(Image image) {
+    Image storage = storageKey(image);
+    return storage instanceof OffHeapImage && ((OffHeapImage) storage).isPersistent();
+  }
+
+  /**
+   * Returns the key of the dimensions of the given image.
+   *
+   * @param image the image
+   * @return width in the upper and height in the lower 32 bits
+   */
+  private static long sizeKey(Image image) {
+    return (long) image.getWidth() << 32 | image.getHeight();
+  }
+
+  /**
+   * Computes a 64-bit hash of the dimensions and pixels of the given image, one row at a time.
+   *
+   * @param image the image to hash
+   * @return hash of the image
+   */
+  private static long hash(Image image) {
+    long hash = 0xcbf29ce484222325L;
+    hash = (hash ^ image.getWidth()) * 0x100000001b3L;
+    hash = (hash ^ image.getHeight()) * 0x100000001b3L;
+    int[] row = new int[image.getWidth()];
+    for (int i = 0; i < image.getHeight(); i++) {
+      image.getRow(i, row);
+      for (int rgb : row) {
+        hash = (hash ^ rgb) * 0x100000001b3L;
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Checks whether the given images have the same dimensions and pixels.
+   *
+   * @param first  the first image
+   * @param second the second image
+   * @return true if the images are identical, false otherwise
+   */
+  private static boolean samePixels(Image first, Image second) {
+    if (first.getWidth() != second.getWidth() || first.getHeight() != second.getHeight()) {
+      return false;
+    }
+    int[] firstRow = new int[first.getWidth()];
+    int[] secondRow = new int[second.getWidth()];
+    for (int i = 0; i < first.getHeight(); i++) {
+      first.getRow(i, firstRow);
+      second.getRow(i, secondRow);
+      if (!Arrays.equals(firstRow, secondRow)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
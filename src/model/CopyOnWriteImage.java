@@ -0,0 +1,229 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents an image that shares its pixel storage with its copies until one of them
+ * is written to. Copying a CopyOnWriteImage is therefore constant time, and only the first write
+ * to a shared image copies its pixels. An image may be copied and read by several threads at
+ * once, as long as only one thread writes to it.
+ */
+public class CopyOnWriteImage implements Image {
+
+  /**
+   * Pixel storage together with the number of images that currently share it, whether it can
+   * only be read, and the storage layout to copy it into when it is written to, or null to copy
+   * it in its own layout.
+   */
+  private static final class Storage {
+    private final Image image;
+    private final AtomicInteger owners;
+    private final boolean readOnly;
+    private final ImageBackend copyBackend;
+
+    private Storage(Image image, boolean readOnly, ImageBackend copyBackend) {
+      this.image = image;
+      this.owners = new AtomicInteger(1);
+      this.readOnly = readOnly;
+      this.copyBackend = copyBackend;
+    }
+  }
+
+  private Storage storage;
+
+  /**
+   * Constructor that creates a copy-on-write copy of given Image object. If the given image is
+   * itself a CopyOnWriteImage, its storage is shared instead of copied.
+   *
+   * @param image Image object to copy
+   * @throws IllegalArgumentException if given Image object is null
+   */
+  public CopyOnWriteImage(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    if (image instanceof CopyOnWriteImage) {
+      this.storage = ((CopyOnWriteImage) image).share();
+    } else {
+      this.storage = new Storage(image.copy(), false, null);
+    }
+  }
+
+  /**
+   * Constructor that uses the given storage, which must already count this image as an owner.
+   *
+   * @param storage pixel storage of this image
+   */
+  private CopyOnWriteImage(Storage storage) {
+    this.storage = storage;
+  }
+
+  /**
+   * Creates a copy-on-write image that takes ownership of the given image without copying it. The
+   * given image must not be used directly afterwards.
+   *
+   * @param image Image object to take ownership of
+   * @return copy-on-write image backed by the given image
+   */
+  static CopyOnWriteImage wrap(Image image) {
+    return new CopyOnWriteImage(new Storage(image, false, null));
+  }
+
+  /**
+   * Creates a copy-on-write image that takes ownership of the given image, which can only be read,
+   * without copying it. The first write to the returned image or to any of its copies copies the
+   * pixels, even if no other image shares them any more.
+   *
+   * @param image Image object to take ownership of
+   * @return copy-on-write image backed by the given image
+   */
+  static CopyOnWriteImage wrapReadOnly(Image image) {
+    return new CopyOnWriteImage(new Storage(image, true, null));
+  }
+
+  /**
+   * Creates a copy-on-write image over the same read-only pixels as this one, whose first write,
+   * or the first write to any of its copies, copies the pixels into the given storage layout.
+   *
+   * @param backend storage layout to copy the pixels into when they are written to
+   * @return copy-on-write image over the pixels of this image
+   * @throws IllegalStateException if the pixels of this image can be written to
+   */
+  CopyOnWriteImage copyReadOnlyInto(ImageBackend backend) throws IllegalStateException {
+    if (!this.storage.readOnly) {
+      throw new IllegalStateException("Image is not read-only.");
+    }
+    return new CopyOnWriteImage(new Storage(this.storage.image, true, backend));
+  }
+
+  /**
+   * Checks whether the pixels of this image can only be read, so that they are copied on the
+   * first write even if no other image shares them.
+   *
+   * @return true if the pixels are read-only, false otherwise
+   */
+  boolean isReadOnly() {
+    return this.storage.readOnly;
+  }
+
+  /**
+   * Returns the pixel storage of this image, which must only be read.
+   *
+   * @return pixel storage of this image
+   */
+  Image storage() {
+    return this.storage.image;
+  }
+
+  /**
+   * Checks whether this image currently shares its pixel storage with the given image.
+   *
+   * @param other the image to compare with
+   * @return true if both images read the same pixel storage, false otherwise
+   */
+  public boolean sharesStorageWith(Image other) {
+    return other instanceof CopyOnWriteImage
+            && ((CopyOnWriteImage) other).storage == this.storage;
+  }
+
+  @Override
+  public Image copy() {
+    return new CopyOnWriteImage(this.share());
+  }
+
+  @Override
+  public int getWidth() {
+    return this.storage.image.getWidth();
+  }
+
+  @Override
+  public int getHeight() {
+    return this.storage.image.getHeight();
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    return this.storage.image.getMemoryUsage();
+  }
+
+  @Override
+  public int getTileWidth() {
+    return this.storage.image.getTileWidth();
+  }
+
+  @Override
+  public int getTileHeight() {
+    return this.storage.image.getTileHeight();
+  }
+
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    return this.storage.image.getPixelAt(row, col);
+  }
+
+  @Override
+  public void setPixelAt(int row, int col, int red, int green, int blue)
+          throws IllegalArgumentException {
+    this.writable().setPixelAt(row, col, red, green, blue);
+  }
+
+  @Override
+  public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                     int scansize) throws IllegalArgumentException {
+    this.storage.image.getRGB(row, col, width, height, dest, offset, scansize);
+  }
+
+  @Override
+  public void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                     int scansize) throws IllegalArgumentException {
+    this.writable().setRGB(row, col, width, height, src, offset, scansize);
+  }
+
+  @Override
+  public void getChannel(int channel, int row, int col, int width, int height, byte[] dest,
+                         int offset, int scansize) throws IllegalArgumentException {
+    this.storage.image.getChannel(channel, row, col, width, height, dest, offset, scansize);
+  }
+
+  @Override
+  public void setChannel(int channel, int row, int col, int width, int height, byte[] src,
+                         int offset, int scansize) throws IllegalArgumentException {
+    this.writable().setChannel(channel, row, col, width, height, src, offset, scansize);
+  }
+
+  @Override
+  public void copyChannel(int fromChannel, int toChannel) throws IllegalArgumentException {
+    this.writable().copyChannel(fromChannel, toChannel);
+  }
+
+  @Override
+  public void applyLookupTable(int channel, int[] lut) throws IllegalArgumentException {
+    this.writable().applyLookupTable(channel, lut);
+  }
+
+  /**
+   * Registers one more owner of this image's storage.
+   *
+   * @return the storage of this image
+   */
+  private Storage share() {
+    this.storage.owners.incrementAndGet();
+    return this.storage;
+  }
+
+  /**
+   * Returns pixel storage that only this image owns, copying shared or read-only storage first if
+   * needed.
+   *
+   * @return pixel storage that can be written to
+   */
+  private Image writable() {
+    if (this.storage.readOnly || this.storage.owners.get() > 1) {
+      Storage shared = this.storage;
+      this.storage = new Storage(shared.copyBackend == null ? shared.image.copy()
+              : shared.copyBackend.copyOf(shared.image), false, null);
+      shared.owners.decrementAndGet();
+    }
+    return this.storage.image;
+  }
+}
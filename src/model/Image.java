@@ -5,6 +5,21 @@ package model;
  */
 public interface Image {
 
+  /**
+   * Index of the red channel for the per-channel accessors.
+   */
+  int RED = 0;
+
+  /**
+   * Index of the green channel for the per-channel accessors.
+   */
+  int GREEN = 1;
+
+  /**
+   * Index of the blue channel for the per-channel accessors.
+   */
+  int BLUE = 2;
+
   /**
    * Returns width of image in pixels.
    *
@@ -41,4 +56,281 @@ public interface Image {
    *                                  are not in the range 0-255
    */
   void setPixelAt(int row, int col, int red, int green, int blue) throws IllegalArgumentException;
+
+  /**
+   * Returns a copy of this image that can be modified without affecting this image. Images that
+   * support it may share pixels with the copy until either of them is written to; the default
+   * implementation copies the pixels into packed RGB storage.
+   *
+   * @return copy of this image
+   */
+  default Image copy() {
+    return new PackedImage(this);
+  }
+
+  /**
+   * Returns an estimate of the number of bytes of memory that the pixels of this image take up,
+   * on or off the heap. Images that share pixels with other images report the shared pixels too.
+   * The default assumes one int per pixel.
+   *
+   * @return estimated memory usage in bytes
+   */
+  default long getMemoryUsage() {
+    return 4L * this.getWidth() * this.getHeight();
+  }
+
+  /**
+   * Returns the width of the blocks that this image is most efficiently read and written in. Code
+   * that works through a whole image can process it one block at a time, so that its working set
+   * stays small. The default is a whole row.
+   *
+   * @return width of a block in pixels
+   */
+  default int getTileWidth() {
+    return this.getWidth();
+  }
+
+  /**
+   * Returns the height of the blocks that this image is most efficiently read and written in. The
+   * default is a single row.
+   *
+   * @return height of a block in pixels
+   */
+  default int getTileHeight() {
+    return 1;
+  }
+
+  /**
+   * Copies a rectangular region of this image into an array of packed RGB ints of the form
+   * 0xRRGGBB. The pixel at (row + i, col + j) is stored at dest[offset + i * scansize + j].
+   *
+   * @param row      the first row of the region
+   * @param col      the first column of the region
+   * @param width    width of the region in pixels
+   * @param height   height of the region in pixels
+   * @param dest     array to copy the region into
+   * @param offset   index in dest of the first pixel of the region
+   * @param scansize distance in dest between the starts of two consecutive rows
+   * @throws IllegalArgumentException if the region is out of bounds or does not fit in dest
+   */
+  default void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                      int scansize) throws IllegalArgumentException {
+    checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        Pixel p = this.getPixelAt(row + i, col + j);
+        dest[offset + i * scansize + j] = (p.getRed() << 16) | (p.getGreen() << 8) | p.getBlue();
+      }
+    }
+  }
+
+  /**
+   * Sets a rectangular region of this image from an array of packed RGB ints of the form
+   * 0xRRGGBB. The top 8 bits of every int are ignored. The pixel at (row + i, col + j) is read
+   * from src[offset + i * scansize + j].
+   *
+   * @param row      the first row of the region
+   * @param col      the first column of the region
+   * @param width    width of the region in pixels
+   * @param height   height of the region in pixels
+   * @param src      array to copy the region from
+   * @param offset   index in src of the first pixel of the region
+   * @param scansize distance in src between the starts of two consecutive rows
+   * @throws IllegalArgumentException if the region is out of bounds or does not fit in src
+   */
+  default void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                      int scansize) throws IllegalArgumentException {
+    checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset, scansize);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int rgb = src[offset + i * scansize + j];
+        this.setPixelAt(row + i, col + j, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+      }
+    }
+  }
+
+  /**
+   * Copies one row of this image into an array of packed RGB ints of the form 0xRRGGBB.
+   *
+   * @param row  the row to copy
+   * @param dest array of at least getWidth() ints to copy the row into
+   * @throws IllegalArgumentException if the row is out of bounds or does not fit in dest
+   */
+  default void getRow(int row, int[] dest) throws IllegalArgumentException {
+    this.getRGB(row, 0, this.getWidth(), 1, dest, 0, this.getWidth());
+  }
+
+  /**
+   * Sets one row of this image from an array of packed RGB ints of the form 0xRRGGBB.
+   *
+   * @param row the row to set
+   * @param src array of at least getWidth() ints to copy the row from
+   * @throws IllegalArgumentException if the row is out of bounds or does not fit in src
+   */
+  default void setRow(int row, int[] src) throws IllegalArgumentException {
+    this.setRGB(row, 0, this.getWidth(), 1, src, 0, this.getWidth());
+  }
+
+  /**
+   * Copies one channel of a rectangular region of this image into an array of bytes, one
+   * unsigned byte per pixel. The pixel at (row + i, col + j) is stored at
+   * dest[offset + i * scansize + j].
+   *
+   * @param channel  the channel to copy (RED, GREEN or BLUE)
+   * @param row      the first row of the region
+   * @param col      the first column of the region
+   * @param width    width of the region in pixels
+   * @param height   height of the region in pixels
+   * @param dest     array to copy the region into
+   * @param offset   index in dest of the first pixel of the region
+   * @param scansize distance in dest between the starts of two consecutive rows
+   * @throws IllegalArgumentException if the channel is invalid, or the region is out of bounds
+   *                                  or does not fit in dest
+   */
+  default void getChannel(int channel, int row, int col, int width, int height, byte[] dest,
+                          int offset, int scansize) throws IllegalArgumentException {
+    checkChannel(channel);
+    checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    int shift = 16 - 8 * channel;
+    int[] rgb = new int[width];
+    for (int i = 0; i < height; i++) {
+      this.getRGB(row + i, col, width, 1, rgb, 0, width);
+      int base = offset + i * scansize;
+      for (int j = 0; j < width; j++) {
+        dest[base + j] = (byte) (rgb[j] >> shift);
+      }
+    }
+  }
+
+  /**
+   * Sets one channel of a rectangular region of this image from an array of bytes, one unsigned
+   * byte per pixel, leaving the other channels unchanged. The pixel at (row + i, col + j) is read
+   * from src[offset + i * scansize + j].
+   *
+   * @param channel  the channel to set (RED, GREEN or BLUE)
+   * @param row      the first row of the region
+   * @param col      the first column of the region
+   * @param width    width of the region in pixels
+   * @param height   height of the region in pixels
+   * @param src      array to copy the region from
+   * @param offset   index in src of the first pixel of the region
+   * @param scansize distance in src between the starts of two consecutive rows
+   * @throws IllegalArgumentException if the channel is invalid, or the region is out of bounds
+   *                                  or does not fit in src
+   */
+  default void setChannel(int channel, int row, int col, int width, int height, byte[] src,
+                          int offset, int scansize) throws IllegalArgumentException {
+    checkChannel(channel);
+    checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset, scansize);
+    int shift = 16 - 8 * channel;
+    int mask = ~(0xFF << shift);
+    int[] rgb = new int[width];
+    for (int i = 0; i < height; i++) {
+      this.getRGB(row + i, col, width, 1, rgb, 0, width);
+      int base = offset + i * scansize;
+      for (int j = 0; j < width; j++) {
+        rgb[j] = (rgb[j] & mask) | ((src[base + j] & 0xFF) << shift);
+      }
+      this.setRGB(row + i, col, width, 1, rgb, 0, width);
+    }
+  }
+
+  /**
+   * Copies every value of one channel of this image into another channel, leaving the source
+   * channel and the third channel unchanged.
+   *
+   * @param fromChannel the channel to copy from (RED, GREEN or BLUE)
+   * @param toChannel   the channel to copy to (RED, GREEN or BLUE)
+   * @throws IllegalArgumentException if either channel is invalid
+   */
+  default void copyChannel(int fromChannel, int toChannel) throws IllegalArgumentException {
+    checkChannel(fromChannel);
+    checkChannel(toChannel);
+    byte[] values = new byte[this.getWidth()];
+    for (int i = 0; i < this.getHeight(); i++) {
+      this.getChannel(fromChannel, i, 0, values.length, 1, values, 0, values.length);
+      this.setChannel(toChannel, i, 0, values.length, 1, values, 0, values.length);
+    }
+  }
+
+  /**
+   * Replaces every value v of one channel of this image with lut[v].
+   *
+   * @param channel the channel to map (RED, GREEN or BLUE)
+   * @param lut     lookup table of 256 values in the range 0-255
+   * @throws IllegalArgumentException if the channel is invalid, or the lookup table is null, does
+   *                                  not have 256 entries or has values out of range
+   */
+  default void applyLookupTable(int channel, int[] lut) throws IllegalArgumentException {
+    checkChannel(channel);
+    checkLookupTable(lut);
+    byte[] values = new byte[this.getWidth()];
+    for (int i = 0; i < this.getHeight(); i++) {
+      this.getChannel(channel, i, 0, values.length, 1, values, 0, values.length);
+      for (int j = 0; j < values.length; j++) {
+        values[j] = (byte) lut[values[j] & 0xFF];
+      }
+      this.setChannel(channel, i, 0, values.length, 1, values, 0, values.length);
+    }
+  }
+
+  /**
+   * Checks that a region lies inside the given image and fits in an array of the given length.
+   *
+   * @param image    the image the region is in
+   * @param row      the first row of the region
+   * @param col      the first column of the region
+   * @param width    width of the region in pixels
+   * @param height   height of the region in pixels
+   * @param length   length of the array, or -1 if the array is null
+   * @param offset   index in the array of the first pixel of the region
+   * @param scansize distance in the array between the starts of two consecutive rows
+   * @throws IllegalArgumentException if the region is out of bounds or does not fit in the array
+   */
+  static void checkRegion(Image image, int row, int col, int width, int height, int length,
+                          int offset, int scansize) throws IllegalArgumentException {
+    if (length < 0) {
+      throw new IllegalArgumentException("Array is null.");
+    }
+    if (width < 0 || height < 0 || row < 0 || col < 0 || row + height > image.getHeight()
+            || col + width > image.getWidth()) {
+      throw new IllegalArgumentException("Region is out of bounds.");
+    }
+    if (width > 0 && height > 0 && (offset < 0 || scansize < width
+            || (long) offset + (long) (height - 1) * scansize + width > length)) {
+      throw new IllegalArgumentException("Region does not fit in array.");
+    }
+  }
+
+  /**
+   * Checks that the given channel is RED, GREEN or BLUE.
+   *
+   * @param channel the channel to check
+   * @throws IllegalArgumentException if the channel is invalid
+   */
+  static void checkChannel(int channel) throws IllegalArgumentException {
+    if (channel != RED && channel != GREEN && channel != BLUE) {
+      throw new IllegalArgumentException("Invalid channel: " + channel);
+    }
+  }
+
+  /**
+   * Checks that the given lookup table has 256 entries in the range 0-255.
+   *
+   * @param lut the lookup table to check
+   * @throws IllegalArgumentException if the lookup table is null, does not have 256 entries or has
+   *                                  values out of range
+   */
+  static void checkLookupTable(int[] lut) throws IllegalArgumentException {
+    if (lut == null || lut.length != 256) {
+      throw new IllegalArgumentException("Lookup table must have 256 entries.");
+    }
+    for (int value : lut) {
+      if (value < 0 || value > 255) {
+        throw new IllegalArgumentException("RGB values must be in the range 0-255");
+      }
+    }
+  }
 }
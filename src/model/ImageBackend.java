@@ -0,0 +1,141 @@
+package model;
+
+/**
+ * This enum represents the storage layouts that Image objects in the program can be kept in.
+ */
+public enum ImageBackend {
+
+  /**
+   * Stores every pixel as a separate Pixel object (ImageImpl).
+   */
+  PIXEL_ARRAY {
+    @Override
+    public Image create(int width, int height) {
+      return new ImageImpl(width, height);
+    }
+
+    @Override
+    public Image copyOf(Image image) {
+      return new ImageImpl(image);
+    }
+  },
+
+  /**
+   * Stores every pixel as one packed RGB int in a flat row-major array (PackedImage).
+   */
+  PACKED {
+    @Override
+    public Image create(int width, int height) {
+      return new PackedImage(width, height);
+    }
+
+    @Override
+    public Image copyOf(Image image) {
+      return new PackedImage(image);
+    }
+  },
+
+  /**
+   * Stores every channel as a separate flat row-major plane of bytes (PlanarImage).
+   */
+  PLANAR {
+    @Override
+    public Image create(int width, int height) {
+      return new PlanarImage(width, height);
+    }
+
+    @Override
+    public Image copyOf(Image image) {
+      return new PlanarImage(image);
+    }
+  },
+
+  /**
+   * Stores every channel outside of the Java heap in a memory-mapped scratch file
+   * (OffHeapImage).
+   */
+  OFF_HEAP {
+    @Override
+    public Image create(int width, int height) {
+      return new OffHeapImage(width, height);
+    }
+
+    @Override
+    public Image copyOf(Image image) {
+      return new OffHeapImage(image);
+    }
+  },
+
+  /**
+   * Stores the image as square tiles of packed RGB ints in the default tile cache, which keeps
+   * only a bounded number of tiles in memory (TiledImage).
+   */
+  TILED {
+    @Override
+    public Image create(int width, int height) {
+      return new TiledImage(width, height);
+    }
+
+    @Override
+    public Image copyOf(Image image) {
+      return new TiledImage(image);
+    }
+  };
+
+  /**
+   * Creates a black image with the given dimensions in this storage layout.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @return new Image object
+   * @throws IllegalArgumentException if width or height is negative
+   */
+  public abstract Image create(int width, int height) throws IllegalArgumentException;
+
+  /**
+   * Creates a copy of given Image object in this storage layout.
+   *
+   * @param image Image object to copy
+   * @return copy of given Image object
+   * @throws IllegalArgumentException if given Image object is null
+   */
+  public abstract Image copyOf(Image image) throws IllegalArgumentException;
+
+  /**
+   * Returns the storage layout that the pixels of the given image are kept in.
+   *
+   * @param image the image to inspect
+   * @return storage layout of the image, or null if the image is stored in some other way
+   * @throws IllegalArgumentException if image is null
+   */
+  public static ImageBackend of(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    if (image instanceof CopyOnWriteImage) {
+      return of(((CopyOnWriteImage) image).storage());
+    }
+    if (image instanceof TransformedImage) {
+      return of(((TransformedImage) image).storage());
+    }
+    if (image instanceof ReadOnlyImage) {
+      return of(((ReadOnlyImage) image).viewed());
+    }
+    if (image instanceof ImageImpl) {
+      return PIXEL_ARRAY;
+    }
+    if (image instanceof PackedImage) {
+      return PACKED;
+    }
+    if (image instanceof PlanarImage) {
+      return PLANAR;
+    }
+    if (image instanceof OffHeapImage) {
+      return OFF_HEAP;
+    }
+    if (image instanceof TiledImage) {
+      return TILED;
+    }
+    return null;
+  }
+}
@@ -15,7 +15,12 @@ public class ImageHistogramModel {
    * @throws IllegalArgumentException if image is null
    */
   public ImageHistogramModel(Image image) throws IllegalArgumentException {
-    this.image = new ImageImpl(image);
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    // a read-only view still changes with the image it views; copies of copy-on-write images
+    // share their pixels until either is written to
+    this.image = image.copy();
   }
 
   /**
@@ -24,14 +29,7 @@ public class ImageHistogramModel {
    * @return list of red components
    */
   public int[] getRedHistogram() {
-    int[] counts = new int[256];
-    for (int i = 0; i < this.image.getHeight(); i++) {
-      for (int j = 0; j < this.image.getWidth(); j++) {
-        int redC = this.image.getPixelAt(i, j).getRed();
-        counts[redC] += 1;
-      }
-    }
-    return counts;
+    return this.getChannelHistogram(Image.RED);
   }
 
   /**
@@ -40,14 +38,7 @@ public class ImageHistogramModel {
    * @return list of red components
    */
   public int[] getGreenHistogram() {
-    int[] counts = new int[256];
-    for (int i = 0; i < this.image.getHeight(); i++) {
-      for (int j = 0; j < this.image.getWidth(); j++) {
-        int greenC = this.image.getPixelAt(i, j).getGreen();
-        counts[greenC] += 1;
-      }
-    }
-    return counts;
+    return this.getChannelHistogram(Image.GREEN);
   }
 
   /**
@@ -56,28 +47,46 @@ public class ImageHistogramModel {
    * @return list of red components
    */
   public int[] getBlueHistogram() {
+    return this.getChannelHistogram(Image.BLUE);
+  }
+
+  /**
+   * Retrieves intensity components from image.
+   *
+   * @return list of intensity components
+   */
+  public int[] getIntensityHistogram() {
     int[] counts = new int[256];
+    int width = this.image.getWidth();
+    byte[] reds = new byte[width];
+    byte[] greens = new byte[width];
+    byte[] blues = new byte[width];
     for (int i = 0; i < this.image.getHeight(); i++) {
-      for (int j = 0; j < this.image.getWidth(); j++) {
-        int blueC = this.image.getPixelAt(i, j).getBlue();
-        counts[blueC] += 1;
+      this.image.getChannel(Image.RED, i, 0, width, 1, reds, 0, width);
+      this.image.getChannel(Image.GREEN, i, 0, width, 1, greens, 0, width);
+      this.image.getChannel(Image.BLUE, i, 0, width, 1, blues, 0, width);
+      for (int j = 0; j < width; j++) {
+        int intensity = ((reds[j] & 0xFF) + (greens[j] & 0xFF) + (blues[j] & 0xFF)) / 3;
+        counts[intensity] += 1;
       }
     }
     return counts;
   }
 
   /**
-   * Retrieves intensity components from image.
+   * Counts the values of one channel of the image.
    *
-   * @return list of intensity components
+   * @param channel the channel to count (Image.RED, Image.GREEN or Image.BLUE)
+   * @return list of counts of each value of the channel
    */
-  public int[] getIntensityHistogram() {
+  private int[] getChannelHistogram(int channel) {
     int[] counts = new int[256];
+    int width = this.image.getWidth();
+    byte[] values = new byte[width];
     for (int i = 0; i < this.image.getHeight(); i++) {
-      for (int j = 0; j < this.image.getWidth(); j++) {
-        Pixel p = this.image.getPixelAt(i, j);
-        int intensity = (p.getRed() + p.getGreen() + p.getBlue()) / 3;
-        counts[intensity] += 1;
+      this.image.getChannel(channel, i, 0, width, 1, values, 0, width);
+      for (byte value : values) {
+        counts[value & 0xFF] += 1;
       }
     }
     return counts;
@@ -0,0 +1,371 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents the history of an image as a list of versions that can be stepped through
+ * with undo and redo. A version shares every row that also appears in the version before it
+ * instead of storing it again, so a change that touches a few rows, or only reorders them, takes
+ * little extra memory. Moving between versions takes constant time: the image of a version is a
+ * copy-on-write image over its rows, which is only copied when it is written to.
+ *
+ * <p>A version committed as a copy-on-write image, such as an image of a model, also keeps a share
+ * of that image's pixels and returns a copy of it, so that a model the version is added back to
+ * shares the pixels it stored for the version instead of copying the rows again.
+ *
+ * <p>When the rows and shared pixels of all versions use more memory than the history limit, the
+ * shared pixels of the oldest versions are given up first, and then the oldest versions are
+ * dropped. The current version is never dropped and keeps its shared pixels.
+ */
+public class ImageHistory {
+
+  /**
+   * Default number of bytes that the versions in a history may use.
+   */
+  public static final long DEFAULT_MEMORY_LIMIT = 256L * 1024 * 1024;
+
+  /**
+   * A version in the history: its rows, the copy-on-write image over them and the share of the
+   * pixels of the committed image, if it kept one.
+   */
+  private static final class Version {
+    private final int[][] rows;
+    private final CopyOnWriteImage image;
+    private final long bytes;
+    private Image shared;
+    private long sharedBytes;
+
+    private Version(int width, int[][] rows, Image shared) {
+      this.rows = rows;
+      this.image = CopyOnWriteImage.wrap(new RowImage(width, rows));
+      this.bytes = arrayBytes(rows.length) + (long) rows.length * arrayBytes(width);
+      this.shared = shared;
+      this.sharedBytes = shared == null ? 0 : shared.getMemoryUsage();
+    }
+  }
+
+  private final List<Version> versions;
+  private final Map<int[], Integer> rowOwners;
+  private final long memoryLimit;
+  private int current;
+  private long ownedBytes;
+  private long totalBytes;
+
+  /**
+   * Constructor that creates an empty history with the default memory limit.
+   */
+  public ImageHistory() {
+    this(DEFAULT_MEMORY_LIMIT);
+  }
+
+  /**
+   * Constructor that creates an empty history whose versions may use the given number of bytes.
+   *
+   * @param memoryLimit number of bytes that the versions may use
+   * @throws IllegalArgumentException if the limit is negative
+   */
+  public ImageHistory(long memoryLimit) throws IllegalArgumentException {
+    if (memoryLimit < 0) {
+      throw new IllegalArgumentException("Memory limit cannot be negative.");
+    }
+    this.versions = new ArrayList<>();
+    this.rowOwners = new IdentityHashMap<>();
+    this.memoryLimit = memoryLimit;
+    this.current = -1;
+    this.ownedBytes = 0;
+    this.totalBytes = 0;
+  }
+
+  /**
+   * Adds the given image as the newest version and makes it the current one. Versions that were
+   * undone are dropped, as they can no longer be redone. If the image is a copy-on-write image,
+   * the version shares its pixels as well.
+   *
+   * @param image the image to add
+   * @throws IllegalArgumentException if the image is null
+   */
+  public void commit(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    while (this.versions.size() > this.current + 1) {
+      this.release(this.versions.remove(this.versions.size() - 1));
+    }
+    int width = image.getWidth();
+    Map<Integer, List<int[]>> previousRows = this.rowsOfCurrent(width);
+    int[][] rows = new int[image.getHeight()][];
+    for (int i = 0; i < rows.length; i++) {
+      int[] row = new int[width];
+      image.getRow(i, row);
+      rows[i] = row;
+      for (int[] previous : previousRows.getOrDefault(Arrays.hashCode(row), List.of())) {
+        if (Arrays.equals(previous, row)) {
+          rows[i] = previous;
+          break;
+        }
+      }
+    }
+    Version version = new Version(width, rows,
+            image instanceof CopyOnWriteImage ? image.copy() : null);
+    for (int[] row : rows) {
+      if (this.rowOwners.merge(row, 1, Integer::sum) == 1) {
+        this.ownedBytes += arrayBytes(width);
+      }
+    }
+    this.ownedBytes += arrayBytes(rows.length) + version.sharedBytes;
+    this.totalBytes += version.bytes + version.sharedBytes;
+    this.versions.add(version);
+    this.current = this.versions.size() - 1;
+    for (int v = 0; v < this.current && this.ownedBytes > this.memoryLimit; v++) {
+      this.unshare(this.versions.get(v));
+    }
+    while (this.ownedBytes > this.memoryLimit && this.current > 0) {
+      this.release(this.versions.remove(0));
+      this.current--;
+    }
+  }
+
+  /**
+   * Checks whether there is a version before the current one.
+   *
+   * @return true if undo is possible, false otherwise
+   */
+  public boolean canUndo() {
+    return this.current > 0;
+  }
+
+  /**
+   * Checks whether there is a version after the current one.
+   *
+   * @return true if redo is possible, false otherwise
+   */
+  public boolean canRedo() {
+    return this.current + 1 < this.versions.size();
+  }
+
+  /**
+   * Makes the version before the current one current and returns its image.
+   *
+   * @return copy-on-write image of the new current version
+   * @throws IllegalStateException if there is nothing to undo
+   */
+  public Image undo() throws IllegalStateException {
+    if (!this.canUndo()) {
+      throw new IllegalStateException("Nothing to undo.");
+    }
+    this.current--;
+    return this.getCurrent();
+  }
+
+  /**
+   * Makes the version after the current one current and returns its image.
+   *
+   * @return copy-on-write image of the new current version
+   * @throws IllegalStateException if there is nothing to redo
+   */
+  public Image redo() throws IllegalStateException {
+    if (!this.canRedo()) {
+      throw new IllegalStateException("Nothing to redo.");
+    }
+    this.current++;
+    return this.getCurrent();
+  }
+
+  /**
+   * Returns the image of the current version. It shares its pixels with the history until it is
+   * written to. If the version still shares the pixels of the image it was committed as, such as
+   * an image of a model, the returned image shares them too, and a model it is added to keeps them
+   * without copying. Otherwise it is an image over the rows of the history, which a model copies
+   * into its own storage layout, so the rows of the history stay private to it.
+   *
+   * @return copy-on-write image of the current version
+   * @throws IllegalStateException if the history is empty
+   */
+  public Image getCurrent() throws IllegalStateException {
+    if (this.current < 0) {
+      throw new IllegalStateException("History is empty.");
+    }
+    Version version = this.versions.get(this.current);
+    return version.shared != null ? version.shared.copy() : version.image.copy();
+  }
+
+  /**
+   * Returns the number of versions in this history.
+   *
+   * @return number of versions
+   */
+  public int getVersionCount() {
+    return this.versions.size();
+  }
+
+  /**
+   * Returns the number of bytes that the versions in this history actually use, counting every
+   * row once no matter how many versions share it, and the pixels shared with committed images.
+   *
+   * @return bytes owned by this history
+   */
+  public long getOwnedBytes() {
+    return this.ownedBytes;
+  }
+
+  /**
+   * Returns the number of bytes saved by sharing rows, which is the memory the versions would use
+   * if each stored all of its rows minus the memory they actually use.
+   *
+   * @return bytes shared between versions
+   */
+  public long getSharedBytes() {
+    return this.totalBytes - this.ownedBytes;
+  }
+
+  /**
+   * Returns a one-line summary of the versions and the memory they use, such as
+   * "3 versions, 2.5 MB owned, 4.0 MB shared".
+   *
+   * @return summary of this history
+   */
+  public String getSummary() {
+    return this.versions.size() + (this.versions.size() == 1 ? " version, " : " versions, ")
+            + String.format("%.1f MB owned, %.1f MB shared", this.ownedBytes / (1024.0 * 1024.0),
+            this.getSharedBytes() / (1024.0 * 1024.0));
+  }
+
+  /**
+   * Groups the rows of the current version by their hash code, if they have the given width.
+   *
+   * @param width width of the rows to look for
+   * @return rows of the current version by hash code
+   */
+  private Map<Integer, List<int[]>> rowsOfCurrent(int width) {
+    Map<Integer, List<int[]>> rows = new HashMap<>();
+    if (this.current >= 0) {
+      for (int[] row : this.versions.get(this.current).rows) {
+        if (row.length == width) {
+          rows.computeIfAbsent(Arrays.hashCode(row), hash -> new ArrayList<>()).add(row);
+        }
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Stops counting the rows of a dropped version, freeing the rows no other version uses.
+   *
+   * @param version the dropped version
+   */
+  private void release(Version version) {
+    for (int[] row : version.rows) {
+      if (this.rowOwners.merge(row, -1, Integer::sum) == 0) {
+        this.rowOwners.remove(row);
+        this.ownedBytes -= arrayBytes(row.length);
+      }
+    }
+    this.unshare(version);
+    this.ownedBytes -= arrayBytes(version.rows.length);
+    this.totalBytes -= version.bytes;
+  }
+
+  /**
+   * Gives up the share of a version in the pixels of the image it was committed as, so that they
+   * can be freed. The version keeps its rows.
+   *
+   * @param version the version to give up the share of
+   */
+  private void unshare(Version version) {
+    this.ownedBytes -= version.sharedBytes;
+    this.totalBytes -= version.sharedBytes;
+    version.shared = null;
+    version.sharedBytes = 0;
+  }
+
+  /**
+   * Returns the number of bytes used by an array of the given length of ints or references.
+   *
+   * @param length length of the array
+   * @return bytes of the array, including its header
+   */
+  private static long arrayBytes(int length) {
+    return 16 + 4L * length;
+  }
+
+  /**
+   * An image whose rows may be shared with other versions, and which is therefore never written
+   * to. It is only used as the storage of copy-on-write images that the history keeps a share of,
+   * so writing to them always copies the rows first.
+   */
+  private static final class RowImage implements Image {
+    private final int width;
+    private final int[][] rows;
+
+    private RowImage(int width, int[][] rows) {
+      this.width = width;
+      this.rows = rows;
+    }
+
+    @Override
+    public int getWidth() {
+      return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+      return this.rows.length;
+    }
+
+    @Override
+    public long getMemoryUsage() {
+      return arrayBytes(this.rows.length) + (long) this.rows.length * arrayBytes(this.width);
+    }
+
+    @Override
+    public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+      if (row < 0 || row >= this.rows.length || col < 0 || col >= this.width) {
+        throw new IllegalArgumentException("Row or col is out of bounds.");
+      }
+      int rgb = this.rows[row][col];
+      return new Pixel((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+    }
+
+    @Override
+    public void setPixelAt(int row, int col, int red, int green, int blue) {
+      throw new UnsupportedOperationException("Image history is read-only.");
+    }
+
+    @Override
+    public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                       int scansize) throws IllegalArgumentException {
+      Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+              scansize);
+      for (int i = 0; i < height; i++) {
+        System.arraycopy(this.rows[row + i], col, dest, offset + i * scansize, width);
+      }
+    }
+
+    @Override
+    public void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                       int scansize) {
+      throw new UnsupportedOperationException("Image history is read-only.");
+    }
+
+    @Override
+    public void setChannel(int channel, int row, int col, int width, int height, byte[] src,
+                           int offset, int scansize) {
+      throw new UnsupportedOperationException("Image history is read-only.");
+    }
+
+    @Override
+    public void copyChannel(int fromChannel, int toChannel) {
+      throw new UnsupportedOperationException("Image history is read-only.");
+    }
+
+    @Override
+    public void applyLookupTable(int channel, int[] lut) {
+      throw new UnsupportedOperationException("Image history is read-only.");
+    }
+  }
+}
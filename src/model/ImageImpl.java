@@ -6,6 +6,8 @@ package model;
 public class ImageImpl implements Image {
 
   private final Pixel[][] image;
+  // kept apart from the array, which has no row to take it from when the image has no rows
+  private final int width;
 
   /**
    * Constructor initializes ImageImpl object using given 2D array of Pixel objects representing
@@ -27,6 +29,7 @@ public class ImageImpl implements Image {
         throw new IllegalArgumentException("Rows in image array are not the same length.");
       }
     }
+    this.width = image[0].length;
     this.image = new Pixel[image.length][image[0].length];
     for (int r = 0; r < image.length; r++) {
       for (int c = 0; c < image[0].length; c++) {
@@ -39,6 +42,26 @@ public class ImageImpl implements Image {
     }
   }
 
+  /**
+   * Constructor that creates a black image with the given dimensions.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @throws IllegalArgumentException if width or height is negative
+   */
+  public ImageImpl(int width, int height) throws IllegalArgumentException {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height cannot be negative.");
+    }
+    this.width = width;
+    this.image = new Pixel[height][width];
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        this.image[r][c] = new Pixel(0, 0, 0);
+      }
+    }
+  }
+
   /**
    * Constructor that creates a copy of given Image object.
    *
@@ -49,17 +72,33 @@ public class ImageImpl implements Image {
     if (image == null) {
       throw new IllegalArgumentException("Image is null.");
     }
+    this.width = image.getWidth();
     this.image = new Pixel[image.getHeight()][image.getWidth()];
+    int[] row = new int[image.getWidth()];
     for (int i = 0; i < image.getHeight(); i++) {
+      image.getRow(i, row);
       for (int j = 0; j < image.getWidth(); j++) {
-        this.image[i][j] = image.getPixelAt(i, j);
+        this.image[i][j] = new Pixel((row[j] >> 16) & 0xFF, (row[j] >> 8) & 0xFF, row[j] & 0xFF);
       }
     }
   }
 
+  @Override
+  public Image copy() {
+    return new ImageImpl(this);
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    // an array header is 16 bytes, a reference 4 bytes and a Pixel object 24 bytes
+    long width = this.getWidth();
+    long height = this.getHeight();
+    return 16 + 4 * height + height * (16 + 4 * width) + 24 * width * height;
+  }
+
   @Override
   public int getWidth() {
-    return image[0].length;
+    return this.width;
   }
 
   @Override
@@ -89,4 +128,37 @@ public class ImageImpl implements Image {
     this.image[row][col].setGreen(green);
     this.image[row][col].setBlue(blue);
   }
+
+  @Override
+  public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    for (int i = 0; i < height; i++) {
+      Pixel[] pixels = this.image[row + i];
+      int base = offset + i * scansize;
+      for (int j = 0; j < width; j++) {
+        Pixel p = pixels[col + j];
+        dest[base + j] = (p.getRed() << 16) | (p.getGreen() << 8) | p.getBlue();
+      }
+    }
+  }
+
+  @Override
+  public void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset,
+            scansize);
+    for (int i = 0; i < height; i++) {
+      Pixel[] pixels = this.image[row + i];
+      int base = offset + i * scansize;
+      for (int j = 0; j < width; j++) {
+        int rgb = src[base + j];
+        Pixel p = pixels[col + j];
+        p.setRed((rgb >> 16) & 0xFF);
+        p.setGreen((rgb >> 8) & 0xFF);
+        p.setBlue(rgb & 0xFF);
+      }
+    }
+  }
 }
@@ -0,0 +1,81 @@
+package model;
+
+/**
+ * This class represents the memory usage of one named image in an ImageProcessingModel.
+ */
+public class ImageMemoryUsage {
+
+  private final String name;
+  private final int width;
+  private final int height;
+  private final String backend;
+  private final long bytes;
+
+  /**
+   * Constructor that takes in the details of a named image.
+   *
+   * @param name    name of the image
+   * @param width   width of image in pixels
+   * @param height  height of image in pixels
+   * @param backend description of the storage layout of the image
+   * @param bytes   estimated memory usage of the image in bytes
+   */
+  public ImageMemoryUsage(String name, int width, int height, String backend, long bytes) {
+    this.name = name;
+    this.width = width;
+    this.height = height;
+    this.backend = backend;
+    this.bytes = bytes;
+  }
+
+  /**
+   * Returns the name of the image.
+   *
+   * @return name of the image
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * Returns the width of the image in pixels.
+   *
+   * @return width of the image
+   */
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the image in pixels.
+   *
+   * @return height of the image
+   */
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Returns a description of the storage layout of the image.
+   *
+   * @return storage layout of the image
+   */
+  public String getBackend() {
+    return this.backend;
+  }
+
+  /**
+   * Returns the estimated memory usage of the image in bytes.
+   *
+   * @return memory usage in bytes
+   */
+  public long getBytes() {
+    return this.bytes;
+  }
+
+  @Override
+  public String toString() {
+    return this.name + " " + this.width + "x" + this.height + " " + this.backend + " "
+            + this.bytes + " bytes";
+  }
+}
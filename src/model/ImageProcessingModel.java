@@ -1,5 +1,7 @@
 package model;
 
+import java.util.List;
+
 /**
  * This interface represents an image processing model that stores all the images in the program.
  */
@@ -21,4 +23,62 @@ public interface ImageProcessingModel {
    * @throws IllegalArgumentException if Image object with given image name could not be found
    */
   Image getImage(String imageName) throws IllegalArgumentException;
+
+  /**
+   * Returns a read-only view of Image object with given image name without copying it. Any
+   * attempt to modify the returned image throws an UnsupportedOperationException. Callers that
+   * only read pixels should prefer this over getImage.
+   *
+   * @param imageName the name of the Image object
+   * @return read-only view of Image object with given image name
+   * @throws IllegalArgumentException if Image object with given image name could not be found
+   */
+  Image getReadOnlyImage(String imageName) throws IllegalArgumentException;
+
+  /**
+   * Creates a black image with the given dimensions in the storage layout this model would keep
+   * it in. Macros that build images from scratch should use this so that large images are not
+   * created on the heap.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @return new Image object
+   * @throws IllegalArgumentException if width or height is negative
+   */
+  Image createImage(int width, int height) throws IllegalArgumentException;
+
+  /**
+   * Returns a report of the memory used by the images in this model, listed by name.
+   *
+   * @return memory report of this model
+   */
+  MemoryReport getMemoryReport();
+
+  /**
+   * Returns the names of all images in this model in alphabetical order.
+   *
+   * @return names of the images
+   */
+  List<String> getImageNames();
+
+  /**
+   * Runs the given action while no other action run this way on any of the given names can add
+   * images under them, so that reading an image, changing it and adding it back is not
+   * interleaved with other such writers. Models that are only used by one thread at a time simply
+   * run the action.
+   *
+   * @param action     the action to run
+   * @param imageNames names of the images that the action writes
+   * @throws IllegalArgumentException if action or the names are null
+   */
+  default void runExclusively(Runnable action, String... imageNames)
+          throws IllegalArgumentException {
+    if (action == null) {
+      throw new IllegalArgumentException("Action is null.");
+    }
+    if (imageNames == null) {
+      throw new IllegalArgumentException("Image names are null.");
+    }
+    action.run();
+  }
 }
@@ -1,33 +1,400 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * This class represents an image processing model that stores all the images in the program in a
- * hashmap.
+ * hashmap. Images with more pixels than a configurable threshold are kept off the heap. Images are
+ * copy-on-write, so images added to and returned by the model share their pixels until one of
+ * them is modified. Flipped, cropped and rotated views are stored as views.
+ *
+ * <p>Images with identical pixels are stored once, no matter how many names they are added
+ * under.
+ *
+ * <p>The model can be given a memory budget. When its images use more memory than the budget,
+ * the least recently used ones are written to a scratch file and read back when they are next
+ * requested.
  */
 public class ImageProcessingModelImpl implements ImageProcessingModel {
 
+  /**
+   * Default number of pixels above which images are kept off the heap.
+   */
+  public static final long DEFAULT_OFF_HEAP_THRESHOLD = 64L * 1024 * 1024;
+
+  /**
+   * Memory budget that keeps every image in memory.
+   */
+  public static final long NO_MEMORY_BUDGET = Long.MAX_VALUE;
+
   private final Map<String, Image> images;
+  private final Map<String, SpillFile.Slot> spilled;
+  private final ImageBackend backend;
+  private final long offHeapThreshold;
+  private final long memoryBudget;
+  private final ContentIndex contents;
+  // number of names and bytes of the storage of every image in memory, counted when stored
+  private final Map<Image, long[]> residentStorage;
+  private long residentBytes;
+  private SpillFile spillFile;
+  private long evictions;
+  private long reloads;
 
   /**
-   * Constructor that initializes hashmap to store images.
+   * Constructor that initializes hashmap to store images, using packed RGB storage for images.
    */
   public ImageProcessingModelImpl() {
-    this.images = new HashMap<>();
+    this(ImageBackend.PACKED);
+  }
+
+  /**
+   * Constructor that initializes hashmap to store images in the given storage layout.
+   *
+   * @param backend storage layout of images in this model
+   * @throws IllegalArgumentException if backend is null
+   */
+  public ImageProcessingModelImpl(ImageBackend backend) throws IllegalArgumentException {
+    this(backend, DEFAULT_OFF_HEAP_THRESHOLD);
+  }
+
+  /**
+   * Constructor that initializes hashmap to store images in the given storage layout, except for
+   * images with more pixels than the given threshold, which are kept off the heap.
+   *
+   * @param backend          storage layout of images in this model
+   * @param offHeapThreshold number of pixels above which images are kept off the heap
+   * @throws IllegalArgumentException if backend is null or threshold is negative
+   */
+  public ImageProcessingModelImpl(ImageBackend backend, long offHeapThreshold)
+          throws IllegalArgumentException {
+    this(backend, offHeapThreshold, NO_MEMORY_BUDGET);
+  }
+
+  /**
+   * Constructor that initializes hashmap to store images in the given storage layout, except for
+   * images with more pixels than the given threshold, which are kept off the heap. When the images
+   * use more than the given number of bytes, the least recently used ones are moved to a scratch
+   * file until they are requested again. The most recently used image is always kept in memory.
+   *
+   * @param backend          storage layout of images in this model
+   * @param offHeapThreshold number of pixels above which images are kept off the heap
+   * @param memoryBudget     number of bytes that images in memory may use
+   * @throws IllegalArgumentException if backend is null, or threshold or budget is negative
+   */
+  public ImageProcessingModelImpl(ImageBackend backend, long offHeapThreshold, long memoryBudget)
+          throws IllegalArgumentException {
+    if (backend == null) {
+      throw new IllegalArgumentException("Backend is null.");
+    }
+    if (offHeapThreshold < 0) {
+      throw new IllegalArgumentException("Off-heap threshold cannot be negative.");
+    }
+    if (memoryBudget < 0) {
+      throw new IllegalArgumentException("Memory budget cannot be negative.");
+    }
+    this.images = new LinkedHashMap<>(16, 0.75f, true);
+    this.spilled = new HashMap<>();
+    this.backend = backend;
+    this.offHeapThreshold = offHeapThreshold;
+    this.memoryBudget = memoryBudget;
+    this.contents = new ContentIndex();
+    this.residentStorage = new IdentityHashMap<>();
+    this.residentBytes = 0;
+    this.spillFile = null;
+    this.evictions = 0;
+    this.reloads = 0;
   }
 
   @Override
   public void addImage(String imageName, Image image) {
-    this.images.put(imageName, new ImageImpl(image));
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    Image stored = storedCopy(image, this.backendFor(image.getWidth(), image.getHeight()));
+    this.putResident(imageName, this.contents.intern(imageName, stored));
+    SpillFile.Slot old = this.spilled.remove(imageName);
+    if (old != null) {
+      this.spillFile.free(old);
+    }
+    this.enforceBudget(imageName);
   }
 
   @Override
   public Image getImage(String imageName) throws IllegalArgumentException {
-    if (!this.images.containsKey(imageName)) {
-      throw new IllegalArgumentException("Image not found: " + imageName);
+    return this.stored(imageName).copy();
+  }
+
+  @Override
+  public Image getReadOnlyImage(String imageName) throws IllegalArgumentException {
+    return new ReadOnlyImage(this.stored(imageName));
+  }
+
+  /**
+   * Returns the stored image with the given name, reading it back from the scratch file if it was
+   * moved there. The stored image must not be written to.
+   *
+   * @param imageName the name of the image
+   * @return the stored image
+   * @throws IllegalArgumentException if the image could not be found
+   */
+  private Image stored(String imageName) throws IllegalArgumentException {
+    Image image = this.images.get(imageName);
+    if (image == null) {
+      SpillFile.Slot slot = this.spilled.remove(imageName);
+      if (slot == null) {
+        throw new IllegalArgumentException("Image not found: " + imageName);
+      }
+      image = this.contents.intern(imageName, CopyOnWriteImage.wrap(this.spillFile.read(slot,
+              this.backendFor(slot.getWidth(), slot.getHeight()))));
+      this.putResident(imageName, image);
+      this.reloads++;
+      this.enforceBudget(imageName);
+    }
+    return image;
+  }
+
+  @Override
+  public Image createImage(int width, int height) throws IllegalArgumentException {
+    return CopyOnWriteImage.wrap(this.backendFor(width, height).create(width, height));
+  }
+
+  @Override
+  public MemoryReport getMemoryReport() {
+    List<ImageMemoryUsage> usages = new ArrayList<>();
+    Set<Image> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+    long total = 0;
+    // copying the map does not change the order of least recently used images
+    Map<String, Image> resident = new TreeMap<>(this.images);
+    Set<String> names = new TreeSet<>(resident.keySet());
+    names.addAll(this.spilled.keySet());
+    for (String name : names) {
+      Image image = resident.get(name);
+      if (image == null) {
+        SpillFile.Slot slot = this.spilled.get(name);
+        usages.add(new ImageMemoryUsage(name, slot.getWidth(), slot.getHeight(), "SPILLED", 0));
+        continue;
+      }
+      ImageMemoryUsage usage = usageOf(name, image);
+      usages.add(usage);
+      if (counted.add(storageOf(image))) {
+        total += usage.getBytes();
+      }
+    }
+    return new MemoryReport(usages, total);
+  }
+
+  @Override
+  public List<String> getImageNames() {
+    Set<String> names = new TreeSet<>(this.images.keySet());
+    names.addAll(this.spilled.keySet());
+    return new ArrayList<>(names);
+  }
+
+  /**
+   * Returns the number of images that were moved to the scratch file to stay within the memory
+   * budget.
+   *
+   * @return number of evictions so far
+   */
+  public long getEvictionCount() {
+    return this.evictions;
+  }
+
+  /**
+   * Returns the number of images that were read back from the scratch file.
+   *
+   * @return number of reloads so far
+   */
+  public long getReloadCount() {
+    return this.reloads;
+  }
+
+  /**
+   * Returns the number of added images that had the same pixels as an image already in this
+   * model, and were stored by sharing its pixels.
+   *
+   * @return number of duplicate images so far
+   */
+  public long getDuplicateCount() {
+    return this.contents.getHitCount();
+  }
+
+  /**
+   * Returns the number of bytes that duplicate images would have used if they had been stored
+   * separately.
+   *
+   * @return bytes saved by sharing the pixels of duplicate images
+   */
+  public long getDuplicateBytesSaved() {
+    return this.contents.getBytesSaved();
+  }
+
+  /**
+   * Moves the least recently used images to the scratch file until the images in memory fit in
+   * the memory budget, never moving the given image.
+   *
+   * @param keep name of the image to keep in memory
+   * @throws IllegalStateException if the scratch file could not be written
+   */
+  private void enforceBudget(String keep) throws IllegalStateException {
+    if (this.memoryBudget == NO_MEMORY_BUDGET) {
+      return;
+    }
+    while (this.residentBytes > this.memoryBudget) {
+      String eldest = null;
+      for (String name : this.images.keySet()) {
+        if (!name.equals(keep)) {
+          eldest = name;
+          break;
+        }
+      }
+      if (eldest == null) {
+        return;
+      }
+      if (this.spillFile == null) {
+        this.spillFile = new SpillFile();
+      }
+      this.spilled.put(eldest, this.spillFile.write(this.removeResident(eldest)));
+      this.contents.release(eldest);
+      this.evictions++;
+    }
+  }
+
+  /**
+   * Stores an image in memory under the given name, replacing any image stored under it, and
+   * keeps the bytes used by images in memory up to date, counting shared pixels once.
+   *
+   * @param imageName the name of the image
+   * @param image     the image to store
+   */
+  private void putResident(String imageName, Image image) {
+    long[] usage = this.residentStorage.computeIfAbsent(storageOf(image),
+            storage -> new long[]{0, image.getMemoryUsage()});
+    if (usage[0]++ == 0) {
+      this.residentBytes += usage[1];
+    }
+    Image previous = this.images.put(imageName, image);
+    if (previous != null) {
+      this.forgetResident(previous);
+    }
+  }
+
+  /**
+   * Removes the image stored in memory under the given name, and keeps the bytes used by images
+   * in memory up to date.
+   *
+   * @param imageName the name of the image
+   * @return the removed image
+   */
+  private Image removeResident(String imageName) {
+    Image image = this.images.remove(imageName);
+    this.forgetResident(image);
+    return image;
+  }
+
+  /**
+   * Stops counting an image that is no longer stored in memory, and the bytes of its storage if
+   * no other image in memory uses it.
+   *
+   * @param image the image
+   */
+  private void forgetResident(Image image) {
+    Image storage = storageOf(image);
+    long[] usage = this.residentStorage.get(storage);
+    if (--usage[0] == 0) {
+      this.residentStorage.remove(storage);
+      this.residentBytes -= usage[1];
+    }
+  }
+
+  /**
+   * Returns a copy-on-write copy of the given image for a model to store. Copy-on-write images
+   * and views in the storage layout the model keeps images of their size in, such as the versions
+   * of an {@link ImageHistory} committed from the model, share their pixels with the copy. Images
+   * mapped from a session snapshot share them until they are first written to, and are then copied
+   * into that layout. Other images are copied into that layout right away.
+   *
+   * @param image   the image to store
+   * @param backend storage layout the model keeps images of this size in
+   * @return copy of the image that the model owns
+   */
+  static Image storedCopy(Image image, ImageBackend backend) {
+    if (image instanceof ReadOnlyImage) {
+      image = image.copy();
+    }
+    if (image instanceof CopyOnWriteImage && ((CopyOnWriteImage) image).isReadOnly()) {
+      return ((CopyOnWriteImage) image).copyReadOnlyInto(backend);
+    }
+    if (image instanceof CopyOnWriteImage && ImageBackend.of(image) == backend) {
+      return image.copy();
+    }
+    if (image instanceof TransformedImage) {
+      // views share the pixels of the image they were created from
+      return CopyOnWriteImage.wrap(image.copy());
+    }
+    return CopyOnWriteImage.wrap(backend.copyOf(image));
+  }
+
+  /**
+   * Describes the memory used by an image stored in a model under the given name.
+   *
+   * @param name  name of the image
+   * @param image the stored image
+   * @return memory usage of the image
+   */
+  static ImageMemoryUsage usageOf(String name, Image image) {
+    ImageBackend backend = ImageBackend.of(image);
+    String layout = backend != null ? backend.name() : "OTHER";
+    if (image instanceof CopyOnWriteImage
+            && ((CopyOnWriteImage) image).storage() instanceof TransformedImage
+            && !((TransformedImage) ((CopyOnWriteImage) image).storage()).isMaterialized()) {
+      layout += " view";
+    }
+    return new ImageMemoryUsage(name, image.getWidth(), image.getHeight(), layout,
+            image.getMemoryUsage());
+  }
+
+  /**
+   * Returns the image that actually holds the pixels of the given image, looking through
+   * copy-on-write images and views.
+   *
+   * @param image the image to inspect
+   * @return the image holding the pixels
+   */
+  static Image storageOf(Image image) {
+    while (true) {
+      if (image instanceof CopyOnWriteImage) {
+        image = ((CopyOnWriteImage) image).storage();
+      } else if (image instanceof TransformedImage) {
+        image = ((TransformedImage) image).storage();
+      } else if (image instanceof ReadOnlyImage) {
+        image = ((ReadOnlyImage) image).viewed();
+      } else {
+        return image;
+      }
+    }
+  }
+
+  /**
+   * Chooses the storage layout for an image with the given dimensions.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @return storage layout of the image
+   */
+  private ImageBackend backendFor(int width, int height) {
+    if ((long) width * height > this.offHeapThreshold) {
+      return ImageBackend.OFF_HEAP;
     }
-    return new ImageImpl(this.images.get(imageName));
+    return this.backend;
   }
 }
@@ -0,0 +1,75 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents a report of the memory used by the named images in an
+ * ImageProcessingModel. Images that share pixels each list the shared bytes, but the shared bytes
+ * are counted only once in the total.
+ */
+public class MemoryReport {
+
+  private final List<ImageMemoryUsage> images;
+  private final long totalBytes;
+
+  /**
+   * Constructor that takes in the memory usage of every image and the total memory usage.
+   *
+   * @param images     memory usage of the images, in the order they should be listed
+   * @param totalBytes total bytes used by all images together
+   * @throws IllegalArgumentException if images is null
+   */
+  public MemoryReport(List<ImageMemoryUsage> images, long totalBytes)
+          throws IllegalArgumentException {
+    if (images == null) {
+      throw new IllegalArgumentException("Images is null.");
+    }
+    this.images = Collections.unmodifiableList(new ArrayList<>(images));
+    this.totalBytes = totalBytes;
+  }
+
+  /**
+   * Returns the memory usage of every image.
+   *
+   * @return unmodifiable list of memory usage of the images
+   */
+  public List<ImageMemoryUsage> getImages() {
+    return this.images;
+  }
+
+  /**
+   * Returns the total bytes used by all images together.
+   *
+   * @return total memory usage in bytes
+   */
+  public long getTotalBytes() {
+    return this.totalBytes;
+  }
+
+  /**
+   * Returns a one-line summary of this report.
+   *
+   * @return number of images and their total memory usage
+   */
+  public String getSummary() {
+    return this.images.size() + (this.images.size() == 1 ? " image, " : " images, ")
+            + String.format("%.1f", this.totalBytes / (1024.0 * 1024.0)) + " MB";
+  }
+
+  /**
+   * Returns this report with one line per image followed by the total.
+   *
+   * @return report as text
+   */
+  @Override
+  public String toString() {
+    StringBuilder report = new StringBuilder();
+    for (ImageMemoryUsage image : this.images) {
+      report.append(image).append("\n");
+    }
+    report.append("total ").append(this.totalBytes).append(" bytes");
+    return report.toString();
+  }
+}
@@ -0,0 +1,277 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class represents an image whose pixels are kept outside of the Java heap, in a scratch file
+ * that is memory-mapped into the program. Every channel is a row-major plane of unsigned bytes,
+ * split into chunks of whole rows so that images larger than a single buffer can be stored.
+ */
+public class OffHeapImage implements Image {
+
+  private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+  private final int width;
+  private final int height;
+  private final int rowsPerChunk;
+  private final ByteBuffer[][] planes;
+  private final boolean persistent;
+
+  /**
+   * Constructor that creates a black image with the given dimensions in a new scratch file in the
+   * default temporary-file directory.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @throws IllegalArgumentException if width or height is negative
+   * @throws IllegalStateException    if the scratch file could not be created or mapped
+   */
+  public OffHeapImage(int width, int height)
+          throws IllegalArgumentException, IllegalStateException {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height cannot be negative.");
+    }
+    this.width = width;
+    this.height = height;
+    this.rowsPerChunk = Math.max(1, MAX_CHUNK_BYTES / Math.max(1, width));
+    this.persistent = false;
+    try {
+      File file = File.createTempFile("image", ".planes");
+      try (RandomAccessFile scratch = new RandomAccessFile(file, "rw")) {
+        this.planes = this.map(scratch.getChannel(), 0, FileChannel.MapMode.READ_WRITE);
+      } finally {
+        // the mappings stay valid after the file is removed
+        if (!file.delete()) {
+          file.deleteOnExit();
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to create scratch file for image.");
+    }
+  }
+
+  /**
+   * Constructor that maps an image whose red, green and blue planes are stored one after the
+   * other, row by row, at the given position of a file. Pixels are only read from the file when
+   * they are first accessed. The mapping is read-only, so the image must be copied before it is
+   * written to, and the mapping stays valid after the channel is closed.
+   *
+   * @param width    width of image in pixels
+   * @param height   height of image in pixels
+   * @param channel  channel of the file to map, open for reading
+   * @param position position of the red plane in the file
+   * @throws IOException if the file could not be mapped
+   */
+  OffHeapImage(int width, int height, FileChannel channel, long position) throws IOException {
+    this.width = width;
+    this.height = height;
+    this.rowsPerChunk = Math.max(1, MAX_CHUNK_BYTES / Math.max(1, width));
+    this.persistent = true;
+    this.planes = this.map(channel, position, FileChannel.MapMode.READ_ONLY);
+  }
+
+  /**
+   * Constructor that creates a copy of given Image object in a new scratch file. Pixels are copied
+   * one row at a time, so the image is never held on the heap as a whole.
+   *
+   * @param image Image object to copy
+   * @throws IllegalArgumentException if given Image object is null
+   * @throws IllegalStateException    if the scratch file could not be created or mapped
+   */
+  public OffHeapImage(Image image) throws IllegalArgumentException, IllegalStateException {
+    this(checkNotNull(image).getWidth(), image.getHeight());
+    byte[] row = new byte[this.width];
+    for (int c = RED; c <= BLUE; c++) {
+      for (int i = 0; i < this.height; i++) {
+        image.getChannel(c, i, 0, this.width, 1, row, 0, this.width);
+        this.rowBuffer(c, i, 0).put(row);
+      }
+    }
+  }
+
+  @Override
+  public Image copy() {
+    return new OffHeapImage(this);
+  }
+
+  /**
+   * Returns the number of bytes of the scratch file mapped for this image. They are not on the
+   * Java heap.
+   *
+   * @return mapped bytes of this image
+   */
+  @Override
+  public long getMemoryUsage() {
+    return 3L * this.width * this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Row or col is out of bounds.");
+    }
+    int chunk = row / this.rowsPerChunk;
+    int index = (row % this.rowsPerChunk) * this.width + col;
+    return new Pixel(this.planes[RED][chunk].get(index) & 0xFF,
+            this.planes[GREEN][chunk].get(index) & 0xFF,
+            this.planes[BLUE][chunk].get(index) & 0xFF);
+  }
+
+  @Override
+  public void setPixelAt(int row, int col, int red, int green, int blue)
+          throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Row or col is out of bounds.");
+    }
+    if (red < 0 || red > 255 || green < 0 || green > 255 || blue < 0 || blue > 255) {
+      throw new IllegalArgumentException("RGB values must be in the range 0-255");
+    }
+    int chunk = row / this.rowsPerChunk;
+    int index = (row % this.rowsPerChunk) * this.width + col;
+    this.planes[RED][chunk].put(index, (byte) red);
+    this.planes[GREEN][chunk].put(index, (byte) green);
+    this.planes[BLUE][chunk].put(index, (byte) blue);
+  }
+
+  @Override
+  public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    byte[] reds = new byte[width];
+    byte[] greens = new byte[width];
+    byte[] blues = new byte[width];
+    for (int i = 0; i < height; i++) {
+      this.rowBuffer(RED, row + i, col).get(reds);
+      this.rowBuffer(GREEN, row + i, col).get(greens);
+      this.rowBuffer(BLUE, row + i, col).get(blues);
+      int to = offset + i * scansize;
+      for (int j = 0; j < width; j++) {
+        dest[to + j] = ((reds[j] & 0xFF) << 16) | ((greens[j] & 0xFF) << 8) | (blues[j] & 0xFF);
+      }
+    }
+  }
+
+  @Override
+  public void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset,
+            scansize);
+    byte[] reds = new byte[width];
+    byte[] greens = new byte[width];
+    byte[] blues = new byte[width];
+    for (int i = 0; i < height; i++) {
+      int from = offset + i * scansize;
+      for (int j = 0; j < width; j++) {
+        int rgb = src[from + j];
+        reds[j] = (byte) (rgb >> 16);
+        greens[j] = (byte) (rgb >> 8);
+        blues[j] = (byte) rgb;
+      }
+      this.rowBuffer(RED, row + i, col).put(reds);
+      this.rowBuffer(GREEN, row + i, col).put(greens);
+      this.rowBuffer(BLUE, row + i, col).put(blues);
+    }
+  }
+
+  @Override
+  public void getChannel(int channel, int row, int col, int width, int height, byte[] dest,
+                         int offset, int scansize) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    for (int i = 0; i < height; i++) {
+      this.rowBuffer(channel, row + i, col).get(dest, offset + i * scansize, width);
+    }
+  }
+
+  @Override
+  public void setChannel(int channel, int row, int col, int width, int height, byte[] src,
+                         int offset, int scansize) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset,
+            scansize);
+    for (int i = 0; i < height; i++) {
+      this.rowBuffer(channel, row + i, col).put(src, offset + i * scansize, width);
+    }
+  }
+
+  /**
+   * Checks whether the pixels of this image are mapped from a file that outlives the image, such
+   * as a session snapshot, rather than from a scratch file of its own.
+   *
+   * @return true if the image is mapped from a persistent file, false otherwise
+   */
+  boolean isPersistent() {
+    return this.persistent;
+  }
+
+  /**
+   * Maps the three planes of this image from the given position of a file, in chunks of whole
+   * rows.
+   *
+   * @param channel  channel of the file to map
+   * @param position position of the red plane in the file
+   * @param mode     mapping mode
+   * @return mapped chunks of every plane
+   * @throws IOException if the file could not be mapped
+   */
+  private ByteBuffer[][] map(FileChannel channel, long position, FileChannel.MapMode mode)
+          throws IOException {
+    int chunkCount = (this.height + this.rowsPerChunk - 1) / this.rowsPerChunk;
+    ByteBuffer[][] mapped = new ByteBuffer[3][chunkCount];
+    for (int c = RED; c <= BLUE; c++) {
+      for (int k = 0; k < chunkCount; k++) {
+        int rows = Math.min(this.rowsPerChunk, this.height - k * this.rowsPerChunk);
+        long size = (long) rows * this.width;
+        mapped[c][k] = channel.map(mode, position, size);
+        position += size;
+      }
+    }
+    return mapped;
+  }
+
+  /**
+   * Returns a view of the mapped memory of one channel positioned at the given pixel. The view
+   * has its own position, so concurrent readers do not interfere with each other.
+   *
+   * @param channel the channel to view
+   * @param row     the row of the pixel
+   * @param col     the column of the pixel
+   * @return buffer positioned at the given pixel
+   */
+  private ByteBuffer rowBuffer(int channel, int row, int col) {
+    ByteBuffer buffer = this.planes[channel][row / this.rowsPerChunk].duplicate();
+    buffer.position((row % this.rowsPerChunk) * this.width + col);
+    return buffer;
+  }
+
+  /**
+   * Checks that the given image is not null, so that the copy constructor can fail before
+   * creating a scratch file.
+   *
+   * @param image the image to check
+   * @return the given image
+   * @throws IllegalArgumentException if the image is null
+   */
+  private static Image checkNotNull(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    return image;
+  }
+}
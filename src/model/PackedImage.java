@@ -0,0 +1,189 @@
+package model;
+
+/**
+ * This class represents an image as a flat row-major array of packed RGB ints, one int per pixel
+ * in the form 0xRRGGBB. Unlike ImageImpl, no Pixel objects are kept per pixel.
+ */
+public class PackedImage implements Image {
+
+  private final int width;
+  private final int height;
+  private final int[] data;
+
+  /**
+   * Constructor that creates a black image with the given dimensions.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @throws IllegalArgumentException if width or height is negative, or the image has more
+   *                                  pixels than an array can hold
+   */
+  public PackedImage(int width, int height) throws IllegalArgumentException {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height cannot be negative.");
+    }
+    // arrays hold a few elements less than the largest int
+    if ((long) width * height > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Image is too large.");
+    }
+    this.width = width;
+    this.height = height;
+    this.data = new int[width * height];
+  }
+
+  /**
+   * Constructor that creates a copy of given Image object.
+   *
+   * @param image Image object to copy
+   * @throws IllegalArgumentException if given Image object is null
+   */
+  public PackedImage(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    this.width = image.getWidth();
+    this.height = image.getHeight();
+    if (image instanceof PackedImage) {
+      this.data = ((PackedImage) image).data.clone();
+    } else {
+      this.data = new int[this.width * this.height];
+      image.getRGB(0, 0, this.width, this.height, this.data, 0, this.width);
+    }
+  }
+
+  @Override
+  public Image copy() {
+    return new PackedImage(this);
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    return 16 + 4L * this.data.length;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Row or col is out of bounds.");
+    }
+    int rgb = this.data[row * this.width + col];
+    return new Pixel((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+  }
+
+  @Override
+  public void setPixelAt(int row, int col, int red, int green, int blue)
+          throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Row or col is out of bounds.");
+    }
+    if (red < 0 || red > 255 || green < 0 || green > 255 || blue < 0 || blue > 255) {
+      throw new IllegalArgumentException("RGB values must be in the range 0-255");
+    }
+    this.data[row * this.width + col] = pack(red, green, blue);
+  }
+
+  @Override
+  public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    for (int i = 0; i < height; i++) {
+      System.arraycopy(this.data, (row + i) * this.width + col, dest, offset + i * scansize,
+              width);
+    }
+  }
+
+  @Override
+  public void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset,
+            scansize);
+    for (int i = 0; i < height; i++) {
+      int from = offset + i * scansize;
+      int to = (row + i) * this.width + col;
+      for (int j = 0; j < width; j++) {
+        this.data[to + j] = src[from + j] & 0xFFFFFF;
+      }
+    }
+  }
+
+  @Override
+  public void getChannel(int channel, int row, int col, int width, int height, byte[] dest,
+                         int offset, int scansize) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    int shift = 16 - 8 * channel;
+    for (int i = 0; i < height; i++) {
+      int from = (row + i) * this.width + col;
+      int to = offset + i * scansize;
+      for (int j = 0; j < width; j++) {
+        dest[to + j] = (byte) (this.data[from + j] >> shift);
+      }
+    }
+  }
+
+  @Override
+  public void setChannel(int channel, int row, int col, int width, int height, byte[] src,
+                         int offset, int scansize) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset,
+            scansize);
+    int shift = 16 - 8 * channel;
+    int mask = ~(0xFF << shift);
+    for (int i = 0; i < height; i++) {
+      int from = offset + i * scansize;
+      int to = (row + i) * this.width + col;
+      for (int j = 0; j < width; j++) {
+        this.data[to + j] = (this.data[to + j] & mask) | ((src[from + j] & 0xFF) << shift);
+      }
+    }
+  }
+
+  @Override
+  public void copyChannel(int fromChannel, int toChannel) throws IllegalArgumentException {
+    Image.checkChannel(fromChannel);
+    Image.checkChannel(toChannel);
+    int fromShift = 16 - 8 * fromChannel;
+    int toShift = 16 - 8 * toChannel;
+    int mask = ~(0xFF << toShift);
+    for (int i = 0; i < this.data.length; i++) {
+      int value = (this.data[i] >> fromShift) & 0xFF;
+      this.data[i] = (this.data[i] & mask) | (value << toShift);
+    }
+  }
+
+  @Override
+  public void applyLookupTable(int channel, int[] lut) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkLookupTable(lut);
+    int shift = 16 - 8 * channel;
+    int mask = ~(0xFF << shift);
+    for (int i = 0; i < this.data.length; i++) {
+      int value = lut[(this.data[i] >> shift) & 0xFF];
+      this.data[i] = (this.data[i] & mask) | (value << shift);
+    }
+  }
+
+  /**
+   * Packs RGB components into a single int of the form 0xRRGGBB.
+   *
+   * @param red   value of red component (0-255)
+   * @param green value of green component (0-255)
+   * @param blue  value of blue component (0-255)
+   * @return packed RGB value
+   */
+  static int pack(int red, int green, int blue) {
+    return (red << 16) | (green << 8) | blue;
+  }
+}
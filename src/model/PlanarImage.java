@@ -0,0 +1,190 @@
+package model;
+
+/**
+ * This class represents an image as three flat row-major planes of bytes, one per channel. Each
+ * byte holds an unsigned component value (0-255). Operations that touch a single channel only
+ * scan that channel's plane.
+ */
+public class PlanarImage implements Image {
+
+  private final int width;
+  private final int height;
+  private final byte[][] planes;
+
+  /**
+   * Constructor that creates a black image with the given dimensions.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @throws IllegalArgumentException if width or height is negative, or the image has more
+   *                                  pixels than a plane can hold
+   */
+  public PlanarImage(int width, int height) throws IllegalArgumentException {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height cannot be negative.");
+    }
+    // arrays hold a few elements less than the largest int
+    if ((long) width * height > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Image is too large.");
+    }
+    this.width = width;
+    this.height = height;
+    this.planes = new byte[3][width * height];
+  }
+
+  /**
+   * Constructor that creates a copy of given Image object.
+   *
+   * @param image Image object to copy
+   * @throws IllegalArgumentException if given Image object is null
+   */
+  public PlanarImage(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    this.width = image.getWidth();
+    this.height = image.getHeight();
+    this.planes = new byte[3][];
+    for (int c = RED; c <= BLUE; c++) {
+      if (image instanceof PlanarImage) {
+        this.planes[c] = ((PlanarImage) image).planes[c].clone();
+      } else {
+        this.planes[c] = new byte[this.width * this.height];
+        image.getChannel(c, 0, 0, this.width, this.height, this.planes[c], 0, this.width);
+      }
+    }
+  }
+
+  @Override
+  public Image copy() {
+    return new PlanarImage(this);
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    return 16 + 3 * (4 + 16 + (long) this.planes[RED].length);
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Row or col is out of bounds.");
+    }
+    int index = row * this.width + col;
+    return new Pixel(this.planes[RED][index] & 0xFF, this.planes[GREEN][index] & 0xFF,
+            this.planes[BLUE][index] & 0xFF);
+  }
+
+  @Override
+  public void setPixelAt(int row, int col, int red, int green, int blue)
+          throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Row or col is out of bounds.");
+    }
+    if (red < 0 || red > 255 || green < 0 || green > 255 || blue < 0 || blue > 255) {
+      throw new IllegalArgumentException("RGB values must be in the range 0-255");
+    }
+    int index = row * this.width + col;
+    this.planes[RED][index] = (byte) red;
+    this.planes[GREEN][index] = (byte) green;
+    this.planes[BLUE][index] = (byte) blue;
+  }
+
+  @Override
+  public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    byte[] reds = this.planes[RED];
+    byte[] greens = this.planes[GREEN];
+    byte[] blues = this.planes[BLUE];
+    for (int i = 0; i < height; i++) {
+      int from = (row + i) * this.width + col;
+      int to = offset + i * scansize;
+      for (int j = 0; j < width; j++) {
+        dest[to + j] = ((reds[from + j] & 0xFF) << 16) | ((greens[from + j] & 0xFF) << 8)
+                | (blues[from + j] & 0xFF);
+      }
+    }
+  }
+
+  @Override
+  public void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset,
+            scansize);
+    byte[] reds = this.planes[RED];
+    byte[] greens = this.planes[GREEN];
+    byte[] blues = this.planes[BLUE];
+    for (int i = 0; i < height; i++) {
+      int from = offset + i * scansize;
+      int to = (row + i) * this.width + col;
+      for (int j = 0; j < width; j++) {
+        int rgb = src[from + j];
+        reds[to + j] = (byte) (rgb >> 16);
+        greens[to + j] = (byte) (rgb >> 8);
+        blues[to + j] = (byte) rgb;
+      }
+    }
+  }
+
+  @Override
+  public void getChannel(int channel, int row, int col, int width, int height, byte[] dest,
+                         int offset, int scansize) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    if (col == 0 && width == this.width && scansize == width) {
+      System.arraycopy(this.planes[channel], row * this.width, dest, offset, width * height);
+      return;
+    }
+    for (int i = 0; i < height; i++) {
+      System.arraycopy(this.planes[channel], (row + i) * this.width + col, dest,
+              offset + i * scansize, width);
+    }
+  }
+
+  @Override
+  public void setChannel(int channel, int row, int col, int width, int height, byte[] src,
+                         int offset, int scansize) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset,
+            scansize);
+    if (col == 0 && width == this.width && scansize == width) {
+      System.arraycopy(src, offset, this.planes[channel], row * this.width, width * height);
+      return;
+    }
+    for (int i = 0; i < height; i++) {
+      System.arraycopy(src, offset + i * scansize, this.planes[channel],
+              (row + i) * this.width + col, width);
+    }
+  }
+
+  @Override
+  public void copyChannel(int fromChannel, int toChannel) throws IllegalArgumentException {
+    Image.checkChannel(fromChannel);
+    Image.checkChannel(toChannel);
+    System.arraycopy(this.planes[fromChannel], 0, this.planes[toChannel], 0,
+            this.planes[toChannel].length);
+  }
+
+  @Override
+  public void applyLookupTable(int channel, int[] lut) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkLookupTable(lut);
+    byte[] plane = this.planes[channel];
+    for (int i = 0; i < plane.length; i++) {
+      plane[i] = (byte) lut[plane[i] & 0xFF];
+    }
+  }
+}
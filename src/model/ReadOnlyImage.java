@@ -0,0 +1,107 @@
+package model;
+
+/**
+ * This class represents a read-only view of an image. Reads go straight to the viewed image
+ * without copying it, and every write throws an UnsupportedOperationException. A writable copy
+ * can still be made with {@link #copy()}.
+ */
+public class ReadOnlyImage implements Image {
+
+  private final Image image;
+
+  /**
+   * Constructor that creates a read-only view of the given image.
+   *
+   * @param image the image to view
+   * @throws IllegalArgumentException if image is null
+   */
+  public ReadOnlyImage(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    this.image = image;
+  }
+
+  /**
+   * Returns the image that this view reads from, which must not be written to.
+   *
+   * @return the viewed image
+   */
+  Image viewed() {
+    return this.image;
+  }
+
+  @Override
+  public Image copy() {
+    return this.image.copy();
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    return this.image.getMemoryUsage();
+  }
+
+  @Override
+  public int getTileWidth() {
+    return this.image.getTileWidth();
+  }
+
+  @Override
+  public int getTileHeight() {
+    return this.image.getTileHeight();
+  }
+
+  @Override
+  public int getWidth() {
+    return this.image.getWidth();
+  }
+
+  @Override
+  public int getHeight() {
+    return this.image.getHeight();
+  }
+
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    return this.image.getPixelAt(row, col);
+  }
+
+  @Override
+  public void setPixelAt(int row, int col, int red, int green, int blue) {
+    throw new UnsupportedOperationException("Image is read-only.");
+  }
+
+  @Override
+  public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                     int scansize) throws IllegalArgumentException {
+    this.image.getRGB(row, col, width, height, dest, offset, scansize);
+  }
+
+  @Override
+  public void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                     int scansize) {
+    throw new UnsupportedOperationException("Image is read-only.");
+  }
+
+  @Override
+  public void getChannel(int channel, int row, int col, int width, int height, byte[] dest,
+                         int offset, int scansize) throws IllegalArgumentException {
+    this.image.getChannel(channel, row, col, width, height, dest, offset, scansize);
+  }
+
+  @Override
+  public void setChannel(int channel, int row, int col, int width, int height, byte[] src,
+                         int offset, int scansize) {
+    throw new UnsupportedOperationException("Image is read-only.");
+  }
+
+  @Override
+  public void copyChannel(int fromChannel, int toChannel) {
+    throw new UnsupportedOperationException("Image is read-only.");
+  }
+
+  @Override
+  public void applyLookupTable(int channel, int[] lut) {
+    throw new UnsupportedOperationException("Image is read-only.");
+  }
+}
@@ -0,0 +1,213 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes all the images of a model to a session snapshot file and restores them from
+ * it. A snapshot starts with a header and an index that lists every image by name with its
+ * dimensions and the position of its pixels. The pixels follow as raw planes of red, green and
+ * blue bytes, row by row. Images that share their pixels in the model are written once.
+ *
+ * <p>Restoring a snapshot only reads its index: the pixels of every image are memory-mapped from
+ * the file and read when they are first used. The file must therefore not be changed while
+ * restored images are in use. Writing a snapshot replaces the file in one step, so it is safe to
+ * write a snapshot over the file it was restored from.
+ */
+public final class SessionSnapshot {
+
+  private static final int MAGIC = 0x494D5353;
+  private static final int VERSION = 1;
+
+  private SessionSnapshot() {
+  }
+
+  /**
+   * Writes all the images of the given model to a snapshot file at the given path.
+   *
+   * @param model the model to write
+   * @param path  path of the snapshot file
+   * @throws IllegalArgumentException if model or path is null, or the file could not be written
+   */
+  public static void write(ImageProcessingModel model, String path)
+          throws IllegalArgumentException {
+    if (model == null || path == null) {
+      throw new IllegalArgumentException("Model or path is null.");
+    }
+    List<String> names = model.getImageNames();
+    List<Image> contents = new ArrayList<>();
+    Map<Image, Integer> contentOf = new IdentityHashMap<>();
+    int[] contentOfName = new int[names.size()];
+    for (int i = 0; i < names.size(); i++) {
+      Image image = model.getReadOnlyImage(names.get(i));
+      Integer content = contentOf.get(storageKey(image));
+      if (content == null) {
+        content = contents.size();
+        contents.add(image);
+        contentOf.put(storageKey(image), content);
+      }
+      contentOfName[i] = content;
+    }
+
+    File target = new File(path).getAbsoluteFile();
+    File temp = null;
+    try {
+      temp = File.createTempFile("snapshot", ".tmp", target.getParentFile());
+      long dataStart = 12 + index(names, contents, contentOfName, new long[contents.size()])
+              .length;
+      long[] offsets = new long[contents.size()];
+      long offset = dataStart;
+      for (int c = 0; c < contents.size(); c++) {
+        offsets[c] = offset;
+        offset += 3L * contents.get(c).getWidth() * contents.get(c).getHeight();
+      }
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+              new FileOutputStream(temp), 1 << 16))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(names.size());
+        out.write(index(names, contents, contentOfName, offsets));
+        for (Image image : contents) {
+          byte[] row = new byte[image.getWidth()];
+          for (int channel = Image.RED; channel <= Image.BLUE; channel++) {
+            for (int i = 0; i < image.getHeight(); i++) {
+              image.getChannel(channel, i, 0, row.length, 1, row, 0, row.length);
+              out.write(row);
+            }
+          }
+        }
+      }
+      try {
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      if (temp != null && !temp.delete()) {
+        temp.deleteOnExit();
+      }
+      throw new IllegalArgumentException("Failed to save snapshot: " + path);
+    }
+  }
+
+  /**
+   * Adds all the images of the snapshot file at the given path to the given model, replacing
+   * images with the same names. Only the index of the file is read; pixels are mapped from the
+   * file and read on demand. If the file is not a valid snapshot, no image is added.
+   *
+   * @param model the model to add the images to
+   * @param path  path of the snapshot file
+   * @throws IllegalArgumentException if model or path is null, or the file could not be found or
+   *                                  is not a valid snapshot
+   */
+  public static void restore(ImageProcessingModel model, String path)
+          throws IllegalArgumentException {
+    if (model == null || path == null) {
+      throw new IllegalArgumentException("Model or path is null.");
+    }
+    if (!new File(path).isFile()) {
+      throw new IllegalArgumentException("File not found: " + path);
+    }
+    Map<String, Image> restored = new LinkedHashMap<>();
+    try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+      FileChannel channel = file.getChannel();
+      DataInputStream in = new DataInputStream(new BufferedInputStream(
+              Channels.newInputStream(channel)));
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IllegalArgumentException("Invalid snapshot file: " + path);
+      }
+      int count = in.readInt();
+      // images without pixels have the same offset as the image written after them
+      Map<List<Long>, Image> byPosition = new HashMap<>();
+      for (int i = 0; i < count; i++) {
+        String name = in.readUTF();
+        int width = in.readInt();
+        int height = in.readInt();
+        long offset = in.readLong();
+        if (width < 0 || height < 0 || offset < 0
+                || offset + 3L * width * height > channel.size()) {
+          throw new IllegalArgumentException("Invalid snapshot file: " + path);
+        }
+        List<Long> position = Arrays.asList(offset, (long) width, (long) height);
+        Image image = byPosition.get(position);
+        if (image == null) {
+          image = CopyOnWriteImage.wrapReadOnly(new OffHeapImage(width, height, channel,
+                  offset));
+          byPosition.put(position, image);
+        }
+        restored.put(name, image);
+      }
+    } catch (EOFException e) {
+      throw new IllegalArgumentException("Invalid snapshot file: " + path);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to restore snapshot: " + path);
+    }
+    for (Map.Entry<String, Image> entry : restored.entrySet()) {
+      model.addImage(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Encodes the index of a snapshot: the name, dimensions and pixel position of every image.
+   *
+   * @param names         names of the images
+   * @param contents      distinct images to write
+   * @param contentOfName index of the distinct image of every name
+   * @param offsets       position of the pixels of every distinct image
+   * @return encoded index
+   * @throws IOException if the index could not be encoded
+   */
+  private static byte[] index(List<String> names, List<Image> contents, int[] contentOfName,
+                              long[] offsets) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    for (int i = 0; i < names.size(); i++) {
+      Image image = contents.get(contentOfName[i]);
+      out.writeUTF(names.get(i));
+      out.writeInt(image.getWidth());
+      out.writeInt(image.getHeight());
+      out.writeLong(offsets[contentOfName[i]]);
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Returns the object holding the pixels of an image returned by a model, so that images sharing
+   * their pixels are recognized. Views are their own key, as they show different pixels than the
+   * image they were created from.
+   *
+   * @param image image returned by a model
+   * @return key of the pixels of the image
+   */
+  private static Image storageKey(Image image) {
+    if (image instanceof ReadOnlyImage) {
+      image = ((ReadOnlyImage) image).viewed();
+    }
+    if (image instanceof CopyOnWriteImage) {
+      image = ((CopyOnWriteImage) image).storage();
+    }
+    return image;
+  }
+}
@@ -0,0 +1,200 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class represents a scratch file that images can be written to and read back from. Every
+ * image is stored as its raw 8-bit RGB values, row by row, so it takes three bytes per pixel.
+ * Space freed by images that were read back is reused for later images, and neighbouring free
+ * ranges are merged so that larger images can reuse them too.
+ */
+class SpillFile {
+
+  /**
+   * The location and dimensions of an image in the scratch file.
+   */
+  static final class Slot {
+    private final long offset;
+    private final int width;
+    private final int height;
+
+    private Slot(long offset, int width, int height) {
+      this.offset = offset;
+      this.width = width;
+      this.height = height;
+    }
+
+    int getWidth() {
+      return this.width;
+    }
+
+    int getHeight() {
+      return this.height;
+    }
+
+    private long length() {
+      return 3L * this.width * this.height;
+    }
+  }
+
+  // length of every free range by its offset, with no two ranges next to each other
+  private final TreeMap<Long, Long> freeSpace;
+  private long end;
+  private FileChannel channel;
+
+  /**
+   * Constructor that creates an empty scratch file, which is only created on disk when the first
+   * image is written.
+   */
+  SpillFile() {
+    this.freeSpace = new TreeMap<>();
+    this.end = 0;
+    this.channel = null;
+  }
+
+  /**
+   * Writes the given image to this file, one row at a time.
+   *
+   * @param image the image to write
+   * @return location of the image in this file
+   * @throws IllegalStateException if the scratch file could not be created or written
+   */
+  Slot write(Image image) throws IllegalStateException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    Slot slot = new Slot(this.allocate(3L * width * height), width, height);
+    int[] row = new int[width];
+    ByteBuffer buffer = ByteBuffer.allocate(3 * width);
+    try {
+      long position = slot.offset;
+      for (int i = 0; i < height; i++) {
+        image.getRow(i, row);
+        buffer.clear();
+        for (int rgb : row) {
+          buffer.put((byte) (rgb >> 16)).put((byte) (rgb >> 8)).put((byte) rgb);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          position += this.channel().write(buffer, position);
+        }
+      }
+    } catch (IOException e) {
+      this.free(slot);
+      throw new IllegalStateException("Unable to write image to scratch file.");
+    }
+    return slot;
+  }
+
+  /**
+   * Reads an image back from this file, one row at a time, and frees its space.
+   *
+   * @param slot    location of the image in this file
+   * @param backend storage layout to read the image into
+   * @return the image
+   * @throws IllegalStateException if the scratch file could not be read
+   */
+  Image read(Slot slot, ImageBackend backend) throws IllegalStateException {
+    Image image = backend.create(slot.width, slot.height);
+    int[] row = new int[slot.width];
+    ByteBuffer buffer = ByteBuffer.allocate(3 * slot.width);
+    try {
+      long position = slot.offset;
+      for (int i = 0; i < slot.height; i++) {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          int read = this.channel().read(buffer, position);
+          if (read < 0) {
+            throw new IOException("Unexpected end of scratch file.");
+          }
+          position += read;
+        }
+        buffer.flip();
+        for (int j = 0; j < slot.width; j++) {
+          row[j] = ((buffer.get() & 0xFF) << 16) | ((buffer.get() & 0xFF) << 8)
+                  | (buffer.get() & 0xFF);
+        }
+        image.setRow(i, row);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read image from scratch file.");
+    }
+    this.free(slot);
+    return image;
+  }
+
+  /**
+   * Marks the space of an image in this file as free, merging it with the free ranges right
+   * before and after it. Free space at the end of the file is given back to the end.
+   *
+   * @param slot location of the image in this file
+   */
+  void free(Slot slot) {
+    long offset = slot.offset;
+    long length = slot.length();
+    if (length == 0) {
+      return;
+    }
+    Map.Entry<Long, Long> before = this.freeSpace.floorEntry(offset);
+    if (before != null && before.getKey() + before.getValue() == offset) {
+      this.freeSpace.remove(before.getKey());
+      offset = before.getKey();
+      length += before.getValue();
+    }
+    Long after = this.freeSpace.remove(offset + length);
+    if (after != null) {
+      length += after;
+    }
+    if (offset + length == this.end) {
+      this.end = offset;
+    } else {
+      this.freeSpace.put(offset, length);
+    }
+  }
+
+  /**
+   * Finds space for the given number of bytes, reusing the first free range that is large enough.
+   *
+   * @param length number of bytes
+   * @return offset of the space in this file
+   */
+  private long allocate(long length) {
+    Iterator<Map.Entry<Long, Long>> ranges = this.freeSpace.entrySet().iterator();
+    while (ranges.hasNext()) {
+      Map.Entry<Long, Long> range = ranges.next();
+      long offset = range.getKey();
+      long free = range.getValue();
+      if (free >= length) {
+        ranges.remove();
+        if (free > length) {
+          this.freeSpace.put(offset + length, free - length);
+        }
+        return offset;
+      }
+    }
+    long offset = this.end;
+    this.end += length;
+    return offset;
+  }
+
+  /**
+   * Returns the channel of the scratch file, creating the file on first use.
+   */
+  private FileChannel channel() throws IOException {
+    if (this.channel == null) {
+      File file = File.createTempFile("images", ".spill");
+      this.channel = new RandomAccessFile(file, "rw").getChannel();
+      // the open channel stays usable after the file is removed
+      if (!file.delete()) {
+        file.deleteOnExit();
+      }
+    }
+    return this.channel;
+  }
+}
@@ -0,0 +1,287 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class represents a cache of square tiles of packed RGB pixels with a fixed memory budget.
+ * When the budget is used up, the least recently used tile is written to a scratch file and
+ * reloaded on demand. A tile that has never been written to is black and is created on demand
+ * without touching the scratch file.
+ *
+ * <p>A tile array returned by this cache stays valid until the next call to the cache, so callers
+ * must finish reading or writing a tile before asking for another one. Callers that share the
+ * cache between threads must hold the lock of the cache while they use a tile.
+ */
+public class TileCache {
+
+  /**
+   * Default width and height of tiles in pixels.
+   */
+  public static final int DEFAULT_TILE_SIZE = 256;
+
+  /**
+   * Default memory budget of the shared cache in bytes.
+   */
+  public static final long DEFAULT_BUDGET = 256L * 1024 * 1024;
+
+  private static final TileCache DEFAULT = new TileCache(DEFAULT_TILE_SIZE, DEFAULT_BUDGET);
+
+  private final int tileSize;
+  private final int tileBytes;
+  private final int maxResidentTiles;
+  private final LinkedHashMap<Long, int[]> resident;
+  private final Set<Long> dirty;
+  private final Map<Long, Long> spilled;
+  private final Deque<Long> freeSlots;
+  private long nextTile;
+  private long nextSlot;
+  private FileChannel scratch;
+  private ByteBuffer ioBuffer;
+  private long evictions;
+  private long reloads;
+
+  /**
+   * Constructor that creates an empty cache of tiles with the given size that keeps at most the
+   * given number of bytes of tiles in memory.
+   *
+   * @param tileSize width and height of tiles in pixels
+   * @param budget   memory budget in bytes
+   * @throws IllegalArgumentException if tile size is not positive, or budget is smaller than one
+   *                                  tile
+   */
+  public TileCache(int tileSize, long budget) throws IllegalArgumentException {
+    if (tileSize <= 0 || tileSize > 16384) {
+      throw new IllegalArgumentException("Tile size must be between 1 and 16384.");
+    }
+    this.tileSize = tileSize;
+    this.tileBytes = 4 * tileSize * tileSize;
+    if (budget < this.tileBytes) {
+      throw new IllegalArgumentException("Budget must hold at least one tile.");
+    }
+    this.maxResidentTiles = (int) Math.min(Integer.MAX_VALUE, budget / this.tileBytes);
+    this.resident = new LinkedHashMap<>(16, 0.75f, true);
+    this.dirty = new HashSet<>();
+    this.spilled = new HashMap<>();
+    this.freeSlots = new ArrayDeque<>();
+    this.nextTile = 0;
+    this.nextSlot = 0;
+    this.scratch = null;
+    this.ioBuffer = null;
+    this.evictions = 0;
+    this.reloads = 0;
+  }
+
+  /**
+   * Returns the cache that tiled images use unless they are given one.
+   *
+   * @return the shared default cache
+   */
+  public static TileCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Returns width and height of the tiles in this cache.
+   *
+   * @return tile size in pixels
+   */
+  public int getTileSize() {
+    return this.tileSize;
+  }
+
+  /**
+   * Returns the number of tiles currently held in memory.
+   *
+   * @return number of resident tiles
+   */
+  public synchronized int getResidentTileCount() {
+    return this.resident.size();
+  }
+
+  /**
+   * Returns the number of bytes taken up by those of the given tiles that are in memory.
+   *
+   * @param first id of the first tile
+   * @param count number of consecutive tiles
+   * @return bytes of resident tiles, including array headers
+   */
+  synchronized long getResidentBytes(long first, int count) {
+    long tiles = 0;
+    for (long id = first; id < first + count; id++) {
+      if (this.resident.containsKey(id)) {
+        tiles++;
+      }
+    }
+    return tiles * (16 + this.tileBytes);
+  }
+
+  /**
+   * Returns the number of tiles that were written to the scratch file to stay within the budget.
+   *
+   * @return number of evictions so far
+   */
+  public synchronized long getEvictionCount() {
+    return this.evictions;
+  }
+
+  /**
+   * Returns the number of tiles that were read back from the scratch file.
+   *
+   * @return number of reloads so far
+   */
+  public synchronized long getReloadCount() {
+    return this.reloads;
+  }
+
+  /**
+   * Reserves ids for the given number of black tiles.
+   *
+   * @param count number of tiles
+   * @return id of the first tile; the others follow consecutively
+   */
+  synchronized long allocate(int count) {
+    long first = this.nextTile;
+    this.nextTile += count;
+    return first;
+  }
+
+  /**
+   * Returns the pixels of a tile as a row-major array of packed RGB ints, loading or creating the
+   * tile if it is not in memory.
+   *
+   * @param id    id of the tile
+   * @param write whether the caller is going to modify the tile
+   * @return pixels of the tile
+   * @throws IllegalStateException if the scratch file could not be read or written
+   */
+  synchronized int[] tile(long id, boolean write) throws IllegalStateException {
+    int[] pixels = this.resident.get(id);
+    if (pixels == null) {
+      if (this.resident.size() >= this.maxResidentTiles) {
+        pixels = this.evictEldest();
+      } else {
+        pixels = new int[this.tileSize * this.tileSize];
+      }
+      Long slot = this.spilled.get(id);
+      if (slot == null) {
+        Arrays.fill(pixels, 0);
+      } else {
+        this.read(slot, pixels);
+        this.reloads++;
+      }
+      this.resident.put(id, pixels);
+    }
+    if (write) {
+      this.dirty.add(id);
+    }
+    return pixels;
+  }
+
+  /**
+   * Drops the given tiles from memory and from the scratch file.
+   *
+   * @param first id of the first tile
+   * @param count number of consecutive tiles
+   */
+  synchronized void free(long first, int count) {
+    for (long id = first; id < first + count; id++) {
+      this.resident.remove(id);
+      this.dirty.remove(id);
+      Long slot = this.spilled.remove(id);
+      if (slot != null) {
+        this.freeSlots.push(slot);
+      }
+    }
+  }
+
+  /**
+   * Removes the least recently used tile from memory, writing it to the scratch file if it has
+   * changed since it was last written.
+   *
+   * @return the pixel array of the removed tile, for reuse
+   */
+  private int[] evictEldest() {
+    Iterator<Map.Entry<Long, int[]>> eldest = this.resident.entrySet().iterator();
+    Map.Entry<Long, int[]> entry = eldest.next();
+    eldest.remove();
+    long id = entry.getKey();
+    if (this.dirty.remove(id)) {
+      Long slot = this.spilled.get(id);
+      if (slot == null) {
+        slot = this.freeSlots.isEmpty() ? this.nextSlot++ : this.freeSlots.pop();
+        this.spilled.put(id, slot);
+      }
+      this.write(slot, entry.getValue());
+    }
+    this.evictions++;
+    return entry.getValue();
+  }
+
+  /**
+   * Writes a tile into the given slot of the scratch file, creating the file if needed.
+   */
+  private void write(long slot, int[] pixels) throws IllegalStateException {
+    try {
+      ByteBuffer buffer = this.buffer();
+      buffer.asIntBuffer().put(pixels);
+      long position = slot * this.tileBytes;
+      while (buffer.hasRemaining()) {
+        position += this.scratch.write(buffer, position);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to write tile to scratch file.");
+    }
+  }
+
+  /**
+   * Reads a tile from the given slot of the scratch file.
+   */
+  private void read(long slot, int[] pixels) throws IllegalStateException {
+    try {
+      ByteBuffer buffer = this.buffer();
+      long position = slot * this.tileBytes;
+      while (buffer.hasRemaining()) {
+        int read = this.scratch.read(buffer, position);
+        if (read < 0) {
+          throw new IOException("Unexpected end of scratch file.");
+        }
+        position += read;
+      }
+      buffer.flip();
+      buffer.asIntBuffer().get(pixels);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read tile from scratch file.");
+    }
+  }
+
+  /**
+   * Returns the cleared buffer used for reading and writing tiles, opening the scratch file on
+   * first use.
+   */
+  private ByteBuffer buffer() throws IOException {
+    if (this.scratch == null) {
+      File file = File.createTempFile("tiles", ".cache");
+      this.scratch = new RandomAccessFile(file, "rw").getChannel();
+      // the open channel stays usable after the file is removed
+      if (!file.delete()) {
+        file.deleteOnExit();
+      }
+      this.ioBuffer = ByteBuffer.allocateDirect(this.tileBytes);
+    }
+    this.ioBuffer.clear();
+    return this.ioBuffer;
+  }
+}
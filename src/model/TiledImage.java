@@ -0,0 +1,356 @@
+package model;
+
+import java.lang.ref.Cleaner;
+
+/**
+ * This class represents an image that is split into square tiles of packed RGB pixels, which are
+ * kept in a TileCache. Only the tiles in use have to be in memory; the cache writes the others to
+ * a scratch file and reloads them on demand. Neighbouring pixels in both directions are close
+ * together in memory, and code that works through the image one tile at a time (see
+ * {@link #getTileWidth()} and {@link #getTileHeight()}) keeps a small working set. Every tile is
+ * used while holding the lock of its cache, so images that share a cache can be read from several
+ * threads at once.
+ */
+public class TiledImage implements Image {
+
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final int width;
+  private final int height;
+  private final TileCache cache;
+  private final int tileSize;
+  private final int tileCols;
+  private final long firstTile;
+  private final int tileCount;
+
+  /**
+   * Constructor that creates a black image with the given dimensions in the default tile cache.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @throws IllegalArgumentException if width or height is negative
+   */
+  public TiledImage(int width, int height) throws IllegalArgumentException {
+    this(width, height, TileCache.getDefault());
+  }
+
+  /**
+   * Constructor that creates a black image with the given dimensions in the given tile cache.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @param cache  cache to keep the tiles of the image in
+   * @throws IllegalArgumentException if width or height is negative, or cache is null
+   */
+  public TiledImage(int width, int height, TileCache cache) throws IllegalArgumentException {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height cannot be negative.");
+    }
+    if (cache == null) {
+      throw new IllegalArgumentException("Tile cache is null.");
+    }
+    this.width = width;
+    this.height = height;
+    this.cache = cache;
+    this.tileSize = cache.getTileSize();
+    this.tileCols = (width + this.tileSize - 1) / this.tileSize;
+    this.tileCount = this.tileCols * ((height + this.tileSize - 1) / this.tileSize);
+    this.firstTile = cache.allocate(this.tileCount);
+    CLEANER.register(this, new Release(cache, this.firstTile, this.tileCount));
+  }
+
+  /**
+   * Constructor that creates a copy of given Image object in the default tile cache.
+   *
+   * @param image Image object to copy
+   * @throws IllegalArgumentException if given Image object is null
+   */
+  public TiledImage(Image image) throws IllegalArgumentException {
+    this(image, TileCache.getDefault());
+  }
+
+  /**
+   * Constructor that creates a copy of given Image object in the given tile cache. Pixels are
+   * copied one tile at a time.
+   *
+   * @param image Image object to copy
+   * @param cache cache to keep the tiles of the image in
+   * @throws IllegalArgumentException if given Image object or cache is null
+   */
+  public TiledImage(Image image, TileCache cache) throws IllegalArgumentException {
+    this(checkNotNull(image).getWidth(), image.getHeight(), cache);
+    int[] block = new int[this.tileSize * this.tileSize];
+    for (int row = 0; row < this.height; row += this.tileSize) {
+      for (int col = 0; col < this.width; col += this.tileSize) {
+        int w = Math.min(this.tileSize, this.width - col);
+        int h = Math.min(this.tileSize, this.height - row);
+        image.getRGB(row, col, w, h, block, 0, this.tileSize);
+        this.setRGB(row, col, w, h, block, 0, this.tileSize);
+      }
+    }
+  }
+
+  @Override
+  public Image copy() {
+    return new TiledImage(this, this.cache);
+  }
+
+  /**
+   * Returns the number of bytes taken up by the tiles of this image that are currently in memory.
+   * Tiles that have been written to the scratch file are not counted.
+   *
+   * @return bytes of resident tiles of this image
+   */
+  @Override
+  public long getMemoryUsage() {
+    return this.cache.getResidentBytes(this.firstTile, this.tileCount);
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getTileWidth() {
+    return this.tileSize;
+  }
+
+  @Override
+  public int getTileHeight() {
+    return this.tileSize;
+  }
+
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Row or col is out of bounds.");
+    }
+    int rgb;
+    synchronized (this.cache) {
+      rgb = this.tile(row, col, false)[this.indexInTile(row, col)];
+    }
+    return new Pixel((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+  }
+
+  @Override
+  public void setPixelAt(int row, int col, int red, int green, int blue)
+          throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Row or col is out of bounds.");
+    }
+    if (red < 0 || red > 255 || green < 0 || green > 255 || blue < 0 || blue > 255) {
+      throw new IllegalArgumentException("RGB values must be in the range 0-255");
+    }
+    synchronized (this.cache) {
+      this.tile(row, col, true)[this.indexInTile(row, col)] = PackedImage.pack(red, green, blue);
+    }
+  }
+
+  @Override
+  public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    for (int r = row; r < row + height; r = this.nextTileStart(r)) {
+      int rows = Math.min(row + height, this.nextTileStart(r)) - r;
+      for (int c = col; c < col + width; c = this.nextTileStart(c)) {
+        int cols = Math.min(col + width, this.nextTileStart(c)) - c;
+        synchronized (this.cache) {
+          int[] tile = this.tile(r, c, false);
+          for (int i = 0; i < rows; i++) {
+            System.arraycopy(tile, this.indexInTile(r + i, c), dest,
+                    offset + (r + i - row) * scansize + (c - col), cols);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                     int scansize) throws IllegalArgumentException {
+    Image.checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset,
+            scansize);
+    for (int r = row; r < row + height; r = this.nextTileStart(r)) {
+      int rows = Math.min(row + height, this.nextTileStart(r)) - r;
+      for (int c = col; c < col + width; c = this.nextTileStart(c)) {
+        int cols = Math.min(col + width, this.nextTileStart(c)) - c;
+        synchronized (this.cache) {
+          int[] tile = this.tile(r, c, true);
+          for (int i = 0; i < rows; i++) {
+            int from = offset + (r + i - row) * scansize + (c - col);
+            int to = this.indexInTile(r + i, c);
+            for (int j = 0; j < cols; j++) {
+              tile[to + j] = src[from + j] & 0xFFFFFF;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void getChannel(int channel, int row, int col, int width, int height, byte[] dest,
+                         int offset, int scansize) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    int shift = 16 - 8 * channel;
+    for (int r = row; r < row + height; r = this.nextTileStart(r)) {
+      int rows = Math.min(row + height, this.nextTileStart(r)) - r;
+      for (int c = col; c < col + width; c = this.nextTileStart(c)) {
+        int cols = Math.min(col + width, this.nextTileStart(c)) - c;
+        synchronized (this.cache) {
+          int[] tile = this.tile(r, c, false);
+          for (int i = 0; i < rows; i++) {
+            int from = this.indexInTile(r + i, c);
+            int to = offset + (r + i - row) * scansize + (c - col);
+            for (int j = 0; j < cols; j++) {
+              dest[to + j] = (byte) (tile[from + j] >> shift);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void setChannel(int channel, int row, int col, int width, int height, byte[] src,
+                         int offset, int scansize) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkRegion(this, row, col, width, height, src == null ? -1 : src.length, offset,
+            scansize);
+    int shift = 16 - 8 * channel;
+    int mask = ~(0xFF << shift);
+    for (int r = row; r < row + height; r = this.nextTileStart(r)) {
+      int rows = Math.min(row + height, this.nextTileStart(r)) - r;
+      for (int c = col; c < col + width; c = this.nextTileStart(c)) {
+        int cols = Math.min(col + width, this.nextTileStart(c)) - c;
+        synchronized (this.cache) {
+          int[] tile = this.tile(r, c, true);
+          for (int i = 0; i < rows; i++) {
+            int from = offset + (r + i - row) * scansize + (c - col);
+            int to = this.indexInTile(r + i, c);
+            for (int j = 0; j < cols; j++) {
+              tile[to + j] = (tile[to + j] & mask) | ((src[from + j] & 0xFF) << shift);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void copyChannel(int fromChannel, int toChannel) throws IllegalArgumentException {
+    Image.checkChannel(fromChannel);
+    Image.checkChannel(toChannel);
+    int fromShift = 16 - 8 * fromChannel;
+    int toShift = 16 - 8 * toChannel;
+    int mask = ~(0xFF << toShift);
+    for (int r = 0; r < this.height; r += this.tileSize) {
+      for (int c = 0; c < this.width; c += this.tileSize) {
+        synchronized (this.cache) {
+          int[] tile = this.tile(r, c, true);
+          for (int i = 0; i < tile.length; i++) {
+            tile[i] = (tile[i] & mask) | (((tile[i] >> fromShift) & 0xFF) << toShift);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void applyLookupTable(int channel, int[] lut) throws IllegalArgumentException {
+    Image.checkChannel(channel);
+    Image.checkLookupTable(lut);
+    int shift = 16 - 8 * channel;
+    int mask = ~(0xFF << shift);
+    for (int r = 0; r < this.height; r += this.tileSize) {
+      for (int c = 0; c < this.width; c += this.tileSize) {
+        synchronized (this.cache) {
+          int[] tile = this.tile(r, c, true);
+          for (int i = 0; i < tile.length; i++) {
+            tile[i] = (tile[i] & mask) | (lut[(tile[i] >> shift) & 0xFF] << shift);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the tile that contains the given pixel.
+   *
+   * @param row   the row of the pixel
+   * @param col   the column of the pixel
+   * @param write whether the caller is going to modify the tile
+   * @return pixels of the tile
+   */
+  private int[] tile(int row, int col, boolean write) {
+    long id = this.firstTile + (long) (row / this.tileSize) * this.tileCols + col / this.tileSize;
+    return this.cache.tile(id, write);
+  }
+
+  /**
+   * Returns the index of the given pixel in the array of its tile.
+   *
+   * @param row the row of the pixel
+   * @param col the column of the pixel
+   * @return index of the pixel in its tile
+   */
+  private int indexInTile(int row, int col) {
+    return (row % this.tileSize) * this.tileSize + col % this.tileSize;
+  }
+
+  /**
+   * Returns the first row (or column) of the tile after the one containing the given row (or
+   * column).
+   *
+   * @param index the row or column
+   * @return start of the next tile
+   */
+  private int nextTileStart(int index) {
+    return (index / this.tileSize + 1) * this.tileSize;
+  }
+
+  /**
+   * Checks that the given image is not null, so that the copy constructor can fail before
+   * allocating tiles.
+   *
+   * @param image the image to check
+   * @return the given image
+   * @throws IllegalArgumentException if the image is null
+   */
+  private static Image checkNotNull(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+    return image;
+  }
+
+  /**
+   * Frees the tiles of an image once the image is no longer reachable. It must not refer to the
+   * image itself.
+   */
+  private static final class Release implements Runnable {
+    private final TileCache cache;
+    private final long firstTile;
+    private final int tileCount;
+
+    private Release(TileCache cache, long firstTile, int tileCount) {
+      this.cache = cache;
+      this.firstTile = firstTile;
+      this.tileCount = tileCount;
+    }
+
+    @Override
+    public void run() {
+      this.cache.free(this.firstTile, this.tileCount);
+    }
+  }
+}
@@ -0,0 +1,374 @@
+package model;
+
+/**
+ * This class represents a flipped, cropped or rotated view of another image. The view does not
+ * copy any pixels: it maps every coordinate onto a snapshot of the image it was created from, which
+ * is taken with {@link Image#copy()} and is therefore free for copy-on-write images. Only when the
+ * view is written to are its pixels copied into real storage.
+ *
+ * <p>The view maps its pixel (row, col) to the source pixel
+ * (row0 + rowStepRow * row + rowStepCol * col, col0 + colStepRow * row + colStepCol * col),
+ * which covers every flip, crop and right-angle rotation. A view of a view is collapsed into a
+ * single view of the original image, so chains of views never get deeper than one.
+ */
+public class TransformedImage implements Image {
+
+  private final Image source;
+  private final int width;
+  private final int height;
+  private final int row0;
+  private final int rowStepRow;
+  private final int rowStepCol;
+  private final int col0;
+  private final int colStepRow;
+  private final int colStepCol;
+  private Image materialized;
+
+  /**
+   * Constructor that creates a view with the given mapping onto the given source image, which must
+   * not be modified afterwards.
+   */
+  private TransformedImage(Image source, int width, int height, int row0, int rowStepRow,
+                           int rowStepCol, int col0, int colStepRow, int colStepCol) {
+    this.source = source;
+    this.width = width;
+    this.height = height;
+    this.row0 = row0;
+    this.rowStepRow = rowStepRow;
+    this.rowStepCol = rowStepCol;
+    this.col0 = col0;
+    this.colStepRow = colStepRow;
+    this.colStepCol = colStepCol;
+    this.materialized = null;
+  }
+
+  /**
+   * Creates a view of given image flipped horizontally.
+   *
+   * @param image the image to view
+   * @return horizontally flipped view of the image
+   * @throws IllegalArgumentException if image is null
+   */
+  public static Image flipHorizontal(Image image) throws IllegalArgumentException {
+    checkNotNull(image);
+    return derive(image, image.getWidth(), image.getHeight(),
+            0, 1, 0, image.getWidth() - 1, 0, -1);
+  }
+
+  /**
+   * Creates a view of given image flipped vertically.
+   *
+   * @param image the image to view
+   * @return vertically flipped view of the image
+   * @throws IllegalArgumentException if image is null
+   */
+  public static Image flipVertical(Image image) throws IllegalArgumentException {
+    checkNotNull(image);
+    return derive(image, image.getWidth(), image.getHeight(),
+            image.getHeight() - 1, -1, 0, 0, 0, 1);
+  }
+
+  /**
+   * Creates a view of given image rotated by 90 degrees clockwise.
+   *
+   * @param image the image to view
+   * @return clockwise rotated view of the image
+   * @throws IllegalArgumentException if image is null
+   */
+  public static Image rotateClockwise(Image image) throws IllegalArgumentException {
+    checkNotNull(image);
+    return derive(image, image.getHeight(), image.getWidth(),
+            image.getHeight() - 1, 0, -1, 0, 1, 0);
+  }
+
+  /**
+   * Creates a view of given image rotated by 90 degrees counterclockwise.
+   *
+   * @param image the image to view
+   * @return counterclockwise rotated view of the image
+   * @throws IllegalArgumentException if image is null
+   */
+  public static Image rotateCounterClockwise(Image image) throws IllegalArgumentException {
+    checkNotNull(image);
+    return derive(image, image.getHeight(), image.getWidth(),
+            0, 0, 1, image.getWidth() - 1, -1, 0);
+  }
+
+  /**
+   * Creates a view of a rectangular region of given image.
+   *
+   * @param image  the image to view
+   * @param row    the first row of the region
+   * @param col    the first column of the region
+   * @param width  width of the region in pixels
+   * @param height height of the region in pixels
+   * @return view of the region of the image
+   * @throws IllegalArgumentException if image is null or the region is out of bounds
+   */
+  public static Image crop(Image image, int row, int col, int width, int height)
+          throws IllegalArgumentException {
+    checkNotNull(image);
+    if (width < 0 || height < 0 || row < 0 || col < 0 || row + height > image.getHeight()
+            || col + width > image.getWidth()) {
+      throw new IllegalArgumentException("Region is out of bounds.");
+    }
+    return derive(image, width, height, row, 1, 0, col, 0, 1);
+  }
+
+  /**
+   * Creates a view of given image that maps its pixel (row, col) to the pixel
+   * (row0 + rowStepRow * row + rowStepCol * col, col0 + colStepRow * row + colStepCol * col) of
+   * the image. If the image is itself an unwritten view, the two mappings are combined into one
+   * view of the underlying image.
+   */
+  private static Image derive(Image image, int width, int height, int row0, int rowStepRow,
+                              int rowStepCol, int col0, int colStepRow, int colStepCol) {
+    if (image instanceof ReadOnlyImage) {
+      image = ((ReadOnlyImage) image).viewed();
+    }
+    TransformedImage inner = null;
+    if (image instanceof TransformedImage) {
+      inner = (TransformedImage) image;
+    } else if (image instanceof CopyOnWriteImage
+            && ((CopyOnWriteImage) image).storage() instanceof TransformedImage) {
+      inner = (TransformedImage) ((CopyOnWriteImage) image).storage();
+    }
+    if (inner == null || inner.materialized != null) {
+      return new TransformedImage(image.copy(), width, height, row0, rowStepRow, rowStepCol,
+              col0, colStepRow, colStepCol);
+    }
+    return new TransformedImage(inner.source.copy(), width, height,
+            inner.row0 + inner.rowStepRow * row0 + inner.rowStepCol * col0,
+            inner.rowStepRow * rowStepRow + inner.rowStepCol * colStepRow,
+            inner.rowStepRow * rowStepCol + inner.rowStepCol * colStepCol,
+            inner.col0 + inner.colStepRow * row0 + inner.colStepCol * col0,
+            inner.colStepRow * rowStepRow + inner.colStepCol * colStepRow,
+            inner.colStepRow * rowStepCol + inner.colStepCol * colStepCol);
+  }
+
+  /**
+   * Checks whether this view has been copied into real storage because it was written to.
+   *
+   * @return true if the pixels of this view have been copied, false otherwise
+   */
+  public boolean isMaterialized() {
+    return this.materialized != null;
+  }
+
+  /**
+   * Returns the image that currently holds the pixels of this view, which must only be read.
+   *
+   * @return the copied pixels if this view has been written to, its source image otherwise
+   */
+  Image storage() {
+    return this.materialized != null ? this.materialized : this.source;
+  }
+
+  @Override
+  public Image copy() {
+    if (this.materialized != null) {
+      return this.materialized.copy();
+    }
+    return new TransformedImage(this.source.copy(), this.width, this.height, this.row0,
+            this.rowStepRow, this.rowStepCol, this.col0, this.colStepRow, this.colStepCol);
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    return this.storage().getMemoryUsage();
+  }
+
+  @Override
+  public int getTileWidth() {
+    if (this.materialized != null) {
+      return this.materialized.getTileWidth();
+    }
+    // rotated views read the source column by column, so only flips and crops keep its blocks
+    return this.rowStepCol == 0 ? Math.min(this.width, this.source.getTileWidth()) : this.width;
+  }
+
+  @Override
+  public int getTileHeight() {
+    if (this.materialized != null) {
+      return this.materialized.getTileHeight();
+    }
+    return this.rowStepCol == 0 ? Math.min(this.height, this.source.getTileHeight()) : 1;
+  }
+
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (this.materialized != null) {
+      return this.materialized.getPixelAt(row, col);
+    }
+    if (row < 0 || row >= this.height || col < 0 || col >= this.width) {
+      throw new IllegalArgumentException("Row or col is out of bounds.");
+    }
+    return this.source.getPixelAt(this.row0 + this.rowStepRow * row + this.rowStepCol * col,
+            this.col0 + this.colStepRow * row + this.colStepCol * col);
+  }
+
+  @Override
+  public void setPixelAt(int row, int col, int red, int green, int blue)
+          throws IllegalArgumentException {
+    this.materialize().setPixelAt(row, col, red, green, blue);
+  }
+
+  @Override
+  public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                     int scansize) throws IllegalArgumentException {
+    if (this.materialized != null) {
+      this.materialized.getRGB(row, col, width, height, dest, offset, scansize);
+      return;
+    }
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    if (width == 0) {
+      return;
+    }
+    for (int i = 0; i < height; i++) {
+      int to = offset + i * scansize;
+      if (this.rowStepCol == 0) {
+        // a row of this view is part of a row of the source
+        int srcRow = this.row0 + this.rowStepRow * (row + i);
+        int srcCol = this.col0 + this.colStepRow * (row + i) + this.colStepCol
+                * (this.colStepCol > 0 ? col : col + width - 1);
+        this.source.getRGB(srcRow, srcCol, width, 1, dest, to, width);
+        if (this.colStepCol < 0) {
+          reverse(dest, to, width);
+        }
+      } else {
+        // a row of this view is part of a column of the source
+        int srcCol = this.col0 + this.colStepRow * (row + i);
+        int srcRow = this.row0 + this.rowStepRow * (row + i) + this.rowStepCol
+                * (this.rowStepCol > 0 ? col : col + width - 1);
+        this.source.getRGB(srcRow, srcCol, 1, width, dest, to, 1);
+        if (this.rowStepCol < 0) {
+          reverse(dest, to, width);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void setRGB(int row, int col, int width, int height, int[] src, int offset,
+                     int scansize) throws IllegalArgumentException {
+    this.materialize().setRGB(row, col, width, height, src, offset, scansize);
+  }
+
+  @Override
+  public void getChannel(int channel, int row, int col, int width, int height, byte[] dest,
+                         int offset, int scansize) throws IllegalArgumentException {
+    if (this.materialized != null) {
+      this.materialized.getChannel(channel, row, col, width, height, dest, offset, scansize);
+      return;
+    }
+    Image.checkChannel(channel);
+    Image.checkRegion(this, row, col, width, height, dest == null ? -1 : dest.length, offset,
+            scansize);
+    if (width == 0) {
+      return;
+    }
+    for (int i = 0; i < height; i++) {
+      int to = offset + i * scansize;
+      if (this.rowStepCol == 0) {
+        int srcRow = this.row0 + this.rowStepRow * (row + i);
+        int srcCol = this.col0 + this.colStepRow * (row + i) + this.colStepCol
+                * (this.colStepCol > 0 ? col : col + width - 1);
+        this.source.getChannel(channel, srcRow, srcCol, width, 1, dest, to, width);
+        if (this.colStepCol < 0) {
+          reverse(dest, to, width);
+        }
+      } else {
+        int srcCol = this.col0 + this.colStepRow * (row + i);
+        int srcRow = this.row0 + this.rowStepRow * (row + i) + this.rowStepCol
+                * (this.rowStepCol > 0 ? col : col + width - 1);
+        this.source.getChannel(channel, srcRow, srcCol, 1, width, dest, to, 1);
+        if (this.rowStepCol < 0) {
+          reverse(dest, to, width);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void setChannel(int channel, int row, int col, int width, int height, byte[] src,
+                         int offset, int scansize) throws IllegalArgumentException {
+    this.materialize().setChannel(channel, row, col, width, height, src, offset, scansize);
+  }
+
+  @Override
+  public void copyChannel(int fromChannel, int toChannel) throws IllegalArgumentException {
+    this.materialize().copyChannel(fromChannel, toChannel);
+  }
+
+  @Override
+  public void applyLookupTable(int channel, int[] lut) throws IllegalArgumentException {
+    this.materialize().applyLookupTable(channel, lut);
+  }
+
+  /**
+   * Returns real storage with the pixels of this view, copying them on the first call. The storage
+   * uses the same layout as the source image.
+   *
+   * @return storage of this view that can be written to
+   */
+  private Image materialize() {
+    if (this.materialized == null) {
+      ImageBackend backend = ImageBackend.of(this.source);
+      this.materialized = (backend == null ? ImageBackend.PACKED : backend).copyOf(this);
+    }
+    return this.materialized;
+  }
+
+  /**
+   * Reverses a range of an array in place.
+   *
+   * @param values the array
+   * @param from   index of the first value in the range
+   * @param length number of values in the range
+   */
+  private static void reverse(int[] values, int from, int length) {
+    for (int j = from, k = from + length - 1; j < k; j++, k--) {
+      int value = values[j];
+      values[j] = values[k];
+      values[k] = value;
+    }
+  }
+
+  /**
+   * Reverses a range of an array in place.
+   *
+   * @param values the array
+   * @param from   index of the first value in the range
+   * @param length number of values in the range
+   */
+  private static void reverse(byte[] values, int from, int length) {
+    for (int j = from, k = from + length - 1; j < k; j++, k--) {
+      byte value = values[j];
+      values[j] = values[k];
+      values[k] = value;
+    }
+  }
+
+  /**
+   * Checks that the given image is not null.
+   *
+   * @param image the image to check
+   * @throws IllegalArgumentException if the image is null
+   */
+  private static void checkNotNull(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null.");
+    }
+  }
+}
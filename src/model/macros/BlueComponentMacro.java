@@ -33,12 +33,8 @@ public class BlueComponentMacro implements ImageProcessingMacro {
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
     Image destImage = model.getImage(this.srcImageName);
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        int blue = destImage.getPixelAt(i, j).getBlue();
-        destImage.setPixelAt(i, j, blue, blue, blue);
-      }
-    }
+    destImage.copyChannel(Image.BLUE, Image.RED);
+    destImage.copyChannel(Image.BLUE, Image.GREEN);
     model.addImage(this.destImageName, destImage);
   }
 }
@@ -2,7 +2,6 @@ package model.macros;
 
 import model.Image;
 import model.ImageProcessingModel;
-import model.Pixel;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -40,14 +39,13 @@ public class BrightenMacro implements ImageProcessingMacro {
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
     Image destImage = model.getImage(this.srcImageName);
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        Pixel p = destImage.getPixelAt(i, j);
-        destImage.setPixelAt(i, j, max(0, min(255, p.getRed() + this.increment)),
-                max(0, min(255, p.getGreen() + this.increment)),
-                max(0, min(255, p.getBlue() + this.increment)));
-      }
+    int[] lut = new int[256];
+    for (int v = 0; v < lut.length; v++) {
+      lut[v] = max(0, min(255, v + this.increment));
     }
+    destImage.applyLookupTable(Image.RED, lut);
+    destImage.applyLookupTable(Image.GREEN, lut);
+    destImage.applyLookupTable(Image.BLUE, lut);
     model.addImage(this.destImageName, destImage);
   }
 }
@@ -2,7 +2,6 @@ package model.macros;
 
 import model.Image;
 import model.ImageProcessingModel;
-import model.Pixel;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -48,7 +47,8 @@ public abstract class ColorTransMacro implements ImageProcessingMacro {
   }
 
   /**
-   * Creates an image by applying a color transformation, and adds it to the given model.
+   * Creates an image by applying a color transformation, and adds it to the given model. The
+   * image is transformed one block at a time, in the block size that its storage prefers.
    *
    * @param model ImageProcessingModel object that stores all the images in the program
    * @throws IllegalArgumentException if image name could not be found in model
@@ -56,22 +56,40 @@ public abstract class ColorTransMacro implements ImageProcessingMacro {
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
     Image destImage = model.getImage(this.srcImageName);
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        Pixel p = destImage.getPixelAt(i, j);
-        double[] oldRGB = new double[]{p.getRed(), p.getGreen(), p.getBlue()};
-        double[] transRGB = new double[3];
-        for (int k = 0; k < this.transMat.length; k++) {
-          double comp = 0;
-          for (int l = 0; l < this.transMat.length; l++) {
-            comp += oldRGB[l] * this.transMat[k][l];
-          }
-          transRGB[k] = comp;
-        }
-        destImage.setPixelAt(i, j, (int) max(0, min(255, transRGB[0])), (int) max(0,
-                min(255, transRGB[1])), (int) max(0, min(255, transRGB[2])));
-      }
-    }
+    PixelBlocks.apply(destImage, this::transform);
     model.addImage(this.destImageName, destImage);
   }
+
+  /**
+   * Applies the transformation matrix to a range of packed RGB values in place. The matrix is
+   * read into local variables and every value goes through the same straight sequence of steps,
+   * so that the JIT compiler can transform several values at once with vector instructions. The
+   * products of each row of the matrix are added in order, as a loop over the row would.
+   * Converting to int before clamping gives the same values as clamping first, also for sums
+   * beyond the range of an int, and is cheaper.
+   *
+   * @param rgb  packed RGB values
+   * @param from index of the first value to transform
+   * @param to   index after the last value to transform
+   */
+  private void transform(int[] rgb, int from, int to) {
+    double m00 = this.transMat[0][0];
+    double m01 = this.transMat[0][1];
+    double m02 = this.transMat[0][2];
+    double m10 = this.transMat[1][0];
+    double m11 = this.transMat[1][1];
+    double m12 = this.transMat[1][2];
+    double m20 = this.transMat[2][0];
+    double m21 = this.transMat[2][1];
+    double m22 = this.transMat[2][2];
+    for (int j = from; j < to; j++) {
+      double red = (rgb[j] >> 16) & 0xFF;
+      double green = (rgb[j] >> 8) & 0xFF;
+      double blue = rgb[j] & 0xFF;
+      int newRed = max(0, min(255, (int) (red * m00 + green * m01 + blue * m02)));
+      int newGreen = max(0, min(255, (int) (red * m10 + green * m11 + blue * m12)));
+      int newBlue = max(0, min(255, (int) (red * m20 + green * m21 + blue * m22)));
+      rgb[j] = (newRed << 16) | (newGreen << 8) | newBlue;
+    }
+  }
 }
@@ -0,0 +1,84 @@
+package model.macros;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.ImageProcessingModel;
+
+/**
+ * This class represents a macro that creates an image by applying a filter kernel read from a
+ * text file. Every line of the file holds one row of the kernel as numbers separated by spaces.
+ * Empty lines and lines starting with '#' are skipped. The kernel must be square with an odd
+ * number of rows.
+ */
+public class CustomFilterMacro implements ImageProcessingMacro {
+  private final String kernelPath;
+  private final String srcImageName;
+  private final String destImageName;
+
+  /**
+   * Constructor that takes in the path of the kernel file, the name of the image to operate on
+   * and the name of the destination image.
+   *
+   * @param kernelPath    path of the kernel file
+   * @param srcImageName  name of image to operate on
+   * @param destImageName name of destination image
+   */
+  public CustomFilterMacro(String kernelPath, String srcImageName, String destImageName) {
+    this.kernelPath = kernelPath;
+    this.srcImageName = srcImageName;
+    this.destImageName = destImageName;
+  }
+
+  /**
+   * Reads the kernel file, creates an image by applying the kernel, and adds it to the given
+   * model.
+   *
+   * @param model ImageProcessingModel object that stores all the images in the program
+   * @throws IllegalArgumentException if the kernel file could not be found or read, is not a
+   *                                  square kernel with an odd number of rows, or if image name
+   *                                  could not be found in model
+   */
+  @Override
+  public void execute(ImageProcessingModel model) throws IllegalArgumentException {
+    new FilterMacro(this.readKernel(), this.srcImageName, this.destImageName) {
+    }.execute(model);
+  }
+
+  /**
+   * Reads the rows of the kernel from the kernel file.
+   *
+   * @return the kernel
+   * @throws IllegalArgumentException if the file could not be found or read, or holds anything
+   *                                  but numbers
+   */
+  private double[][] readKernel() throws IllegalArgumentException {
+    List<double[]> rows = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(this.kernelPath))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.charAt(0) == '#') {
+          continue;
+        }
+        String[] tokens = line.split("\\s+");
+        double[] row = new double[tokens.length];
+        for (int l = 0; l < tokens.length; l++) {
+          row[l] = Double.parseDouble(tokens[l]);
+        }
+        rows.add(row);
+      }
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("File not found: " + this.kernelPath);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to read kernel: " + this.kernelPath);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid kernel file: " + this.kernelPath);
+    }
+    return rows.toArray(new double[0][]);
+  }
+}
@@ -1,19 +1,109 @@
 package model.macros;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 import model.Image;
 import model.ImageProcessingModel;
-import model.Pixel;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 /**
- * This class represents a macro that creates an image by applying a filter.
+ * This class represents a macro that creates an image by applying a filter. Pixels beyond the
+ * edges of the image take the value of the nearest edge pixel.
+ *
+ * <p>When every weight of the kernel is a whole multiple of 2 to the power of minus the
+ * fixed-point shift, the filter runs in integer arithmetic on the weights scaled by 2 to the power
+ * of the shift, and the sums are shifted back. This gives exactly the same result as double
+ * arithmetic, as long as the sums cannot overflow, which is checked when the macro is created.
+ * The kernels of {@link BlurMacro} and {@link SharpenMacro} are such kernels.
+ *
+ * <p>A fixed-point kernel that is the product of a column and a row of weights is applied as a
+ * horizontal pass followed by a vertical pass, which takes 2k instead of k*k steps per pixel for
+ * a kernel of size k.
+ *
+ * <p>A fixed-point kernel of at least five rows that is not separable but made of square rings of
+ * equal weights around its center, such as that of {@link SharpenMacro}, is applied as a weighted
+ * sum of boxes of every radius. Every box keeps a sum of every column over the rows within its
+ * radius, which moves down with the current row by adding one row and subtracting another, and a
+ * running sum along the row over these column sums. This takes a few steps per pixel for every
+ * ring instead of k*k.
+ *
+ * <p>Any other kernel of at least {@link #FOURIER_MIN_SIZE} rows and columns is applied with fast
+ * Fourier transforms by a {@link FourierFilter}, whose results may differ from applying the kernel
+ * directly by rounding. Fixed-point kernels are applied directly up to a larger size, as their
+ * integer loops are faster; from {@link #FOURIER_MIN_FIXED_POINT_SIZE} on, they leave the exact
+ * fixed-point path as well and their results may differ by rounding too.
+ *
+ * <p>Every engine reads each source row once into channel arrays that are extended by the edge
+ * pixels, and applies one weight at a time along a whole row. These inner loops need no clamping
+ * and are simple enough for the JIT compiler to use vector instructions. Fixed-point weights are
+ * applied by a {@link FixedPointKernel}, which writes out the loops of 3x3 and 5x5 kernels and
+ * adds up values under mirrored weights before multiplying. Weights of zero are left out.
+ *
+ * <p>Large images are split into bands of rows that are filtered in parallel on a shared fork-join
+ * pool. Every band reads the rows it needs from the source image itself and writes only its own
+ * rows, so the result is the same as filtering the whole image on one thread.
+ *
+ * <p>Every band is filtered in blocks of columns, each read with the columns around it that the
+ * kernel reaches, so that the rows under the kernel stay in the cache on very wide images. Blocks
+ * are as wide as fits into half of the second level cache unless a block width is set.
  */
 public abstract class FilterMacro implements ImageProcessingMacro {
+  /**
+   * Number of fraction bits of the fixed-point weights when no other shift is given.
+   */
+  public static final int DEFAULT_FIXED_POINT_SHIFT = 16;
+
+  /**
+   * Smallest size of a kernel in double arithmetic for which fast Fourier transforms are used,
+   * where they were measured to become faster than applying the kernel directly.
+   */
+  public static final int FOURIER_MIN_SIZE = 11;
+
+  /**
+   * Smallest size of a fixed-point kernel that is neither separable nor made of rings for which
+   * fast Fourier transforms are used instead of exact integer arithmetic, where they were measured
+   * to become faster than applying the kernel directly.
+   */
+  public static final int FOURIER_MIN_FIXED_POINT_SIZE = 17;
+
+  /**
+   * Block width that fits the blocks to the size of the cache.
+   */
+  public static final int AUTO_BLOCK_WIDTH = 0;
+
+  private static final int MAX_FIXED_POINT_SHIFT = 30;
+  // smallest size of a kernel made of rings that is applied as boxes, as smaller kernels are
+  // applied faster by the loops written out for them
+  private static final int MIN_RING_SIZE = 5;
+  // fewest rows in a band filtered by one task, as every band reads rows around it again
+  private static final int MIN_BAND_ROWS = 16;
+  // fewest columns in a block fit to the cache, as every block reads columns around it again
+  private static final int MIN_BLOCK_WIDTH = 64;
+  // cache size to fit blocks to when the operating system does not report it
+  private static final int DEFAULT_CACHE_BYTES = 256 * 1024;
+  private static final int CACHE_BYTES = detectCacheBytes();
+
+  private static volatile int blockWidth = AUTO_BLOCK_WIDTH;
+
   final double[][] kernel;
   final String srcImageName;
   final String destImageName;
+  private final int shift;
+  // weights scaled by 2 to the power of the shift, or null if separable or in double arithmetic
+  private final FixedPointKernel fixedKernel;
+  // column and row weights whose products are the fixed-point weights, or null if not separable
+  private final FixedPointKernel columnKernel;
+  private final FixedPointKernel rowKernel;
+  // fixed-point weight of the box of every radius if the kernel is made of rings, or null
+  private final int[] boxWeights;
+  // kernel applied with fast Fourier transforms, or null to apply it directly
+  private final FourierFilter fourier;
 
   /**
    * Constructor that takes in the filter kernel, the name of the image to operate on and the
@@ -27,6 +117,23 @@ public abstract class FilterMacro implements ImageProcessingMacro {
    */
   protected FilterMacro(double[][] kernel, String srcImageName, String destImageName)
           throws IllegalArgumentException {
+    this(kernel, DEFAULT_FIXED_POINT_SHIFT, srcImageName, destImageName);
+  }
+
+  /**
+   * Constructor that takes in the filter kernel, the number of fraction bits of fixed-point
+   * weights, the name of the image to operate on and the name of the destination image. A shift
+   * of 0 only runs kernels of whole numbers in fixed point.
+   *
+   * @param kernel          filter kernel
+   * @param fixedPointShift number of fraction bits of fixed-point weights, from 0 to 30
+   * @param srcImageName    name of image to operate on
+   * @param destImageName   name of destination image
+   * @throws IllegalArgumentException if filter kernel is null, filter kernel has even dimensions,
+   *                                  filter kernel is not square, or shift is out of range
+   */
+  protected FilterMacro(double[][] kernel, int fixedPointShift, String srcImageName,
+                        String destImageName) throws IllegalArgumentException {
     if (kernel == null) {
       throw new IllegalArgumentException("Filter cannot be null.");
     }
@@ -41,10 +148,34 @@ public abstract class FilterMacro implements ImageProcessingMacro {
         throw new IllegalArgumentException("Filter matrix must be square.");
       }
     }
+    if (fixedPointShift < 0 || fixedPointShift > MAX_FIXED_POINT_SHIFT) {
+      throw new IllegalArgumentException("Invalid fixed-point shift.");
+    }
     this.kernel = kernel;
     this.srcImageName = srcImageName;
     this.destImageName = destImageName;
-
+    this.shift = fixedPointShift;
+    int[][] fixed = toFixedPoint(kernel, fixedPointShift);
+    int[][] factors = fixed == null ? null : separate(fixed);
+    if (factors != null) {
+      int[][] column = new int[kernel.length][];
+      for (int k = 0; k < kernel.length; k++) {
+        column[k] = new int[]{factors[0][k]};
+      }
+      this.fixedKernel = null;
+      this.columnKernel = FixedPointKernel.of(column);
+      this.rowKernel = FixedPointKernel.of(new int[][]{factors[1]});
+      this.boxWeights = null;
+    } else {
+      this.fixedKernel = fixed == null ? null : FixedPointKernel.of(fixed);
+      this.columnKernel = null;
+      this.rowKernel = null;
+      this.boxWeights = fixed == null || kernel.length < MIN_RING_SIZE ? null
+              : toBoxWeights(fixed);
+    }
+    int fourierMinSize = fixed == null ? FOURIER_MIN_SIZE : FOURIER_MIN_FIXED_POINT_SIZE;
+    this.fourier = factors == null && this.boxWeights == null
+            && kernel.length >= fourierMinSize ? new FourierFilter(kernel) : null;
   }
 
   /**
@@ -55,27 +186,563 @@ public abstract class FilterMacro implements ImageProcessingMacro {
    */
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
-    Image origImage = model.getImage(this.srcImageName);
-    Image destImage = model.getImage(this.srcImageName);
-    int offset = kernel.length / 2;
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        double redLinComb = 0;
-        double greenLinComb = 0;
-        double blueLinComb = 0;
+    Image srcImage = model.getReadOnlyImage(this.srcImageName);
+    Image destImage = model.createImage(srcImage.getWidth(), srcImage.getHeight());
+    int minBandRows = this.fourier == null ? MIN_BAND_ROWS : this.fourier.getTileSize();
+    RowBands.run(srcImage.getHeight(), minBandRows,
+            (fromRow, toRow) -> this.filterBand(srcImage, destImage, fromRow, toRow));
+    model.addImage(this.destImageName, destImage);
+  }
+
+  /**
+   * Sets the number of threads that filter macros and Gaussian blurs use on large images. Filters
+   * that are already running keep their threads.
+   *
+   * @param parallelism number of threads, 1 to filter on the calling thread only
+   * @throws IllegalArgumentException if parallelism is not positive
+   */
+  public static void setParallelism(int parallelism) throws IllegalArgumentException {
+    RowBands.setParallelism(parallelism);
+  }
+
+  /**
+   * Returns the number of threads that filter macros and Gaussian blurs use on large images,
+   * which is the number of available processors unless set otherwise.
+   *
+   * @return number of threads
+   */
+  public static int getParallelism() {
+    return RowBands.getParallelism();
+  }
+
+  /**
+   * Sets the number of columns of the blocks that filters cut every band of rows into, so that
+   * the rows under the kernel stay in the cache on very wide images. Filters that are already
+   * running keep their block width.
+   *
+   * @param columns number of columns, or {@link #AUTO_BLOCK_WIDTH} to fit blocks to the cache
+   * @throws IllegalArgumentException if columns is negative
+   */
+  public static void setBlockWidth(int columns) throws IllegalArgumentException {
+    if (columns < 0) {
+      throw new IllegalArgumentException("Block width must not be negative.");
+    }
+    blockWidth = columns;
+  }
+
+  /**
+   * Returns the number of columns of the blocks that filters cut every band of rows into, which
+   * is {@link #AUTO_BLOCK_WIDTH} unless set otherwise.
+   *
+   * @return number of columns, or {@link #AUTO_BLOCK_WIDTH} if blocks are fit to the cache
+   */
+  public static int getBlockWidth() {
+    return blockWidth;
+  }
+
+  /**
+   * Returns the size of the second level cache of the first processor as the operating system
+   * reports it, or a common size if it does not.
+   *
+   * @return size of the cache in bytes
+   */
+  private static int detectCacheBytes() {
+    for (int index = 0; index < 8; index++) {
+      Path cache = Paths.get("/sys/devices/system/cpu/cpu0/cache/index" + index);
+      try {
+        if (new String(Files.readAllBytes(cache.resolve("level"))).trim().equals("2")) {
+          String size = new String(Files.readAllBytes(cache.resolve("size"))).trim();
+          int unit = size.endsWith("K") ? 1 << 10 : size.endsWith("M") ? 1 << 20 : 1;
+          if (unit > 1) {
+            size = size.substring(0, size.length() - 1);
+          }
+          return (int) min(Integer.MAX_VALUE, Long.parseLong(size) * unit);
+        }
+      } catch (IOException | NumberFormatException e) {
+        return DEFAULT_CACHE_BYTES;
+      }
+    }
+    return DEFAULT_CACHE_BYTES;
+  }
+
+  /**
+   * Filters the given rows of the source image into the same rows of the destination image.
+   *
+   * @param srcImage  image to read from
+   * @param destImage image of the same size to write to
+   * @param fromRow   first row to filter
+   * @param toRow     row after the last row to filter
+   */
+  private void filterBand(Image srcImage, Image destImage, int fromRow, int toRow) {
+    // an image without rows has no edge row to read the rows above and below from
+    if (srcImage.getHeight() == 0) {
+      return;
+    }
+    if (this.fourier != null) {
+      this.fourier.filter(srcImage, destImage, fromRow, toRow);
+      return;
+    }
+    int width = srcImage.getWidth();
+    int blockWidth = this.fitBlockWidth();
+    for (int fromCol = 0; fromCol < width; fromCol += blockWidth) {
+      int toCol = min(width, fromCol + blockWidth);
+      if (this.rowKernel != null) {
+        this.convolveSeparable(srcImage, destImage, fromRow, toRow, fromCol, toCol);
+      } else if (this.boxWeights != null) {
+        this.convolveRings(srcImage, destImage, fromRow, toRow, fromCol, toCol);
+      } else if (this.fixedKernel != null) {
+        this.convolveFixedPoint(srcImage, destImage, fromRow, toRow, fromCol, toCol);
+      } else {
+        this.convolve(srcImage, destImage, fromRow, toRow, fromCol, toCol);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of columns of the blocks that this filter cuts every band into, which is
+   * the block width that is set, or else as many columns as fit the rows under the kernel into
+   * half of the cache.
+   *
+   * @return number of columns of a block
+   */
+  private int fitBlockWidth() {
+    int columns = blockWidth;
+    if (columns != AUTO_BLOCK_WIDTH) {
+      return columns;
+    }
+    // every column of a block holds a value of every channel of every row under the kernel, and
+    // a row of sums, a packed source pixel and a packed result, and for kernels made of rings a
+    // column sum of every channel for every radius
+    int rows = 3 * this.kernel.length + (this.boxWeights == null ? 0 : 3 * this.boxWeights.length);
+    int bytesPerColumn = Integer.BYTES * (rows + 2) + Double.BYTES;
+    return max(MIN_BLOCK_WIDTH, CACHE_BYTES / 2 / bytesPerColumn);
+  }
+
+  /**
+   * Applies the whole kernel to every pixel of the source image. Every row is read once into
+   * channel arrays that are extended by the edge pixels on both sides, so no tap needs clamping.
+   * Each weight is applied to a whole row at a time, which adds up the taps of every pixel in the
+   * same order as applying the kernel one pixel at a time.
+   *
+   * @param srcImage  image to read from
+   * @param destImage image of the same size to write to
+   * @param fromRow   first row to filter
+   * @param toRow     row after the last row to filter
+   * @param fromCol   first column to filter
+   * @param toCol     column after the last column to filter
+   */
+  private void convolve(Image srcImage, Image destImage, int fromRow, int toRow, int fromCol,
+                        int toCol) {
+    int width = toCol - fromCol;
+    int offset = this.kernel.length / 2;
+    int[] srcRow = new int[width + 2 * offset];
+    // channels of the rows under the kernel, so that every row is read only once
+    int[][][] window = new int[this.kernel.length][3][width + 2 * offset];
+    for (int k = 0; k < this.kernel.length; k++) {
+      readChannels(srcImage, fromRow + k - offset, fromCol - offset, srcRow, window[k]);
+    }
+    double[] linComb = new double[width];
+    int[] destRow = new int[width];
+    for (int i = fromRow; i < toRow; i++) {
+      for (int channel = 0; channel < 3; channel++) {
+        Arrays.fill(linComb, 0);
         for (int k = 0; k < this.kernel.length; k++) {
+          int[] values = window[k][channel];
           for (int l = 0; l < this.kernel.length; l++) {
-            Pixel p = origImage.getPixelAt(min(destImage.getHeight() - 1, max(0, i - offset + k)),
-                    min(destImage.getWidth() - 1, max(0, j - offset + l)));
-            redLinComb += p.getRed() * this.kernel[k][l];
-            greenLinComb += p.getGreen() * this.kernel[k][l];
-            blueLinComb += p.getBlue() * this.kernel[k][l];
+            double weight = this.kernel[k][l];
+            // adding zero leaves every sum as it is, so leaving it out gives the same result
+            if (weight == 0) {
+              continue;
+            }
+            for (int j = 0; j < width; j++) {
+              linComb[j] += values[j + l] * weight;
+            }
           }
         }
-        destImage.setPixelAt(i, j, (int) max(0, min(255, redLinComb)), (int) max(0, min(255,
-                greenLinComb)), (int) max(0, min(255, blueLinComb)));
+        int channelShift = 16 - 8 * channel;
+        for (int j = 0; j < width; j++) {
+          // converting before clamping gives the same value as clamping first, and is cheaper
+          int value = max(0, min(255, (int) linComb[j]));
+          destRow[j] = channel == 0 ? value << channelShift : destRow[j] | value << channelShift;
+        }
       }
+      readChannels(srcImage, i + 1 + offset, fromCol - offset, srcRow, rotate(window));
+      destImage.setRGB(i, fromCol, width, 1, destRow, 0, width);
     }
-    model.addImage(this.destImageName, destImage);
+  }
+
+  /**
+   * Applies the whole fixed-point kernel to every pixel of the source image with the loop chosen
+   * for its weights, which gives the same result as
+   * {@link #convolve(Image, Image, int, int, int, int)} does with the kernel in double
+   * arithmetic.
+   *
+   * @param srcImage  image to read from
+   * @param destImage image of the same size to write to
+   * @param fromRow   first row to filter
+   * @param toRow     row after the last row to filter
+   * @param fromCol   first column to filter
+   * @param toCol     column after the last column to filter
+   */
+  private void convolveFixedPoint(Image srcImage, Image destImage, int fromRow, int toRow,
+                                  int fromCol, int toCol) {
+    int width = toCol - fromCol;
+    int offset = this.kernel.length / 2;
+    int[] srcRow = new int[width + 2 * offset];
+    int[][][] window = new int[this.kernel.length][3][width + 2 * offset];
+    for (int k = 0; k < this.kernel.length; k++) {
+      readChannels(srcImage, fromRow + k - offset, fromCol - offset, srcRow, window[k]);
+    }
+    // one channel of the rows under the kernel
+    int[][] channelRows = new int[this.kernel.length][];
+    int[] linComb = new int[width];
+    int[] destRow = new int[width];
+    for (int i = fromRow; i < toRow; i++) {
+      for (int channel = 0; channel < 3; channel++) {
+        for (int k = 0; k < this.kernel.length; k++) {
+          channelRows[k] = window[k][channel];
+        }
+        this.fixedKernel.apply(channelRows, linComb, width);
+        this.packChannel(linComb, channel, destRow);
+      }
+      readChannels(srcImage, i + 1 + offset, fromCol - offset, srcRow, rotate(window));
+      destImage.setRGB(i, fromCol, width, 1, destRow, 0, width);
+    }
+  }
+
+  /**
+   * Applies the fixed-point kernel as a pass of the row weights along every row of the source
+   * image, followed by a pass of the column weights down every column of the result. The
+   * horizontal pass of every source row is kept for as long as the vertical pass needs it.
+   *
+   * @param srcImage  image to read from
+   * @param destImage image of the same size to write to
+   * @param fromRow   first row to filter
+   * @param toRow     row after the last row to filter
+   * @param fromCol   first column to filter
+   * @param toCol     column after the last column to filter
+   */
+  private void convolveSeparable(Image srcImage, Image destImage, int fromRow, int toRow,
+                                 int fromCol, int toCol) {
+    int width = toCol - fromCol;
+    int offset = this.kernel.length / 2;
+    int[] srcRow = new int[width + 2 * offset];
+    // each channel of a source row, extended by the edge pixels on both sides
+    int[][] padded = new int[3][width + 2 * offset];
+    // horizontal pass of the rows under the kernel, one array of width values per channel
+    int[][][] window = new int[this.kernel.length][3][width];
+    for (int k = 0; k < this.kernel.length; k++) {
+      this.filterRow(srcImage, fromRow + k - offset, fromCol, srcRow, padded, window[k]);
+    }
+    // one channel of the horizontal pass of the rows under the kernel
+    int[][] channelRows = new int[this.kernel.length][];
+    int[] linComb = new int[width];
+    int[] destRow = new int[width];
+    for (int i = fromRow; i < toRow; i++) {
+      for (int channel = 0; channel < 3; channel++) {
+        for (int k = 0; k < this.kernel.length; k++) {
+          channelRows[k] = window[k][channel];
+        }
+        this.columnKernel.apply(channelRows, linComb, width);
+        this.packChannel(linComb, channel, destRow);
+      }
+      this.filterRow(srcImage, i + 1 + offset, fromCol, srcRow, padded, rotate(window));
+      destImage.setRGB(i, fromCol, width, 1, destRow, 0, width);
+    }
+  }
+
+  /**
+   * Applies the row weights along part of a row of an image, clamping the row index to the edges
+   * of the image.
+   *
+   * @param image    image to read from
+   * @param row      index of the row, which may be out of bounds
+   * @param fromCol  first column to filter
+   * @param rgb      buffer for the packed RGB values of the row
+   * @param padded   buffers for the channels of the part with the pixels on both sides
+   * @param filtered arrays of the length of the part to write the result for every channel to
+   */
+  private void filterRow(Image image, int row, int fromCol, int[] rgb, int[][] padded,
+                         int[][] filtered) {
+    int width = filtered[0].length;
+    readChannels(image, row, fromCol - this.kernel.length / 2, rgb, padded);
+    int[][] channelRow = new int[1][];
+    for (int channel = 0; channel < 3; channel++) {
+      channelRow[0] = padded[channel];
+      this.rowKernel.apply(channelRow, filtered[channel], width);
+    }
+  }
+
+  /**
+   * Applies a fixed-point kernel made of rings as the weighted sum of the boxes of every radius
+   * around every pixel of the source image. Sums of whole numbers are exact in any order, so this
+   * gives the same result as {@link #convolveFixedPoint(Image, Image, int, int, int, int)}.
+   *
+   * @param srcImage  image to read from
+   * @param destImage image of the same size to write to
+   * @param fromRow   first row to filter
+   * @param toRow     row after the last row to filter
+   * @param fromCol   first column to filter
+   * @param toCol     column after the last column to filter
+   */
+  private void convolveRings(Image srcImage, Image destImage, int fromRow, int toRow,
+                             int fromCol, int toCol) {
+    int width = toCol - fromCol;
+    int offset = this.kernel.length / 2;
+    int[] srcRow = new int[width + 2 * offset];
+    int[][][] window = new int[this.kernel.length][3][width + 2 * offset];
+    for (int k = 0; k < this.kernel.length; k++) {
+      readChannels(srcImage, fromRow + k - offset, fromCol - offset, srcRow, window[k]);
+    }
+    // sums of every column of the rows within every radius of the current row, with one more
+    // value that the running sums along the row read after their last box
+    int[][][] columns = new int[offset + 1][3][width + 2 * offset + 1];
+    for (int r = 0; r <= offset; r++) {
+      for (int k = offset - r; k <= offset + r && this.boxWeights[r] != 0; k++) {
+        for (int channel = 0; channel < 3; channel++) {
+          addValues(window[k][channel], 1, columns[r][channel]);
+        }
+      }
+    }
+    int[] linComb = new int[width];
+    int[] destRow = new int[width];
+    for (int i = fromRow; i < toRow; i++) {
+      for (int channel = 0; channel < 3; channel++) {
+        Arrays.fill(linComb, 0);
+        for (int r = 0; r <= offset; r++) {
+          if (this.boxWeights[r] != 0) {
+            addBoxSums(columns[r][channel], offset - r, 2 * r + 1, this.boxWeights[r], linComb);
+          }
+        }
+        this.packChannel(linComb, channel, destRow);
+      }
+      // every box moves down a row, losing its top row and gaining the row below it
+      for (int r = 0; r <= offset; r++) {
+        for (int channel = 0; channel < 3 && this.boxWeights[r] != 0; channel++) {
+          addValues(window[offset - r][channel], -1, columns[r][channel]);
+        }
+      }
+      readChannels(srcImage, i + 1 + offset, fromCol - offset, srcRow, rotate(window));
+      for (int r = 0; r <= offset; r++) {
+        for (int channel = 0; channel < 3 && this.boxWeights[r] != 0; channel++) {
+          addValues(window[offset + r][channel], 1, columns[r][channel]);
+        }
+      }
+      destImage.setRGB(i, fromCol, width, 1, destRow, 0, width);
+    }
+  }
+
+  /**
+   * Adds the given values, or subtracts them, to the sums of the same index.
+   *
+   * @param values the values
+   * @param sign   1 to add the values, -1 to subtract them
+   * @param sums   the sums, at least as many as values
+   */
+  private static void addValues(int[] values, int sign, int[] sums) {
+    for (int j = 0; j < values.length; j++) {
+      sums[j] += sign * values[j];
+    }
+  }
+
+  /**
+   * Adds the weighted sum of every box of consecutive column sums to the sum of the position of
+   * its first column, keeping a running sum that adds the column entering the box and subtracts
+   * the column leaving it.
+   *
+   * @param columns column sums, with at least one value after the last box
+   * @param first   index of the first column of the first box
+   * @param size    number of columns of a box
+   * @param weight  weight of the boxes
+   * @param linComb fixed-point sums to add the weighted box sums to, one per box
+   */
+  private static void addBoxSums(int[] columns, int first, int size, int weight,
+                                 int[] linComb) {
+    int sum = 0;
+    for (int l = first; l < first + size; l++) {
+      sum += columns[l];
+    }
+    for (int j = 0; j < linComb.length; j++) {
+      linComb[j] += sum * weight;
+      sum += columns[first + size + j] - columns[first + j];
+    }
+  }
+
+  /**
+   * Shifts the given fixed-point values of a channel back, clamps them to the range of a channel
+   * and stores them in that channel of the given row. Shifting rounds down, which is what
+   * converting the same non-negative values in double arithmetic to int does. The red channel is
+   * stored first and replaces the previous contents of the row.
+   *
+   * @param linComb fixed-point values of the channel
+   * @param channel the channel, from {@link Image#RED} to {@link Image#BLUE}
+   * @param destRow packed RGB values to store the channel in
+   */
+  private void packChannel(int[] linComb, int channel, int[] destRow) {
+    int channelShift = 16 - 8 * channel;
+    for (int j = 0; j < destRow.length; j++) {
+      int value = max(0, min(255, linComb[j] >> this.shift));
+      destRow[j] = channel == 0 ? value << channelShift : destRow[j] | value << channelShift;
+    }
+  }
+
+  /**
+   * Reads part of a row of an image into one array per channel, starting at the given column and
+   * as long as the arrays. Columns beyond the edges of the image take copies of the edge pixels,
+   * and the row index is clamped to the edges of the image.
+   *
+   * @param image  image to read from
+   * @param row    index of the row, which may be out of bounds
+   * @param first  column of the first value of the arrays, which may be out of bounds
+   * @param rgb    buffer for the packed RGB values of at least the length of the arrays
+   * @param padded arrays of the same length to write the channels to
+   */
+  private static void readChannels(Image image, int row, int first, int[] rgb, int[][] padded) {
+    int length = padded[0].length;
+    int start = max(0, first);
+    int end = min(image.getWidth(), first + length);
+    if (start >= end) {
+      return;
+    }
+    image.getRGB(min(image.getHeight() - 1, max(0, row)), start, end - start, 1, rgb, 0,
+            end - start);
+    for (int channel = 0; channel < 3; channel++) {
+      int channelShift = 16 - 8 * channel;
+      int[] values = padded[channel];
+      for (int j = start; j < end; j++) {
+        values[j - first] = (rgb[j - start] >> channelShift) & 0xFF;
+      }
+      Arrays.fill(values, 0, start - first, values[start - first]);
+      Arrays.fill(values, end - first, length, values[end - first - 1]);
+    }
+  }
+
+  /**
+   * Moves the first row of a window of rows to the end, shifting the others up by one.
+   *
+   * @param window the rows
+   * @return the row that is now last, to be overwritten with the next row
+   */
+  private static int[][] rotate(int[][][] window) {
+    int[][] first = window[0];
+    System.arraycopy(window, 1, window, 0, window.length - 1);
+    window[window.length - 1] = first;
+    return first;
+  }
+
+  /**
+   * Scales the weights of a kernel by 2 to the power of the given shift, if that makes all of them
+   * whole numbers and no sum of weighted channel values can overflow an int. Every such sum is
+   * then also exact in double arithmetic, so both give the same result.
+   *
+   * @param kernel the kernel to scale
+   * @param shift  number of fraction bits
+   * @return the scaled weights, or null if the kernel cannot run in fixed point
+   */
+  private static int[][] toFixedPoint(double[][] kernel, int shift) {
+    int[][] fixed = new int[kernel.length][kernel.length];
+    double bound = 0;
+    for (int k = 0; k < kernel.length; k++) {
+      for (int l = 0; l < kernel.length; l++) {
+        double weight = Math.scalb(kernel[k][l], shift);
+        if (Double.isInfinite(weight) || weight != Math.rint(weight)) {
+          return null;
+        }
+        bound += 255 * Math.abs(weight);
+        fixed[k][l] = (int) weight;
+      }
+    }
+    return bound <= Integer.MAX_VALUE ? fixed : null;
+  }
+
+  /**
+   * Writes a fixed-point kernel whose weights depend only on the distance from the center along
+   * the rows or columns, whichever is larger, as a sum of boxes around the center. The box of
+   * every radius has the weight of its outer ring minus that of the ring around it. Sums of whole
+   * numbers are exact in any order, even where the products of the box weights overflow, so the
+   * boxes give the same result as the whole kernel.
+   *
+   * @param kernel the fixed-point kernel
+   * @return the weight of the box of every radius, or null if the kernel is not made of rings
+   */
+  private static int[] toBoxWeights(int[][] kernel) {
+    int offset = kernel.length / 2;
+    int[] boxWeights = new int[offset + 1];
+    for (int r = 0; r <= offset; r++) {
+      boxWeights[r] = kernel[offset - r][offset];
+    }
+    for (int k = 0; k < kernel.length; k++) {
+      for (int l = 0; l < kernel.length; l++) {
+        if (kernel[k][l] != boxWeights[max(Math.abs(k - offset), Math.abs(l - offset))]) {
+          return null;
+        }
+      }
+    }
+    for (int r = 0; r < offset; r++) {
+      boxWeights[r] -= boxWeights[r + 1];
+    }
+    return boxWeights;
+  }
+
+  /**
+   * Splits a fixed-point kernel into a column and a row of whole weights whose products are the
+   * weights of the kernel. The row is a row of the kernel divided by the greatest common divisor
+   * of its weights, so the column weights are whole numbers whenever such a split exists. The sums
+   * of both passes are no larger than those of the whole kernel.
+   *
+   * @param kernel the kernel to split
+   * @return the column weights followed by the row weights, or null if the kernel is not split
+   */
+  private static int[][] separate(int[][] kernel) {
+    int size = kernel.length;
+    int pivotRow = 0;
+    int pivotColumn = 0;
+    for (int k = 0; k < size; k++) {
+      for (int l = 0; l < size; l++) {
+        if (Math.abs(kernel[k][l]) > Math.abs(kernel[pivotRow][pivotColumn])) {
+          pivotRow = k;
+          pivotColumn = l;
+        }
+      }
+    }
+    if (size == 0 || kernel[pivotRow][pivotColumn] == 0) {
+      return null;
+    }
+    int divisor = 0;
+    for (int weight : kernel[pivotRow]) {
+      divisor = gcd(divisor, Math.abs(weight));
+    }
+    int[] row = new int[size];
+    for (int l = 0; l < size; l++) {
+      row[l] = kernel[pivotRow][l] / divisor;
+    }
+    int[] column = new int[size];
+    for (int k = 0; k < size; k++) {
+      column[k] = kernel[k][pivotColumn] / row[pivotColumn];
+    }
+    for (int k = 0; k < size; k++) {
+      for (int l = 0; l < size; l++) {
+        if ((long) column[k] * row[l] != kernel[k][l]) {
+          return null;
+        }
+      }
+    }
+    return new int[][]{column, row};
+  }
+
+  /**
+   * Returns the greatest common divisor of two non-negative numbers.
+   *
+   * @param a the first number
+   * @param b the second number
+   * @return greatest common divisor, or 0 if both are 0
+   */
+  private static int gcd(int a, int b) {
+    while (b != 0) {
+      int rest = a % b;
+      a = b;
+      b = rest;
+    }
+    return a;
   }
 }
@@ -0,0 +1,380 @@
+package model.macros;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents fixed-point filter weights together with the loop that applies them,
+ * which is chosen when the filter is created. Sums of whole numbers are exact in any order, so
+ * every loop gives the same result as applying one weight after the other.
+ *
+ * <p>Kernels of 3x3 and 5x5 weights, and the rows and columns of three weights of separable
+ * kernels, are applied by loops that are written out for every weight, so that each sum is
+ * computed in one pass over the row without reading the weights from an array. Kernels that are
+ * the same when mirrored left to right or top to bottom add up the values under equal weights
+ * first, which halves the number of multiplications for each direction. Any other kernel applies
+ * one weight at a time along the row, folding mirrored weights in the same way and leaving out
+ * weights of zero.
+ */
+abstract class FixedPointKernel {
+
+  /**
+   * Returns the kernel with the loop that suits the given weights best.
+   *
+   * @param weights fixed-point weights, as rows of the same odd length
+   * @return the kernel
+   */
+  static FixedPointKernel of(int[][] weights) {
+    int rows = weights.length;
+    int cols = weights[0].length;
+    int zeros = 0;
+    for (int[] row : weights) {
+      for (int weight : row) {
+        zeros += weight == 0 ? 1 : 0;
+      }
+    }
+    // written-out loops read every value, so they only pay off when most weights are used
+    if (2 * zeros <= rows * cols) {
+      if (rows == 1 && cols == 3) {
+        return new Unrolled1x3(weights);
+      }
+      if (rows == 3 && cols == 1) {
+        return new Unrolled3x1(weights);
+      }
+      boolean symmetric = isMirroredLeftRight(weights) && isMirroredTopBottom(weights);
+      if (rows == 3 && cols == 3) {
+        return symmetric ? new Symmetric3x3(weights) : new Unrolled3x3(weights);
+      }
+      if (rows == 5 && cols == 5) {
+        return symmetric ? new Symmetric5x5(weights) : new Unrolled5x5(weights);
+      }
+    }
+    return new Folded(weights);
+  }
+
+  /**
+   * Computes the fixed-point sum of every position of a row. The sum of position j multiplies
+   * the weights with the values from index j on of every row under the kernel.
+   *
+   * @param rows  values of one channel of the rows under the kernel, each at least as long as
+   *              the width plus the number of columns of the kernel minus one
+   * @param sums  array to write the sums to
+   * @param width number of sums to compute
+   */
+  abstract void apply(int[][] rows, int[] sums, int width);
+
+  private static boolean isMirroredLeftRight(int[][] weights) {
+    for (int[] row : weights) {
+      for (int l = 0; l < row.length; l++) {
+        if (row[l] != row[row.length - 1 - l]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isMirroredTopBottom(int[][] weights) {
+    for (int k = 0; k < weights.length; k++) {
+      if (!Arrays.equals(weights[k], weights[weights.length - 1 - k])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * This class represents any kernel, applied one weight at a time along the row. Weights of
+   * zero are left out, and weights that are mirrored left to right or top to bottom are applied
+   * once to the sum of the values under them.
+   */
+  private static final class Folded extends FixedPointKernel {
+    // for every weight applied: its row and column, the mirrored row and column or -1, and weight
+    private final int[][] taps;
+
+    private Folded(int[][] weights) {
+      int rows = weights.length;
+      int cols = weights[0].length;
+      boolean leftRight = isMirroredLeftRight(weights);
+      boolean topBottom = isMirroredTopBottom(weights);
+      List<int[]> taps = new ArrayList<>();
+      for (int k = 0; k < (topBottom ? rows / 2 + 1 : rows); k++) {
+        for (int l = 0; l < (leftRight ? cols / 2 + 1 : cols); l++) {
+          if (weights[k][l] != 0) {
+            int mirroredRow = topBottom && 2 * k != rows - 1 ? rows - 1 - k : -1;
+            int mirroredCol = leftRight && 2 * l != cols - 1 ? cols - 1 - l : -1;
+            taps.add(new int[]{k, l, mirroredRow, mirroredCol, weights[k][l]});
+          }
+        }
+      }
+      this.taps = taps.toArray(new int[0][]);
+    }
+
+    @Override
+    void apply(int[][] rows, int[] sums, int width) {
+      Arrays.fill(sums, 0, width, 0);
+      for (int[] tap : this.taps) {
+        int[] a = rows[tap[0]];
+        int l = tap[1];
+        int m = tap[3];
+        int weight = tap[4];
+        if (tap[2] < 0 && m < 0) {
+          for (int j = 0; j < width; j++) {
+            sums[j] += a[j + l] * weight;
+          }
+        } else if (tap[2] < 0) {
+          for (int j = 0; j < width; j++) {
+            sums[j] += (a[j + l] + a[j + m]) * weight;
+          }
+        } else if (m < 0) {
+          int[] b = rows[tap[2]];
+          for (int j = 0; j < width; j++) {
+            sums[j] += (a[j + l] + b[j + l]) * weight;
+          }
+        } else {
+          int[] b = rows[tap[2]];
+          for (int j = 0; j < width; j++) {
+            sums[j] += (a[j + l] + a[j + m] + b[j + l] + b[j + m]) * weight;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * This class represents a row of three weights, applied in one pass.
+   */
+  private static final class Unrolled1x3 extends FixedPointKernel {
+    private final int w0;
+    private final int w1;
+    private final int w2;
+
+    private Unrolled1x3(int[][] weights) {
+      this.w0 = weights[0][0];
+      this.w1 = weights[0][1];
+      this.w2 = weights[0][2];
+    }
+
+    @Override
+    void apply(int[][] rows, int[] sums, int width) {
+      int[] r0 = rows[0];
+      for (int j = 0; j < width; j++) {
+        sums[j] = r0[j] * this.w0 + r0[j + 1] * this.w1 + r0[j + 2] * this.w2;
+      }
+    }
+  }
+
+  /**
+   * This class represents a column of three weights, applied in one pass.
+   */
+  private static final class Unrolled3x1 extends FixedPointKernel {
+    private final int w0;
+    private final int w1;
+    private final int w2;
+
+    private Unrolled3x1(int[][] weights) {
+      this.w0 = weights[0][0];
+      this.w1 = weights[1][0];
+      this.w2 = weights[2][0];
+    }
+
+    @Override
+    void apply(int[][] rows, int[] sums, int width) {
+      int[] r0 = rows[0];
+      int[] r1 = rows[1];
+      int[] r2 = rows[2];
+      for (int j = 0; j < width; j++) {
+        sums[j] = r0[j] * this.w0 + r1[j] * this.w1 + r2[j] * this.w2;
+      }
+    }
+  }
+
+  /**
+   * This class represents a kernel of 3x3 weights, applied in one pass.
+   */
+  private static final class Unrolled3x3 extends FixedPointKernel {
+    private final int w00;
+    private final int w01;
+    private final int w02;
+    private final int w10;
+    private final int w11;
+    private final int w12;
+    private final int w20;
+    private final int w21;
+    private final int w22;
+
+    private Unrolled3x3(int[][] weights) {
+      this.w00 = weights[0][0];
+      this.w01 = weights[0][1];
+      this.w02 = weights[0][2];
+      this.w10 = weights[1][0];
+      this.w11 = weights[1][1];
+      this.w12 = weights[1][2];
+      this.w20 = weights[2][0];
+      this.w21 = weights[2][1];
+      this.w22 = weights[2][2];
+    }
+
+    @Override
+    void apply(int[][] rows, int[] sums, int width) {
+      int[] r0 = rows[0];
+      int[] r1 = rows[1];
+      int[] r2 = rows[2];
+      for (int j = 0; j < width; j++) {
+        sums[j] = r0[j] * this.w00 + r0[j + 1] * this.w01 + r0[j + 2] * this.w02
+                + r1[j] * this.w10 + r1[j + 1] * this.w11 + r1[j + 2] * this.w12
+                + r2[j] * this.w20 + r2[j + 1] * this.w21 + r2[j + 2] * this.w22;
+      }
+    }
+  }
+
+  /**
+   * This class represents a kernel of 3x3 weights that is mirrored left to right and top to
+   * bottom, applied in one pass with four multiplications instead of nine.
+   */
+  private static final class Symmetric3x3 extends FixedPointKernel {
+    private final int corner;
+    private final int edgeRow;
+    private final int edgeCol;
+    private final int center;
+
+    private Symmetric3x3(int[][] weights) {
+      this.corner = weights[0][0];
+      this.edgeRow = weights[0][1];
+      this.edgeCol = weights[1][0];
+      this.center = weights[1][1];
+    }
+
+    @Override
+    void apply(int[][] rows, int[] sums, int width) {
+      int[] r0 = rows[0];
+      int[] r1 = rows[1];
+      int[] r2 = rows[2];
+      for (int j = 0; j < width; j++) {
+        sums[j] = (r0[j] + r0[j + 2] + r2[j] + r2[j + 2]) * this.corner
+                + (r0[j + 1] + r2[j + 1]) * this.edgeRow
+                + (r1[j] + r1[j + 2]) * this.edgeCol
+                + r1[j + 1] * this.center;
+      }
+    }
+  }
+
+  /**
+   * This class represents a kernel of 5x5 weights, applied in a pass over three rows and a pass
+   * over two.
+   */
+  private static final class Unrolled5x5 extends FixedPointKernel {
+    private final int[] w0;
+    private final int[] w1;
+    private final int[] w2;
+    private final int[] w3;
+    private final int[] w4;
+
+    private Unrolled5x5(int[][] weights) {
+      this.w0 = weights[0].clone();
+      this.w1 = weights[1].clone();
+      this.w2 = weights[2].clone();
+      this.w3 = weights[3].clone();
+      this.w4 = weights[4].clone();
+    }
+
+    @Override
+    void apply(int[][] rows, int[] sums, int width) {
+      sumRows(rows[0], this.w0, rows[1], this.w1, rows[2], this.w2, sums, width);
+      addRows(rows[3], this.w3, rows[4], this.w4, sums, width);
+    }
+
+    // three rows and then two, so that the weights of a pass fit into registers and the loops
+    // read only the rows
+    private static void sumRows(int[] a, int[] wa, int[] b, int[] wb, int[] c, int[] wc,
+                                int[] sums, int width) {
+      int a0 = wa[0];
+      int a1 = wa[1];
+      int a2 = wa[2];
+      int a3 = wa[3];
+      int a4 = wa[4];
+      int b0 = wb[0];
+      int b1 = wb[1];
+      int b2 = wb[2];
+      int b3 = wb[3];
+      int b4 = wb[4];
+      int c0 = wc[0];
+      int c1 = wc[1];
+      int c2 = wc[2];
+      int c3 = wc[3];
+      int c4 = wc[4];
+      for (int j = 0; j < width; j++) {
+        sums[j] = a[j] * a0 + a[j + 1] * a1 + a[j + 2] * a2 + a[j + 3] * a3 + a[j + 4] * a4
+                + b[j] * b0 + b[j + 1] * b1 + b[j + 2] * b2 + b[j + 3] * b3 + b[j + 4] * b4
+                + c[j] * c0 + c[j + 1] * c1 + c[j + 2] * c2 + c[j + 3] * c3 + c[j + 4] * c4;
+      }
+    }
+
+    private static void addRows(int[] a, int[] wa, int[] b, int[] wb, int[] sums, int width) {
+      int a0 = wa[0];
+      int a1 = wa[1];
+      int a2 = wa[2];
+      int a3 = wa[3];
+      int a4 = wa[4];
+      int b0 = wb[0];
+      int b1 = wb[1];
+      int b2 = wb[2];
+      int b3 = wb[3];
+      int b4 = wb[4];
+      for (int j = 0; j < width; j++) {
+        sums[j] += a[j] * a0 + a[j + 1] * a1 + a[j + 2] * a2 + a[j + 3] * a3 + a[j + 4] * a4
+                + b[j] * b0 + b[j + 1] * b1 + b[j + 2] * b2 + b[j + 3] * b3 + b[j + 4] * b4;
+      }
+    }
+  }
+
+  /**
+   * This class represents a kernel of 5x5 weights that is mirrored left to right and top to
+   * bottom, applied in one pass with nine multiplications instead of twenty-five.
+   */
+  private static final class Symmetric5x5 extends FixedPointKernel {
+    // weights of the top left quarter, including the middle row and column
+    private final int w00;
+    private final int w01;
+    private final int w02;
+    private final int w10;
+    private final int w11;
+    private final int w12;
+    private final int w20;
+    private final int w21;
+    private final int w22;
+
+    private Symmetric5x5(int[][] weights) {
+      this.w00 = weights[0][0];
+      this.w01 = weights[0][1];
+      this.w02 = weights[0][2];
+      this.w10 = weights[1][0];
+      this.w11 = weights[1][1];
+      this.w12 = weights[1][2];
+      this.w20 = weights[2][0];
+      this.w21 = weights[2][1];
+      this.w22 = weights[2][2];
+    }
+
+    @Override
+    void apply(int[][] rows, int[] sums, int width) {
+      int[] r0 = rows[0];
+      int[] r1 = rows[1];
+      int[] r2 = rows[2];
+      int[] r3 = rows[3];
+      int[] r4 = rows[4];
+      for (int j = 0; j < width; j++) {
+        sums[j] = (r0[j] + r0[j + 4] + r4[j] + r4[j + 4]) * this.w00
+                + (r0[j + 1] + r0[j + 3] + r4[j + 1] + r4[j + 3]) * this.w01
+                + (r0[j + 2] + r4[j + 2]) * this.w02
+                + (r1[j] + r1[j + 4] + r3[j] + r3[j + 4]) * this.w10
+                + (r1[j + 1] + r1[j + 3] + r3[j + 1] + r3[j + 3]) * this.w11
+                + (r1[j + 2] + r3[j + 2]) * this.w12
+                + (r2[j] + r2[j + 4]) * this.w20
+                + (r2[j + 1] + r2[j + 3]) * this.w21
+                + r2[j + 2] * this.w22;
+      }
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package model.macros;
+
+import model.Image;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * This class represents a filter kernel that is applied with fast Fourier transforms, which takes
+ * a number of steps per pixel that grows with the logarithm of the kernel size instead of its
+ * square. The output is cut into square tiles. Every tile is computed from the block of the source
+ * under it, extended by the kernel on every side, so that tiles do not depend on each other and
+ * pixels beyond the edges take the value of the nearest edge pixel as with direct filtering.
+ *
+ * <p>Red and green are transformed together as the real and imaginary parts of one complex block,
+ * as the kernel is real. Results match direct filtering in double arithmetic up to rounding, so a
+ * channel may differ by one where the exact result is very close to a whole number.
+ */
+final class FourierFilter {
+  // smallest transform size, below which transforms cost more than they save
+  private static final int MIN_TRANSFORM_SIZE = 32;
+
+  private final int size;
+  private final int transformSize;
+  private final int tileSize;
+  // transform of the kernel, placed so that multiplying by it filters instead of convolving
+  private final double[] kernelRe;
+  private final double[] kernelIm;
+  private final double[] cos;
+  private final double[] sin;
+  private final int[] reversed;
+
+  /**
+   * Constructor that computes the transform of the given kernel.
+   *
+   * @param kernel an odd square filter kernel
+   */
+  FourierFilter(double[][] kernel) {
+    this.size = kernel.length;
+    // about four kernels wide, so that most of every transformed block is output
+    this.transformSize = max(MIN_TRANSFORM_SIZE, Integer.highestOneBit(4 * this.size - 1) << 1);
+    this.tileSize = this.transformSize - this.size + 1;
+    int n = this.transformSize;
+    this.cos = new double[n / 2];
+    this.sin = new double[n / 2];
+    for (int k = 0; k < n / 2; k++) {
+      this.cos[k] = Math.cos(2 * Math.PI * k / n);
+      this.sin[k] = Math.sin(2 * Math.PI * k / n);
+    }
+    this.reversed = new int[n];
+    int bits = Integer.numberOfTrailingZeros(n);
+    for (int i = 0; i < n; i++) {
+      this.reversed[i] = Integer.reverse(i) >>> (32 - bits);
+    }
+    this.kernelRe = new double[n * n];
+    this.kernelIm = new double[n * n];
+    // the weight of the tap k, l after the pixel goes k, l before it, and the inverse transform
+    // is scaled by 1 / n^2 here once instead of on every tile
+    for (int k = 0; k < this.size; k++) {
+      for (int l = 0; l < this.size; l++) {
+        this.kernelRe[(n - k) % n * n + (n - l) % n] = kernel[k][l] / ((double) n * n);
+      }
+    }
+    this.transform(this.kernelRe, this.kernelIm, false);
+  }
+
+  /**
+   * Returns the number of rows and columns of the tiles that the output is cut into.
+   *
+   * @return tile size
+   */
+  int getTileSize() {
+    return this.tileSize;
+  }
+
+  /**
+   * Filters the given rows of the source image into the same rows of the destination image.
+   *
+   * @param srcImage  image to read from
+   * @param destImage image of the same size to write to
+   * @param fromRow   first row to filter
+   * @param toRow     row after the last row to filter
+   */
+  void filter(Image srcImage, Image destImage, int fromRow, int toRow) {
+    int n = this.transformSize;
+    int offset = this.size / 2;
+    int width = srcImage.getWidth();
+    int height = srcImage.getHeight();
+    int[] block = new int[n * n];
+    int[] destBlock = new int[this.tileSize * this.tileSize];
+    double[] redGreenRe = new double[n * n];
+    double[] redGreenIm = new double[n * n];
+    double[] blueRe = new double[n * n];
+    double[] blueIm = new double[n * n];
+    for (int top = fromRow; top < toRow; top += this.tileSize) {
+      int tileHeight = min(this.tileSize, toRow - top);
+      int firstRow = max(0, top - offset);
+      int rows = min(height - 1, top + tileHeight - 1 + offset) - firstRow + 1;
+      for (int left = 0; left < width; left += this.tileSize) {
+        int tileWidth = min(this.tileSize, width - left);
+        int firstCol = max(0, left - offset);
+        int cols = min(width - 1, left + tileWidth - 1 + offset) - firstCol + 1;
+        srcImage.getRGB(firstRow, firstCol, cols, rows, block, 0, cols);
+        // only the block under the tile is read back, so the rest may hold an earlier tile
+        for (int a = 0; a < tileHeight + this.size - 1; a++) {
+          int row = min(rows - 1, max(0, top - offset + a - firstRow));
+          for (int b = 0; b < tileWidth + this.size - 1; b++) {
+            int rgb = block[row * cols + min(cols - 1, max(0, left - offset + b - firstCol))];
+            redGreenRe[a * n + b] = (rgb >> 16) & 0xFF;
+            redGreenIm[a * n + b] = (rgb >> 8) & 0xFF;
+            blueRe[a * n + b] = rgb & 0xFF;
+            blueIm[a * n + b] = 0;
+          }
+        }
+        this.filterBlock(redGreenRe, redGreenIm);
+        this.filterBlock(blueRe, blueIm);
+        for (int a = 0; a < tileHeight; a++) {
+          for (int b = 0; b < tileWidth; b++) {
+            destBlock[a * this.tileSize + b] = (clamp(redGreenRe[a * n + b]) << 16)
+                    | (clamp(redGreenIm[a * n + b]) << 8) | clamp(blueRe[a * n + b]);
+          }
+        }
+        destImage.setRGB(top, left, tileWidth, tileHeight, destBlock, 0, this.tileSize);
+      }
+    }
+  }
+
+  /**
+   * Filters a block of complex values in place by transforming it, multiplying it with the
+   * transform of the kernel and transforming it back.
+   *
+   * @param re real parts of the block
+   * @param im imaginary parts of the block
+   */
+  private void filterBlock(double[] re, double[] im) {
+    this.transform(re, im, false);
+    for (int i = 0; i < re.length; i++) {
+      double real = re[i] * this.kernelRe[i] - im[i] * this.kernelIm[i];
+      im[i] = re[i] * this.kernelIm[i] + im[i] * this.kernelRe[i];
+      re[i] = real;
+    }
+    this.transform(re, im, true);
+  }
+
+  /**
+   * Computes the two-dimensional discrete Fourier transform of a square block in place, one row
+   * and then one column at a time. The inverse transform is not scaled.
+   *
+   * @param re      real parts of the block
+   * @param im      imaginary parts of the block
+   * @param inverse true for the inverse transform, false for the forward transform
+   */
+  private void transform(double[] re, double[] im, boolean inverse) {
+    int n = this.transformSize;
+    for (int i = 0; i < n; i++) {
+      this.transform(re, im, i * n, 1, inverse);
+    }
+    for (int j = 0; j < n; j++) {
+      this.transform(re, im, j, n, inverse);
+    }
+  }
+
+  /**
+   * Computes the discrete Fourier transform of one row or column of a block in place, with the
+   * iterative radix-2 algorithm.
+   *
+   * @param re      real parts of the block
+   * @param im      imaginary parts of the block
+   * @param start   index of the first value
+   * @param stride  distance between consecutive values
+   * @param inverse true for the inverse transform, false for the forward transform
+   */
+  private void transform(double[] re, double[] im, int start, int stride, boolean inverse) {
+    int n = this.transformSize;
+    for (int i = 0; i < n; i++) {
+      int j = this.reversed[i];
+      if (i < j) {
+        int a = start + i * stride;
+        int b = start + j * stride;
+        double swap = re[a];
+        re[a] = re[b];
+        re[b] = swap;
+        swap = im[a];
+        im[a] = im[b];
+        im[b] = swap;
+      }
+    }
+    for (int half = 1; half < n; half <<= 1) {
+      int step = n / (2 * half);
+      for (int first = 0; first < n; first += 2 * half) {
+        for (int k = 0; k < half; k++) {
+          double wr = this.cos[k * step];
+          double wi = inverse ? this.sin[k * step] : -this.sin[k * step];
+          int a = start + (first + k) * stride;
+          int b = a + half * stride;
+          double tr = re[b] * wr - im[b] * wi;
+          double ti = re[b] * wi + im[b] * wr;
+          re[b] = re[a] - tr;
+          im[b] = im[a] - ti;
+          re[a] += tr;
+          im[a] += ti;
+        }
+      }
+    }
+  }
+
+  /**
+   * Converts a filtered value to a channel value, as direct filtering does.
+   *
+   * @param value the filtered value
+   * @return value in the range of a channel
+   */
+  private static int clamp(double value) {
+    return max(0, min(255, (int) value));
+  }
+}
@@ -0,0 +1,221 @@
+package model.macros;
+
+import java.util.Arrays;
+
+import model.Image;
+import model.ImageProcessingModel;
+
+import static java.lang.Math.min;
+
+/**
+ * This class represents a macro that creates an image by blurring it with an approximation of a
+ * Gaussian kernel of any standard deviation. Pixels beyond the edges of the image take the value
+ * of the nearest edge pixel.
+ *
+ * <p>The Gaussian is approximated by three box filters in a row with the same variance. Every box
+ * has a whole number of values on each side of its center and a fractional weight on the next
+ * value on each side, so that any variance can be matched exactly, even below one pixel. Every box
+ * filter keeps a running sum along the line, which adds the value entering the box and subtracts
+ * the value leaving it, so the cost per pixel does not depend on the standard deviation.
+ *
+ * <p>The rows are blurred first and written out transposed, a few rows at a time, so that the
+ * columns are blurred as rows as well. Both passes run on bands of rows in parallel.
+ *
+ * <p>Values between the passes keep eight fraction bits, so that rounding after every box does
+ * not add up. They are kept in two scratch images created by the model, one for the high and one
+ * for the low byte of every value, so that large images are not blurred on the heap.
+ */
+public class GaussianBlurMacro implements ImageProcessingMacro {
+  /**
+   * Largest standard deviation supported, for which the running sums still fit in an int.
+   */
+  public static final int MAX_SIGMA = 10000;
+
+  private static final int FRACTION_BITS = 8;
+  // fraction bits of the weights of the boxes, few enough that sums of them fit in a long
+  private static final int SCALE_BITS = 30;
+  // number of box filters in a row, enough to be close to a Gaussian
+  private static final int BOXES = 3;
+  // fewest lines in a band blurred by one task
+  private static final int MIN_BAND_ROWS = 16;
+  // number of lines blurred before they are written out transposed, so that every write fills
+  // whole cache lines
+  private static final int CHUNK = 16;
+
+  private final double sigma;
+  private final String srcImageName;
+  private final String destImageName;
+
+  /**
+   * Constructor that takes in the standard deviation of the Gaussian, the name of the image to
+   * operate on and the name of the destination image.
+   *
+   * @param sigma         standard deviation of the Gaussian in pixels
+   * @param srcImageName  name of image to operate on
+   * @param destImageName name of destination image
+   */
+  public GaussianBlurMacro(double sigma, String srcImageName, String destImageName) {
+    this.sigma = sigma;
+    this.srcImageName = srcImageName;
+    this.destImageName = destImageName;
+  }
+
+  /**
+   * Creates a blurred image, and adds it to the given model.
+   *
+   * @param model ImageProcessingModel object that stores all the images in the program
+   * @throws IllegalArgumentException if image name could not be found in model or the standard
+   *                                  deviation is not positive or larger than {@link #MAX_SIGMA}
+   */
+  @Override
+  public void execute(ImageProcessingModel model) throws IllegalArgumentException {
+    if (!(this.sigma > 0 && this.sigma <= MAX_SIGMA)) {
+      throw new IllegalArgumentException("Sigma must be positive and at most " + MAX_SIGMA + ".");
+    }
+    Image srcImage = model.getReadOnlyImage(this.srcImageName);
+    int width = srcImage.getWidth();
+    int height = srcImage.getHeight();
+    // the variances of the boxes add up to the variance of the Gaussian
+    double variance = this.sigma * this.sigma / BOXES;
+    // largest box of whole values whose variance is not larger, and the weight of the values
+    // beyond it that makes up for the rest
+    int radius = (int) (Math.sqrt(3 * variance + 0.25) - 0.5);
+    double weight = (2 * radius + 1) * (variance - radius * (radius + 1) / 3.0)
+            / (2 * ((radius + 1) * (radius + 1) - variance));
+    // channels blurred along the rows, stored transposed so that every column is a row; every
+    // pixel holds the high bytes of its three values in one image and the low bytes in the other
+    Image high = model.createImage(height, width);
+    Image low = model.createImage(height, width);
+    // every box reaches one value beyond its radius
+    int pad = BOXES * (radius + 1);
+    RowBands.run(height, MIN_BAND_ROWS, (fromRow, toRow) -> {
+      int[] rgb = new int[width];
+      int[][] temp = new int[2][width + 2 * pad];
+      int[][][] blurred = new int[3][CHUNK][width];
+      int[] highTile = new int[CHUNK * CHUNK];
+      int[] lowTile = new int[CHUNK * CHUNK];
+      for (int top = fromRow; top < toRow; top += CHUNK) {
+        int rows = min(CHUNK, toRow - top);
+        for (int k = 0; k < rows; k++) {
+          srcImage.getRGB(top + k, 0, width, 1, rgb, 0, width);
+          for (int channel = 0; channel < 3; channel++) {
+            int shift = 16 - 8 * channel;
+            for (int j = 0; j < width; j++) {
+              temp[0][pad + j] = ((rgb[j] >> shift) & 0xFF) << FRACTION_BITS;
+            }
+            blurLine(temp, pad, width, radius, weight, blurred[channel][k]);
+          }
+        }
+        // written out in square tiles, so that no buffer grows with the size of the image
+        for (int left = 0; left < width; left += CHUNK) {
+          int cols = min(CHUNK, width - left);
+          for (int l = 0; l < cols; l++) {
+            for (int k = 0; k < rows; k++) {
+              int highRgb = 0;
+              int lowRgb = 0;
+              for (int channel = 0; channel < 3; channel++) {
+                int value = blurred[channel][k][left + l];
+                highRgb = highRgb << 8 | value >> 8;
+                lowRgb = lowRgb << 8 | (value & 0xFF);
+              }
+              highTile[l * rows + k] = highRgb;
+              lowTile[l * rows + k] = lowRgb;
+            }
+          }
+          high.setRGB(left, top, rows, cols, highTile, 0, rows);
+          low.setRGB(left, top, rows, cols, lowTile, 0, rows);
+        }
+      }
+    });
+    Image destImage = model.createImage(width, height);
+    RowBands.run(width, MIN_BAND_ROWS, (fromCol, toCol) -> {
+      int[] highRgb = new int[height];
+      int[] lowRgb = new int[height];
+      int[][] temp = new int[2][height + 2 * pad];
+      int[][][] blurred = new int[3][CHUNK][height];
+      int[] tile = new int[CHUNK * CHUNK];
+      int half = 1 << (FRACTION_BITS - 1);
+      for (int left = fromCol; left < toCol; left += CHUNK) {
+        int cols = min(CHUNK, toCol - left);
+        for (int k = 0; k < cols; k++) {
+          high.getRGB(left + k, 0, height, 1, highRgb, 0, height);
+          low.getRGB(left + k, 0, height, 1, lowRgb, 0, height);
+          for (int channel = 0; channel < 3; channel++) {
+            int shift = 16 - 8 * channel;
+            for (int i = 0; i < height; i++) {
+              temp[0][pad + i] = ((highRgb[i] >> shift) & 0xFF) << 8
+                      | ((lowRgb[i] >> shift) & 0xFF);
+            }
+            blurLine(temp, pad, height, radius, weight, blurred[channel][k]);
+          }
+        }
+        for (int top = 0; top < height; top += CHUNK) {
+          int rows = min(CHUNK, height - top);
+          for (int i = 0; i < rows; i++) {
+            for (int k = 0; k < cols; k++) {
+              tile[i * cols + k] = ((blurred[0][k][top + i] + half) >> FRACTION_BITS << 16)
+                      | ((blurred[1][k][top + i] + half) >> FRACTION_BITS << 8)
+                      | ((blurred[2][k][top + i] + half) >> FRACTION_BITS);
+            }
+          }
+          destImage.setRGB(top, left, cols, rows, tile, 0, cols);
+        }
+      }
+    });
+    model.addImage(this.destImageName, destImage);
+  }
+
+  /**
+   * Blurs a line of values with the box filter three times. The line is first extended on both
+   * sides by its end values, far enough for all three boxes, so that the result is the same as
+   * blurring a line that goes on with its end values.
+   *
+   * @param temp   two arrays for the passes, the first holding the line after the given padding
+   * @param pad    number of values on each side of the line
+   * @param length number of values in the line
+   * @param radius number of whole values on each side of the center of the box
+   * @param weight weight of the value just beyond the box on each side
+   * @param dest   array to write the result to
+   */
+  private static void blurLine(int[][] temp, int pad, int length, int radius, double weight,
+                               int[] dest) {
+    int end = pad + length;
+    Arrays.fill(temp[0], 0, pad, temp[0][pad]);
+    Arrays.fill(temp[0], end, end + pad, temp[0][end - 1]);
+    // every pass leaves out the values whose box would reach beyond the extended line
+    int reach = radius + 1;
+    double total = 2 * radius + 1 + 2 * weight;
+    long inner = Math.round(Math.scalb(1 / total, SCALE_BITS));
+    long outer = Math.round(Math.scalb(weight / total, SCALE_BITS));
+    boxLine(temp[0], reach, end + pad - reach, radius, inner, outer, temp[1], reach);
+    boxLine(temp[1], 2 * reach, end + pad - 2 * reach, radius, inner, outer, temp[0], 2 * reach);
+    boxLine(temp[0], pad, end, radius, inner, outer, dest, 0);
+  }
+
+  /**
+   * Applies a box filter to the given range of values with a running sum. The box around every
+   * value in the range must lie within the source array.
+   *
+   * @param src    array that holds the values
+   * @param from   index of the first value to filter
+   * @param to     index after the last value to filter
+   * @param radius number of whole values on each side of the center of the box
+   * @param inner  weight of the values in the box, scaled by 2 to the power of the scale bits
+   * @param outer  weight of the value just beyond the box on each side, scaled the same way
+   * @param dest   array to write the result to, which is not the source array
+   * @param start  index to write the result for the first value to
+   */
+  private static void boxLine(int[] src, int from, int to, int radius, long inner, long outer,
+                              int[] dest, int start) {
+    long half = 1L << (SCALE_BITS - 1);
+    int sum = 0;
+    for (int t = from - radius; t <= from + radius; t++) {
+      sum += src[t];
+    }
+    for (int j = from; j < to; j++) {
+      int beyond = src[j - radius - 1] + src[j + radius + 1];
+      dest[start + j - from] = (int) ((sum * inner + beyond * outer + half) >> SCALE_BITS);
+      sum += src[j + radius + 1] - src[j - radius];
+    }
+  }
+}
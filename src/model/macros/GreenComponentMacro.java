@@ -33,12 +33,8 @@ public class GreenComponentMacro implements ImageProcessingMacro {
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
     Image destImage = model.getImage(this.srcImageName);
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        int green = destImage.getPixelAt(i, j).getGreen();
-        destImage.setPixelAt(i, j, green, green, green);
-      }
-    }
+    destImage.copyChannel(Image.GREEN, Image.RED);
+    destImage.copyChannel(Image.GREEN, Image.BLUE);
     model.addImage(this.destImageName, destImage);
   }
 }
@@ -1,9 +1,8 @@
 package model.macros;
 
 import model.Image;
-import model.ImageImpl;
 import model.ImageProcessingModel;
-import model.Pixel;
+import model.TransformedImage;
 
 /**
  * This class represents a macro that flips an image horizontally to create a new image.
@@ -32,14 +31,7 @@ public class HorizontalFlipMacro implements ImageProcessingMacro {
    * @throws IllegalArgumentException if image name could not be found in model
    */
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
-    Image origImage = model.getImage(this.srcImageName);
-    Image destImage = new ImageImpl(origImage);
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        Pixel p = origImage.getPixelAt(i, destImage.getWidth() - j - 1);
-        destImage.setPixelAt(i, j, p.getRed(), p.getGreen(), p.getBlue());
-      }
-    }
+    Image destImage = TransformedImage.flipHorizontal(model.getImage(this.srcImageName));
     model.addImage(destImageName, destImage);
   }
 }
@@ -2,7 +2,6 @@ package model.macros;
 
 import model.Image;
 import model.ImageProcessingModel;
-import model.Pixel;
 
 
 /**
@@ -36,13 +35,21 @@ public class IntensityComponentMacro implements ImageProcessingMacro {
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
     Image destImage = model.getImage(this.srcImageName);
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        Pixel p = destImage.getPixelAt(i, j);
-        int intensity = (p.getRed() + p.getGreen() + p.getBlue()) / 3;
-        destImage.setPixelAt(i, j, intensity, intensity, intensity);
-      }
-    }
+    PixelBlocks.apply(destImage, IntensityComponentMacro::toGrey);
     model.addImage(this.destImageName, destImage);
   }
-}
\ No newline at end of file
+
+  /**
+   * Replaces every channel of a range of packed RGB values with the intensity-component.
+   *
+   * @param rgb  packed RGB values
+   * @param from index of the first value to change
+   * @param to   index after the last value to change
+   */
+  private static void toGrey(int[] rgb, int from, int to) {
+    for (int j = from; j < to; j++) {
+      int intensity = (((rgb[j] >> 16) & 0xFF) + ((rgb[j] >> 8) & 0xFF) + (rgb[j] & 0xFF)) / 3;
+      rgb[j] = (intensity << 16) | (intensity << 8) | intensity;
+    }
+  }
+}
@@ -1,6 +1,5 @@
 package model.macros;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
@@ -10,9 +9,9 @@ import java.util.Scanner;
 
 import javax.imageio.ImageIO;
 
-import model.ImageImpl;
+import model.Image;
+import model.ImageBackend;
 import model.ImageProcessingModel;
-import model.Pixel;
 
 /**
  * This class represents a macro that loads an image from the specified path.
@@ -21,9 +20,11 @@ public class LoadMacro implements ImageProcessingMacro {
 
   private final String srcPath;
   private final String destImageName;
+  private final ImageBackend backend;
 
   /**
-   * Constructor that takes in the path of the image and the name to refer to the image.
+   * Constructor that takes in the path of the image and the name to refer to the image. The image
+   * is loaded into the storage layout that the model chooses for its size.
    *
    * @param srcPath       path of image to load
    * @param destImageName name to refer to image
@@ -31,6 +32,26 @@ public class LoadMacro implements ImageProcessingMacro {
   public LoadMacro(String srcPath, String destImageName) {
     this.srcPath = srcPath;
     this.destImageName = destImageName;
+    this.backend = null;
+  }
+
+  /**
+   * Constructor that takes in the path of the image, the name to refer to the image and the
+   * storage layout to load the image into.
+   *
+   * @param srcPath       path of image to load
+   * @param destImageName name to refer to image
+   * @param backend       storage layout to load the image into
+   * @throws IllegalArgumentException if backend is null
+   */
+  public LoadMacro(String srcPath, String destImageName, ImageBackend backend)
+          throws IllegalArgumentException {
+    if (backend == null) {
+      throw new IllegalArgumentException("Backend is null.");
+    }
+    this.srcPath = srcPath;
+    this.destImageName = destImageName;
+    this.backend = backend;
   }
 
   /**
@@ -41,7 +62,7 @@ public class LoadMacro implements ImageProcessingMacro {
    */
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
-    Pixel[][] image;
+    Image image;
     if (this.srcPath.endsWith(".ppm")) {
       Scanner sc;
       try {
@@ -65,14 +86,19 @@ public class LoadMacro implements ImageProcessingMacro {
       int width = sc.nextInt();
       int height = sc.nextInt();
       int maxVal = sc.nextInt();
-      image = new Pixel[height][width];
+      image = this.createImage(model, width, height);
+      int[] row = new int[width];
       for (int i = 0; i < height; i++) {
         for (int j = 0; j < width; j++) {
           int r = sc.nextInt();
           int g = sc.nextInt();
           int b = sc.nextInt();
-          image[i][j] = new Pixel(r, g, b);
+          if (r < 0 || r > 255 || g < 0 || g > 255 || b < 0 || b > 255) {
+            throw new IllegalArgumentException("RGB values must be in the range 0-255");
+          }
+          row[j] = (r << 16) | (g << 8) | b;
         }
+        image.setRow(i, row);
       }
     } else {
       File file = new File(this.srcPath);
@@ -82,14 +108,29 @@ public class LoadMacro implements ImageProcessingMacro {
       } catch (IOException e) {
         throw new IllegalArgumentException("Unable to read image: " + this.srcPath);
       }
-      image = new Pixel[buffImg.getHeight()][buffImg.getWidth()];
+      image = this.createImage(model, buffImg.getWidth(), buffImg.getHeight());
+      int[] row = new int[buffImg.getWidth()];
       for (int r = 0; r < buffImg.getHeight(); r++) {
-        for (int c = 0; c < buffImg.getWidth(); c++) {
-          Color color = new Color(buffImg.getRGB(c, r));
-          image[r][c] = new Pixel(color.getRed(), color.getGreen(), color.getBlue());
-        }
+        buffImg.getRGB(0, r, row.length, 1, row, 0, row.length);
+        image.setRow(r, row);
       }
     }
-    model.addImage(this.destImageName, new ImageImpl(image));
+    model.addImage(this.destImageName, image);
+  }
+
+  /**
+   * Creates the image to load pixels into, in the storage layout given to this macro or, if none
+   * was given, the one chosen by the model.
+   *
+   * @param model  ImageProcessingModel object that stores all the images in the program
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @return new black Image object
+   */
+  private Image createImage(ImageProcessingModel model, int width, int height) {
+    if (this.backend == null) {
+      return model.createImage(width, height);
+    }
+    return this.backend.create(width, height);
   }
 }
@@ -2,7 +2,6 @@ package model.macros;
 
 import model.Image;
 import model.ImageProcessingModel;
-import model.Pixel;
 
 /**
  * This class represents a macro that creates a greyscale image with the luma-component of an
@@ -35,15 +34,23 @@ public class LumaComponentMacro implements ImageProcessingMacro {
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
     Image destImage = model.getImage(this.srcImageName);
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        Pixel p = destImage.getPixelAt(i, j);
-        int luma = (int) (0.2126 * p.getRed()
-                + 0.7152 * p.getGreen()
-                + 0.0722 * p.getBlue());
-        destImage.setPixelAt(i, j, luma, luma, luma);
-      }
-    }
+    PixelBlocks.apply(destImage, LumaComponentMacro::toGrey);
     model.addImage(this.destImageName, destImage);
   }
+
+  /**
+   * Replaces every channel of a range of packed RGB values with the luma-component.
+   *
+   * @param rgb  packed RGB values
+   * @param from index of the first value to change
+   * @param to   index after the last value to change
+   */
+  private static void toGrey(int[] rgb, int from, int to) {
+    for (int j = from; j < to; j++) {
+      int luma = (int) (0.2126 * ((rgb[j] >> 16) & 0xFF)
+              + 0.7152 * ((rgb[j] >> 8) & 0xFF)
+              + 0.0722 * (rgb[j] & 0xFF));
+      rgb[j] = (luma << 16) | (luma << 8) | luma;
+    }
+  }
 }
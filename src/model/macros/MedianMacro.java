@@ -0,0 +1,288 @@
+package model.macros;
+
+import java.util.Arrays;
+
+import model.Image;
+import model.ImageProcessingModel;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * This class represents a macro that creates an image by replacing every channel of every pixel
+ * with its median over the square of pixels around it, which removes salt-and-pepper noise while
+ * keeping edges. Pixels beyond the edges of the image take the value of the nearest edge pixel,
+ * as with {@link FilterMacro}.
+ *
+ * <p>Every column keeps a histogram of the channel values in the rows of the square. Moving down a
+ * row removes one value from every column histogram and adds one. The histogram of the square is
+ * the sum of the column histograms under it, and moving right a pixel adds the histogram of the
+ * column entering the square and subtracts the one leaving it. This takes the same number of
+ * steps per pixel for any radius.
+ *
+ * <p>Every histogram also has a coarse version of sixteen values per bin. The median is found by
+ * counting through the coarse histogram of the square and then through the sixteen values of one
+ * bin. Only the coarse histogram of the square moves right with every pixel. The sixteen values of
+ * a bin are brought up to date when the median falls into that bin, which it mostly does for the
+ * same few bins along a row, so most of the histogram of the square is never read.
+ *
+ * <p>Large images are split into bands of rows that are filtered in parallel, each starting its
+ * own column histograms. Every band is at least four times as high as the square, so that starting
+ * the histograms adds the same share to the cost per pixel for any radius.
+ */
+public class MedianMacro implements ImageProcessingMacro {
+  /**
+   * Largest radius supported, for which the counts of the histograms still fit in an int.
+   */
+  public static final int MAX_RADIUS = 10000;
+
+  // number of channel values, and number of values counted together in a coarse bin
+  private static final int BINS = 256;
+  private static final int COARSE_SHIFT = 4;
+  private static final int COARSE_BINS = BINS >> COARSE_SHIFT;
+  // fewest rows in a band filtered by one task, and fewest per row of the square, as every band
+  // starts its column histograms again from all the rows of the square
+  private static final int MIN_BAND_ROWS = 16;
+  private static final int MIN_BAND_ROWS_PER_SQUARE_ROW = 4;
+
+  private final int radius;
+  private final String srcImageName;
+  private final String destImageName;
+
+  /**
+   * Constructor that takes in the radius of the square, the name of the image to operate on and
+   * the name of the destination image.
+   *
+   * @param radius        number of pixels on each side of the center of the square
+   * @param srcImageName  name of image to operate on
+   * @param destImageName name of destination image
+   */
+  public MedianMacro(int radius, String srcImageName, String destImageName) {
+    this.radius = radius;
+    this.srcImageName = srcImageName;
+    this.destImageName = destImageName;
+  }
+
+  /**
+   * Creates a median filtered image, and adds it to the given model.
+   *
+   * @param model ImageProcessingModel object that stores all the images in the program
+   * @throws IllegalArgumentException if image name could not be found in model or the radius is
+   *                                  negative or larger than {@link #MAX_RADIUS}
+   */
+  @Override
+  public void execute(ImageProcessingModel model) throws IllegalArgumentException {
+    if (this.radius < 0 || this.radius > MAX_RADIUS) {
+      throw new IllegalArgumentException("Radius must be from 0 to " + MAX_RADIUS + ".");
+    }
+    Image srcImage = model.getReadOnlyImage(this.srcImageName);
+    Image destImage = model.createImage(srcImage.getWidth(), srcImage.getHeight());
+    int minBandRows = max(MIN_BAND_ROWS, MIN_BAND_ROWS_PER_SQUARE_ROW * (2 * this.radius + 1));
+    RowBands.run(srcImage.getHeight(), minBandRows,
+        (fromRow, toRow) -> this.filterBand(srcImage, destImage, fromRow, toRow));
+    model.addImage(this.destImageName, destImage);
+  }
+
+  /**
+   * Filters the given rows of the source image into the same rows of the destination image.
+   *
+   * @param srcImage  image to read from
+   * @param destImage image of the same size to write to
+   * @param fromRow   first row to filter
+   * @param toRow     row after the last row to filter
+   */
+  private void filterBand(Image srcImage, Image destImage, int fromRow, int toRow) {
+    int width = srcImage.getWidth();
+    int height = srcImage.getHeight();
+    // an image without rows or columns has no edge pixel to read the pixels beyond it from
+    if (width == 0 || height == 0) {
+      return;
+    }
+    int r = this.radius;
+    // histograms of every channel of every column, one after the other
+    int[] columns = new int[width * 3 * BINS];
+    int[] coarseColumns = new int[width * 3 * COARSE_BINS];
+    int[] rgb = new int[width];
+    int[] destRow = new int[width];
+    // rows above and below the image count as many times as they reach beyond it
+    for (int t = max(0, fromRow - r); t <= min(height - 1, fromRow + r); t++) {
+      addRow(srcImage, t, 1, rgb, columns, coarseColumns);
+    }
+    if (fromRow - r < 0) {
+      addRow(srcImage, 0, r - fromRow, rgb, columns, coarseColumns);
+    }
+    if (fromRow + r > height - 1) {
+      addRow(srcImage, height - 1, fromRow + r - height + 1, rgb, columns, coarseColumns);
+    }
+    for (int i = fromRow; i < toRow; i++) {
+      if (i > fromRow) {
+        addRow(srcImage, max(0, i - 1 - r), -1, rgb, columns, coarseColumns);
+        addRow(srcImage, min(height - 1, i + r), 1, rgb, columns, coarseColumns);
+      }
+      this.medianRow(columns, coarseColumns, width, destRow);
+      destImage.setRGB(i, 0, width, 1, destRow, 0, width);
+    }
+  }
+
+  /**
+   * Finds the median of every pixel of a row from the histograms of the columns around it.
+   *
+   * @param columns       histograms of every channel of every column
+   * @param coarseColumns coarse histograms of every channel of every column
+   * @param width         number of columns
+   * @param destRow       array to write the packed RGB medians to
+   */
+  private void medianRow(int[] columns, int[] coarseColumns, int width, int[] destRow) {
+    int r = this.radius;
+    int[] square = new int[3 * BINS];
+    int[] coarseSquare = new int[3 * COARSE_BINS];
+    // column at which every part of the histograms of the square was last brought up to date
+    int[] updated = new int[3 * COARSE_BINS];
+    Arrays.fill(updated, -1);
+    addWindow(coarseColumns, 3 * COARSE_BINS, 0, 3 * COARSE_BINS, 0, width, coarseSquare);
+    // the median is the value with fewer than half of the square below it
+    int half = (2 * r + 1) * (2 * r + 1) / 2;
+    for (int j = 0; j < width; j++) {
+      int rgb = 0;
+      for (int channel = 0; channel < 3; channel++) {
+        int below = 0;
+        int bin = channel * COARSE_BINS;
+        while (below + coarseSquare[bin] <= half) {
+          below += coarseSquare[bin++];
+        }
+        this.update(columns, square, updated, bin, j, width);
+        int value = (bin - channel * COARSE_BINS) << COARSE_SHIFT;
+        int offset = channel * BINS;
+        while (below + square[offset + value] <= half) {
+          below += square[offset + value++];
+        }
+        rgb = rgb << 8 | value;
+      }
+      destRow[j] = rgb;
+      slideColumn(coarseColumns, 3 * COARSE_BINS, 0, 3 * COARSE_BINS,
+              min(j + r + 1, width - 1), max(j - r, 0), coarseSquare);
+    }
+  }
+
+  /**
+   * Brings the part of the histograms of the square under one coarse bin up to date for the
+   * given column, by sliding it over the columns passed since it was last used, or by adding up
+   * the columns of the square again if that takes fewer steps.
+   *
+   * @param columns histograms of every channel of every column
+   * @param square  histograms of the square
+   * @param updated column at which every part was last brought up to date, or -1
+   * @param bin     coarse bin of the part, counting the bins of all channels
+   * @param column  column to bring the part up to date for
+   * @param width   number of columns
+   */
+  private void update(int[] columns, int[] square, int[] updated, int bin, int column,
+                      int width) {
+    int r = this.radius;
+    int last = updated[bin];
+    int offset = bin << COARSE_SHIFT;
+    int length = 1 << COARSE_SHIFT;
+    if (last < 0 || column - last > 2 * r + 1) {
+      Arrays.fill(square, offset, offset + length, 0);
+      addWindow(columns, 3 * BINS, offset, length, column, width, square);
+    } else {
+      for (int p = last + 1; p <= column; p++) {
+        slideColumn(columns, 3 * BINS, offset, length, min(p + r, width - 1),
+                max(p - r - 1, 0), square);
+      }
+    }
+    updated[bin] = column;
+  }
+
+  /**
+   * Adds the values of every channel of a row to the column histograms the given number of times.
+   *
+   * @param image         image to read the row from
+   * @param row           row to add
+   * @param count         number of times to add the row, negative to remove it
+   * @param rgb           array of the width of the image to read the row into
+   * @param columns       histograms of every channel of every column
+   * @param coarseColumns coarse histograms of every channel of every column
+   */
+  private static void addRow(Image image, int row, int count, int[] rgb, int[] columns,
+                             int[] coarseColumns) {
+    image.getRGB(row, 0, rgb.length, 1, rgb, 0, rgb.length);
+    for (int j = 0; j < rgb.length; j++) {
+      for (int channel = 0; channel < 3; channel++) {
+        int value = (rgb[j] >> (16 - 8 * channel)) & 0xFF;
+        columns[(j * 3 + channel) * BINS + value] += count;
+        coarseColumns[(j * 3 + channel) * COARSE_BINS + (value >> COARSE_SHIFT)] += count;
+      }
+    }
+  }
+
+  /**
+   * Adds the given part of the histograms of every column of the square around a column to the
+   * same part of the histograms of the square. Columns left and right of the image count as many
+   * times as they reach beyond it.
+   *
+   * @param columns histograms of every column, one after the other
+   * @param stride  length of the histograms of a column
+   * @param offset  index of the part within the histograms of a column
+   * @param length  length of the part
+   * @param column  center column of the square
+   * @param width   number of columns
+   * @param square  histograms of the square
+   */
+  private void addWindow(int[] columns, int stride, int offset, int length, int column, int width,
+                         int[] square) {
+    int first = column - this.radius;
+    int last = column + this.radius;
+    for (int l = max(0, first); l <= min(width - 1, last); l++) {
+      addColumn(columns, stride, offset, length, l, 1, square);
+    }
+    if (first < 0) {
+      addColumn(columns, stride, offset, length, 0, -first, square);
+    }
+    if (last > width - 1) {
+      addColumn(columns, stride, offset, length, width - 1, last - width + 1, square);
+    }
+  }
+
+  /**
+   * Adds the given part of the histograms of a column to the same part of the histograms of the
+   * square the given number of times.
+   *
+   * @param columns histograms of every column, one after the other
+   * @param stride  length of the histograms of a column
+   * @param offset  index of the part within the histograms of a column
+   * @param length  length of the part
+   * @param column  column to add
+   * @param count   number of times to add the column
+   * @param square  histograms of the square
+   */
+  private static void addColumn(int[] columns, int stride, int offset, int length, int column,
+                                int count, int[] square) {
+    int start = column * stride + offset;
+    for (int k = 0; k < length; k++) {
+      square[offset + k] += count * columns[start + k];
+    }
+  }
+
+  /**
+   * Adds the given part of the histograms of one column to the same part of the histograms of the
+   * square and subtracts that of another column, in one pass that the JIT compiler can turn into
+   * vector instructions.
+   *
+   * @param columns  histograms of every column, one after the other
+   * @param stride   length of the histograms of a column
+   * @param offset   index of the part within the histograms of a column
+   * @param length   length of the part
+   * @param entering column to add
+   * @param leaving  column to subtract
+   * @param square   histograms of the square
+   */
+  private static void slideColumn(int[] columns, int stride, int offset, int length,
+                                  int entering, int leaving, int[] square) {
+    int add = entering * stride + offset;
+    int subtract = leaving * stride + offset;
+    for (int k = 0; k < length; k++) {
+      square[offset + k] += columns[add + k] - columns[subtract + k];
+    }
+  }
+}
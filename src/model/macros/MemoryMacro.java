@@ -0,0 +1,33 @@
+package model.macros;
+
+import java.util.function.Consumer;
+
+import model.ImageProcessingModel;
+
+/**
+ * This class represents a macro that reports the memory used by all the images in the program,
+ * listed by name.
+ */
+public class MemoryMacro implements ImageProcessingMacro {
+
+  private final Consumer<String> output;
+
+  /**
+   * Constructor that takes in where to send the report to.
+   *
+   * @param output receives the report as text, one line per image followed by the total
+   */
+  public MemoryMacro(Consumer<String> output) {
+    this.output = output;
+  }
+
+  /**
+   * Sends the memory report of the given model to the output.
+   *
+   * @param model ImageProcessingModel object that stores all the images in the program
+   */
+  @Override
+  public void execute(ImageProcessingModel model) {
+    this.output.accept(model.getMemoryReport().toString());
+  }
+}
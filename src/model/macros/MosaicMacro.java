@@ -77,7 +77,7 @@ public class MosaicMacro implements ImageProcessingMacro {
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
 
-    Image original = model.getImage(srcImageName);
+    Image original = model.getReadOnlyImage(srcImageName);
     int height = original.getHeight();
     int width = original.getWidth();
 
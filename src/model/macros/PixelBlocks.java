@@ -0,0 +1,55 @@
+package model.macros;
+
+import model.Image;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * This class applies an operation to every pixel of an image in place, one block at a time, in the
+ * block size that the storage of the image prefers. The operation works on a plain array of
+ * packed RGB values, so that its loop over the pixels can be compiled to vector instructions.
+ */
+final class PixelBlocks {
+
+  /**
+   * This interface represents an operation that changes a range of packed RGB values in place.
+   */
+  interface Operation {
+
+    /**
+     * Changes the packed RGB values in the given range of the array.
+     *
+     * @param rgb  packed RGB values
+     * @param from index of the first value to change
+     * @param to   index after the last value to change
+     */
+    void apply(int[] rgb, int from, int to);
+  }
+
+  private PixelBlocks() {
+  }
+
+  /**
+   * Applies the given operation to every pixel of the given image.
+   *
+   * @param image     the image to change
+   * @param operation the operation to apply
+   */
+  static void apply(Image image, Operation operation) {
+    int tileWidth = max(1, min(image.getWidth(), image.getTileWidth()));
+    int tileHeight = max(1, min(image.getHeight(), image.getTileHeight()));
+    int[] block = new int[tileWidth * tileHeight];
+    for (int row = 0; row < image.getHeight(); row += tileHeight) {
+      for (int col = 0; col < image.getWidth(); col += tileWidth) {
+        int w = min(tileWidth, image.getWidth() - col);
+        int h = min(tileHeight, image.getHeight() - row);
+        image.getRGB(row, col, w, h, block, 0, tileWidth);
+        for (int i = 0; i < h; i++) {
+          operation.apply(block, i * tileWidth, i * tileWidth + w);
+        }
+        image.setRGB(row, col, w, h, block, 0, tileWidth);
+      }
+    }
+  }
+}
@@ -31,12 +31,8 @@ public class RedComponentMacro implements ImageProcessingMacro {
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
     Image destImage = model.getImage(this.srcImageName);
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        int red = destImage.getPixelAt(i, j).getRed();
-        destImage.setPixelAt(i, j, red, red, red);
-      }
-    }
+    destImage.copyChannel(Image.RED, Image.GREEN);
+    destImage.copyChannel(Image.RED, Image.BLUE);
     model.addImage(this.destImageName, destImage);
   }
 }
@@ -0,0 +1,34 @@
+package model.macros;
+
+import model.ImageProcessingModel;
+import model.SessionSnapshot;
+
+/**
+ * This class represents a macro that restores the images of a session snapshot file. The pixels
+ * of the images are read from the file when they are first used.
+ */
+public class RestoreMacro implements ImageProcessingMacro {
+
+  private final String srcPath;
+
+  /**
+   * Constructor that takes in the path of the snapshot to restore.
+   *
+   * @param srcPath path of snapshot file
+   */
+  public RestoreMacro(String srcPath) {
+    this.srcPath = srcPath;
+  }
+
+  /**
+   * Adds all the images of the snapshot file to the given model, replacing images with the same
+   * names.
+   *
+   * @param model ImageProcessingModel object that stores all the images in the program
+   * @throws IllegalArgumentException if the snapshot file could not be found or is not valid
+   */
+  @Override
+  public void execute(ImageProcessingModel model) throws IllegalArgumentException {
+    SessionSnapshot.restore(model, this.srcPath);
+  }
+}
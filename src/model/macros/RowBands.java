@@ -0,0 +1,109 @@
+package model.macros;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static java.lang.Math.max;
+
+/**
+ * This class runs work on the rows of an image in bands of rows that are processed in parallel on
+ * a shared fork-join pool. Every band must read only what it needs and write only its own rows,
+ * so that the result is the same as processing all rows on one thread.
+ */
+final class RowBands {
+  // number of bands per thread, so that threads that finish early can take over bands
+  private static final int BANDS_PER_THREAD = 4;
+
+  private static volatile ForkJoinPool pool =
+          new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  /**
+   * This interface represents the work done on a band of rows.
+   */
+  interface Work {
+
+    /**
+     * Processes the given rows.
+     *
+     * @param fromRow first row to process
+     * @param toRow   row after the last row to process
+     */
+    void run(int fromRow, int toRow);
+  }
+
+  private RowBands() {
+  }
+
+  /**
+   * Processes the given number of rows in bands, on the calling thread only if there is a single
+   * thread or a single band.
+   *
+   * @param rows        number of rows
+   * @param minBandRows fewest rows in a band, as every band costs some extra work
+   * @param work        the work to do on every band
+   */
+  static void run(int rows, int minBandRows, Work work) {
+    ForkJoinPool threads = pool;
+    int bandRows = max(minBandRows, rows / (BANDS_PER_THREAD * threads.getParallelism()));
+    if (threads.getParallelism() == 1 || rows <= bandRows) {
+      work.run(0, rows);
+    } else {
+      threads.invoke(new Band(work, 0, rows, bandRows));
+    }
+  }
+
+  /**
+   * Sets the number of threads that process bands. Work that is already running keeps its
+   * threads.
+   *
+   * @param parallelism number of threads, 1 to work on the calling thread only
+   * @throws IllegalArgumentException if parallelism is not positive
+   */
+  static void setParallelism(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive.");
+    }
+    // idle threads of the previous pool end by themselves
+    pool = new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Returns the number of threads that process bands.
+   *
+   * @return number of threads
+   */
+  static int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * This class represents the task of processing a band of rows, which splits itself into two
+   * halves until it has no more rows than a band should have.
+   */
+  private static final class Band extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Work work;
+    private final int fromRow;
+    private final int toRow;
+    private final int bandRows;
+
+    private Band(Work work, int fromRow, int toRow, int bandRows) {
+      this.work = work;
+      this.fromRow = fromRow;
+      this.toRow = toRow;
+      this.bandRows = bandRows;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.toRow - this.fromRow <= this.bandRows) {
+        this.work.run(this.fromRow, this.toRow);
+      } else {
+        int middle = (this.fromRow + this.toRow) >>> 1;
+        invokeAll(new Band(this.work, this.fromRow, middle, this.bandRows),
+                new Band(this.work, middle, this.toRow, this.bandRows));
+      }
+    }
+  }
+}
@@ -1,7 +1,7 @@
 package model.macros;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -12,7 +12,6 @@ import javax.imageio.ImageIO;
 
 import model.Image;
 import model.ImageProcessingModel;
-import model.Pixel;
 
 /**
  * This class represents a macro that saves an Image object to the specified path as a PPM file.
@@ -42,20 +41,21 @@ public class SaveMacro implements ImageProcessingMacro {
    */
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
-    Image image = model.getImage(this.srcImageName);
+    Image image = model.getReadOnlyImage(this.srcImageName);
     if (this.destPath.endsWith(".ppm")) {
       try {
-        FileWriter myWriter = new FileWriter(this.destPath);
+        BufferedWriter myWriter = new BufferedWriter(new FileWriter(this.destPath));
         myWriter.write("P3\n");
         myWriter.write(image.getWidth() + " ");
         myWriter.write(image.getHeight() + "\n");
         myWriter.write("255\n");
+        int[] row = new int[image.getWidth()];
         for (int i = 0; i < image.getHeight(); i++) {
-          for (int j = 0; j < image.getWidth(); j++) {
-            Pixel p = image.getPixelAt(i, j);
-            myWriter.write(p.getRed() + "\n");
-            myWriter.write(p.getGreen() + "\n");
-            myWriter.write(p.getBlue() + "\n");
+          image.getRow(i, row);
+          for (int rgb : row) {
+            myWriter.write(((rgb >> 16) & 0xFF) + "\n");
+            myWriter.write(((rgb >> 8) & 0xFF) + "\n");
+            myWriter.write((rgb & 0xFF) + "\n");
           }
         }
         myWriter.close();
@@ -75,13 +75,10 @@ public class SaveMacro implements ImageProcessingMacro {
       }
       BufferedImage buffImg = new BufferedImage(image.getWidth(), image.getHeight(),
               BufferedImage.TYPE_INT_RGB);
+      int[] row = new int[image.getWidth()];
       for (int r = 0; r < image.getHeight(); r++) {
-        for (int c = 0; c < image.getWidth(); c++) {
-          Pixel p = image.getPixelAt(r, c);
-          Color color = new Color(p.getRed(), p.getGreen(), p.getBlue());
-          int rgb = color.getRGB();
-          buffImg.setRGB(c, r, rgb);
-        }
+        image.getRow(r, row);
+        buffImg.setRGB(0, r, row.length, 1, row, 0, row.length);
       }
       try {
         ImageIO.write(buffImg, extension, new File(this.destPath));
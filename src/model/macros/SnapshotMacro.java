@@ -0,0 +1,33 @@
+package model.macros;
+
+import model.ImageProcessingModel;
+import model.SessionSnapshot;
+
+/**
+ * This class represents a macro that writes all the images in the program to a session snapshot
+ * file, so that they can be restored later without loading and processing them again.
+ */
+public class SnapshotMacro implements ImageProcessingMacro {
+
+  private final String destPath;
+
+  /**
+   * Constructor that takes in the path to write the snapshot to.
+   *
+   * @param destPath path of snapshot file
+   */
+  public SnapshotMacro(String destPath) {
+    this.destPath = destPath;
+  }
+
+  /**
+   * Writes all the images in the given model to the snapshot file.
+   *
+   * @param model ImageProcessingModel object that stores all the images in the program
+   * @throws IllegalArgumentException if the snapshot file could not be written
+   */
+  @Override
+  public void execute(ImageProcessingModel model) throws IllegalArgumentException {
+    SessionSnapshot.write(model, this.destPath);
+  }
+}
@@ -2,7 +2,8 @@ package model.macros;
 
 import model.Image;
 import model.ImageProcessingModel;
-import model.Pixel;
+
+import static java.lang.Math.max;
 
 /**
  * This class represents a macro that creates a greyscale image with the value-component of an
@@ -35,13 +36,21 @@ public class ValueComponentMacro implements ImageProcessingMacro {
   @Override
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
     Image destImage = model.getImage(this.srcImageName);
-    for (int i = 0; i < destImage.getHeight(); i++) {
-      for (int j = 0; j < destImage.getWidth(); j++) {
-        Pixel p = destImage.getPixelAt(i, j);
-        int value = Math.max(p.getRed(), Math.max(p.getGreen(), p.getBlue()));
-        destImage.setPixelAt(i, j, value, value, value);
-      }
-    }
+    PixelBlocks.apply(destImage, ValueComponentMacro::toGrey);
     model.addImage(this.destImageName, destImage);
   }
-}
\ No newline at end of file
+
+  /**
+   * Replaces every channel of a range of packed RGB values with the value-component.
+   *
+   * @param rgb  packed RGB values
+   * @param from index of the first value to change
+   * @param to   index after the last value to change
+   */
+  private static void toGrey(int[] rgb, int from, int to) {
+    for (int j = from; j < to; j++) {
+      int value = max((rgb[j] >> 16) & 0xFF, max((rgb[j] >> 8) & 0xFF, rgb[j] & 0xFF));
+      rgb[j] = (value << 16) | (value << 8) | value;
+    }
+  }
+}
@@ -1,9 +1,8 @@
 package model.macros;
 
 import model.Image;
-import model.ImageImpl;
 import model.ImageProcessingModel;
-import model.Pixel;
+import model.TransformedImage;
 
 /**
  * This class represents a macro that flips an image vertically to create a new image.
@@ -32,14 +31,7 @@ public class VerticalFlipMacro implements ImageProcessingMacro {
    * @throws IllegalArgumentException if image name could not be found in model
    */
   public void execute(ImageProcessingModel model) throws IllegalArgumentException {
-    Image origImage = model.getImage(this.srcImageName);
-    Image destImage = new ImageImpl(origImage);
-    for (int j = 0; j < destImage.getWidth(); j++) {
-      for (int i = 0; i < destImage.getHeight(); i++) {
-        Pixel p = origImage.getPixelAt(destImage.getHeight() - i - 1, j);
-        destImage.setPixelAt(i, j, p.getRed(), p.getGreen(), p.getBlue());
-      }
-    }
+    Image destImage = TransformedImage.flipVertical(model.getImage(this.srcImageName));
     model.addImage(destImageName, destImage);
   }
 }
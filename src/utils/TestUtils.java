@@ -1,6 +1,10 @@
 package utils;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import model.Image;
+import model.PackedImage;
 
 /**
  * This class contains utility methods for testing.
@@ -16,17 +20,35 @@ public class TestUtils {
     if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
       return false;
     }
-    boolean equal = true;
+    int[] expectedRow = new int[expected.getWidth()];
+    int[] actualRow = new int[actual.getWidth()];
     for (int i = 0; i < expected.getHeight(); i++) {
-      for (int j = 0; j < expected.getWidth(); j++) {
-        if (expected.getPixelAt(i, j).getRed() != actual.getPixelAt(i, j).getRed()
-                || expected.getPixelAt(i, j).getGreen() != actual.getPixelAt(i, j).getGreen()
-                || expected.getPixelAt(i, j).getBlue() != actual.getPixelAt(i, j).getBlue()) {
-          equal = false;
-        }
+      expected.getRow(i, expectedRow);
+      actual.getRow(i, actualRow);
+      if (!Arrays.equals(expectedRow, actualRow)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Helper method that creates an image of random pixels, the same for the same seed.
+   *
+   * @param width  width of image in pixels
+   * @param height height of image in pixels
+   * @param seed   seed of the random pixels
+   * @return image of random pixels
+   */
+  public static Image randomImage(int width, int height, long seed) {
+    Random random = new Random(seed);
+    Image image = new PackedImage(width, height);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        image.setPixelAt(i, j, random.nextInt(256), random.nextInt(256), random.nextInt(256));
       }
     }
-    return equal;
+    return image;
   }
 
   /**
@@ -66,6 +66,11 @@ public class ConfirmInputsImageProcessingGuiView implements ImageProcessingGuiVi
     this.log.append("called showErrorMessage\n");
   }
 
+  @Override
+  public void showStatus(String status) {
+    // status updates are not part of the logged interaction
+  }
+
   @Override
   public String getMosaicSeeds() {
     return "5";
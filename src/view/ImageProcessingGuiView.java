@@ -52,5 +52,12 @@ public interface ImageProcessingGuiView {
    */
   void showErrorMessage(String message);
 
+  /**
+   * Displays a line of status information, such as memory usage, in view.
+   *
+   * @param status status line to display
+   */
+  void showStatus(String status);
+
   String getMosaicSeeds();
 }
@@ -26,7 +26,6 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 
 import model.Image;
 import model.ImageHistogramModel;
-import model.Pixel;
 
 /**
  * This class represents a view for the image processing program that generates a graphical user
@@ -43,6 +42,8 @@ public class ImageProcessingGuiViewImpl extends JFrame implements ImageProcessin
   private final HistogramPanel intensityHistogram;
   private final JButton loadButton;
   private final JButton saveButton;
+  private final JButton undoButton;
+  private final JButton redoButton;
   private final JButton blueComponentButton;
   private final JButton blurButton;
   private final JButton brightenButton;
@@ -59,6 +60,7 @@ public class ImageProcessingGuiViewImpl extends JFrame implements ImageProcessin
   private final JButton verticalFlipButton;
 
   private final JButton mosaicButton;
+  private final JLabel statusLabel;
 
   /**
    * Constructor that initializes the components in this GUI view.
@@ -80,10 +82,10 @@ public class ImageProcessingGuiViewImpl extends JFrame implements ImageProcessin
     titlePanel.add(title);
 
     JPanel loadSavePanel = new JPanel();
-    GridLayout loadSavePanelLayout = new GridLayout(1, 2);
-    loadSavePanelLayout.setHgap(150);
+    GridLayout loadSavePanelLayout = new GridLayout(1, 4);
+    loadSavePanelLayout.setHgap(50);
     loadSavePanel.setLayout(loadSavePanelLayout);
-    loadSavePanel.setBorder(BorderFactory.createEmptyBorder(25, 350, 20, 350));
+    loadSavePanel.setBorder(BorderFactory.createEmptyBorder(25, 200, 20, 200));
     loadSavePanel.setPreferredSize(new Dimension(1200, 100));
 
     this.loadButton = new JButton("load");
@@ -94,6 +96,14 @@ public class ImageProcessingGuiViewImpl extends JFrame implements ImageProcessin
     this.saveButton.setFont(new Font("Arial", Font.PLAIN, 30));
     loadSavePanel.add(this.saveButton);
 
+    this.undoButton = new JButton("undo");
+    this.undoButton.setFont(new Font("Arial", Font.PLAIN, 30));
+    loadSavePanel.add(this.undoButton);
+
+    this.redoButton = new JButton("redo");
+    this.redoButton.setFont(new Font("Arial", Font.PLAIN, 30));
+    loadSavePanel.add(this.redoButton);
+
     titlePanel.add(loadSavePanel);
 
     this.add(titlePanel, BorderLayout.PAGE_START);
@@ -177,6 +187,10 @@ public class ImageProcessingGuiViewImpl extends JFrame implements ImageProcessin
 
     this.add(buttonsPanel, BorderLayout.LINE_START);
 
+    this.statusLabel = new JLabel(" ");
+    this.statusLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+    this.add(this.statusLabel, BorderLayout.PAGE_END);
+
     this.pack();
 
   }
@@ -204,6 +218,8 @@ public class ImageProcessingGuiViewImpl extends JFrame implements ImageProcessin
     this.sepiaButton.addActionListener(listener);
     this.loadButton.addActionListener(listener);
     this.saveButton.addActionListener(listener);
+    this.undoButton.addActionListener(listener);
+    this.redoButton.addActionListener(listener);
     this.mosaicButton.addActionListener(listener);
   }
 
@@ -271,13 +287,10 @@ public class ImageProcessingGuiViewImpl extends JFrame implements ImageProcessin
   public void refresh(Image image, ImageHistogramModel model) {
     BufferedImage buffImg = new BufferedImage(image.getWidth(), image.getHeight(),
             BufferedImage.TYPE_INT_RGB);
+    int[] row = new int[image.getWidth()];
     for (int r = 0; r < image.getHeight(); r++) {
-      for (int c = 0; c < image.getWidth(); c++) {
-        Pixel p = image.getPixelAt(r, c);
-        Color color = new Color(p.getRed(), p.getGreen(), p.getBlue());
-        int rgb = color.getRGB();
-        buffImg.setRGB(c, r, rgb);
-      }
+      image.getRow(r, row);
+      buffImg.setRGB(0, r, row.length, 1, row, 0, row.length);
     }
     JLabel imageLabel = new JLabel(new ImageIcon(buffImg));
     this.imagePanel.setViewportView(imageLabel);
@@ -298,4 +311,14 @@ public class ImageProcessingGuiViewImpl extends JFrame implements ImageProcessin
   public void showErrorMessage(String message) {
     JOptionPane.showMessageDialog(this, message);
   }
+
+  /**
+   * Displays a line of status information, such as memory usage, in view.
+   *
+   * @param status status line to display
+   */
+  @Override
+  public void showStatus(String status) {
+    this.statusLabel.setText(status);
+  }
 }
@@ -0,0 +1,73 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.Image;
+import model.ImageBackend;
+import model.ImageProcessingModel;
+import model.ImageProcessingModelImpl;
+import model.PackedImage;
+import model.Pixel;
+import model.macros.ColorTransMacro;
+import model.macros.SepiaMacro;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the ColorTransMacro class, comparing it with transforming every
+ * pixel by itself.
+ */
+public class ColorTransMacroTest {
+
+  @Test
+  public void testSepiaMatchesEveryPixel() {
+    assertTransformMatches(new double[][]{{0.393, 0.769, 0.189}, {0.349, 0.686, 0.168},
+        {0.272, 0.534, 0.131}}, new SepiaMacro("image", "transformed"));
+  }
+
+  @Test
+  public void testExtremeMatricesMatchEveryPixel() {
+    double[][][] matrices = {
+        {{-1, 0, 0}, {0, 1e12, 0}, {0, 0, -1e12}},
+        {{0.5, -0.25, 3}, {Double.NaN, 1, 0}, {Double.POSITIVE_INFINITY, 0, 0}},
+        {{-0.001, 0, 0}, {1.0 / 3, 1.0 / 3, 1.0 / 3}, {0, 0, 0.9999999}}};
+    for (double[][] matrix : matrices) {
+      assertTransformMatches(matrix, new ColorTransMacro(matrix, "image", "transformed") {
+      });
+    }
+  }
+
+  private static void assertTransformMatches(double[][] matrix, ColorTransMacro macro) {
+    Image image = new PackedImage(70, 45);
+    Random random = new Random(7);
+    for (int i = 0; i < image.getHeight(); i++) {
+      for (int j = 0; j < image.getWidth(); j++) {
+        image.setPixelAt(i, j, random.nextInt(256), random.nextInt(256), random.nextInt(256));
+      }
+    }
+    Image expected = new PackedImage(image.getWidth(), image.getHeight());
+    for (int i = 0; i < image.getHeight(); i++) {
+      for (int j = 0; j < image.getWidth(); j++) {
+        Pixel pixel = image.getPixelAt(i, j);
+        double[] rgb = {pixel.getRed(), pixel.getGreen(), pixel.getBlue()};
+        int[] transformed = new int[3];
+        for (int k = 0; k < 3; k++) {
+          double comp = 0;
+          for (int l = 0; l < 3; l++) {
+            comp += rgb[l] * matrix[k][l];
+          }
+          transformed[k] = (int) Math.max(0, Math.min(255, comp));
+        }
+        expected.setPixelAt(i, j, transformed[0], transformed[1], transformed[2]);
+      }
+    }
+    for (ImageBackend backend : ImageBackend.values()) {
+      ImageProcessingModel model = new ImageProcessingModelImpl(backend);
+      model.addImage("image", image);
+      macro.execute(model);
+      assertTrue(backend.toString(), TestUtils.equalsImages(expected,
+              model.getImage("transformed")));
+    }
+  }
+}
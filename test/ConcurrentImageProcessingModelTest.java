@@ -0,0 +1,196 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import controller.ImageProcessingTextController;
+import model.ConcurrentImageProcessingModel;
+import model.Image;
+import model.ImageBackend;
+import model.ImageProcessingModel;
+import model.ImageProcessingModelImpl;
+import model.PackedImage;
+import model.macros.BlurMacro;
+import model.macros.BrightenMacro;
+import model.macros.GreyscaleMacro;
+import model.macros.HorizontalFlipMacro;
+import model.macros.ImageProcessingMacro;
+import model.macros.LumaComponentMacro;
+import model.macros.SepiaMacro;
+import model.macros.SharpenMacro;
+import model.macros.VerticalFlipMacro;
+import utils.TestUtils;
+import view.ImageProcessingTextViewImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the ConcurrentImageProcessingModel class.
+ */
+public class ConcurrentImageProcessingModelTest {
+
+  private static final int THREADS = 8;
+
+  private ConcurrentImageProcessingModel model;
+  private Image image;
+
+  @Before
+  public void setup() {
+    this.model = new ConcurrentImageProcessingModel();
+    this.image = new PackedImage(37, 23);
+    Random random = new Random(11);
+    for (int i = 0; i < this.image.getHeight(); i++) {
+      for (int j = 0; j < this.image.getWidth(); j++) {
+        this.image.setPixelAt(i, j, random.nextInt(256), random.nextInt(256),
+                random.nextInt(256));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetImageNotFoundFails() {
+    this.model.getImage("missing");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddNullImageFails() {
+    this.model.addImage("image", null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddNullNameFails() {
+    this.model.addImage(null, this.image);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullBackendFails() {
+    new ConcurrentImageProcessingModel(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRunExclusivelyNullActionFails() {
+    this.model.runExclusively(null, "image");
+  }
+
+  @Test
+  public void testGetImageReturnsSnapshot() {
+    Image original = new PackedImage(this.image);
+    this.model.addImage("image", this.image);
+    Image snapshot = this.model.getImage("image");
+    snapshot.setPixelAt(0, 0, 0, 0, 0);
+    this.image.setPixelAt(0, 1, 0, 0, 0);
+    assertTrue(TestUtils.equalsImages(original, this.model.getReadOnlyImage("image")));
+  }
+
+  @Test
+  public void testMemoryReportCountsSharedPixelsOnce() {
+    this.model.addImage("a", this.image);
+    this.model.addImage("b", this.model.getImage("a"));
+    assertEquals(2, this.model.getMemoryReport().getImages().size());
+    assertEquals(16 + 4 * 37 * 23, this.model.getMemoryReport().getTotalBytes());
+  }
+
+  @Test
+  public void testParallelMacrosMatchSequentialResults() throws Exception {
+    List<BiFunction<String, String, ImageProcessingMacro>> macros = new ArrayList<>();
+    macros.add(BlurMacro::new);
+    macros.add(SharpenMacro::new);
+    macros.add(GreyscaleMacro::new);
+    macros.add(SepiaMacro::new);
+    macros.add(LumaComponentMacro::new);
+    macros.add(HorizontalFlipMacro::new);
+    macros.add(VerticalFlipMacro::new);
+    macros.add((src, dest) -> new BrightenMacro(40, src, dest));
+
+    for (ImageBackend backend : ImageBackend.values()) {
+      ImageProcessingModel sequential = new ImageProcessingModelImpl(backend);
+      sequential.addImage("src", this.image);
+      for (int m = 0; m < macros.size(); m++) {
+        macros.get(m).apply("src", "out" + m).execute(sequential);
+        macros.get(m).apply("out" + m, "again" + m).execute(sequential);
+      }
+
+      ConcurrentImageProcessingModel parallel = new ConcurrentImageProcessingModel(backend);
+      parallel.addImage("src", this.image);
+      ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+      List<Future<?>> results = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        int thread = t;
+        results.add(pool.submit(() -> {
+          for (int i = 0; i < 20; i++) {
+            int m = (thread + i) % macros.size();
+            // every thread writes the same names, and reads names other threads write
+            macros.get(m).apply("src", "out" + m).execute(parallel);
+            macros.get(m).apply("out" + m, "again" + m).execute(parallel);
+            assertTrue(TestUtils.equalsImages(this.image, parallel.getReadOnlyImage("src")));
+          }
+        }));
+      }
+      pool.shutdown();
+      assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+      for (Future<?> result : results) {
+        result.get();
+      }
+
+      assertTrue(TestUtils.equalsImages(this.image, parallel.getImage("src")));
+      for (int m = 0; m < macros.size(); m++) {
+        assertTrue(backend + " out" + m, TestUtils.equalsImages(
+                sequential.getImage("out" + m), parallel.getImage("out" + m)));
+        assertTrue(backend + " again" + m, TestUtils.equalsImages(
+                sequential.getImage("again" + m), parallel.getImage("again" + m)));
+      }
+    }
+  }
+
+  @Test
+  public void testExclusiveUpdatesAreNotLost() throws Exception {
+    this.model.addImage("counter", new PackedImage(2, 2));
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> results = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      results.add(pool.submit(() -> {
+        for (int i = 0; i < 25; i++) {
+          this.model.runExclusively(
+              () -> new BrightenMacro(1, "counter", "counter").execute(this.model), "counter");
+        }
+      }));
+    }
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+    for (Future<?> result : results) {
+      result.get();
+    }
+    assertEquals(THREADS * 25, this.model.getImage("counter").getPixelAt(1, 1).getRed());
+  }
+
+  @Test
+  public void testTextControllersDoNotLoseUpdates() throws Exception {
+    this.model.addImage("counter", new PackedImage(2, 2));
+    StringBuilder script = new StringBuilder();
+    for (int i = 0; i < 25; i++) {
+      script.append("brighten 1 counter counter\n");
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> results = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      results.add(pool.submit(() -> new ImageProcessingTextController(this.model,
+              new ImageProcessingTextViewImpl(new StringBuilder()),
+              new StringReader(script.toString())).runController()));
+    }
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+    for (Future<?> result : results) {
+      result.get();
+    }
+    assertEquals(THREADS * 25, this.model.getImage("counter").getPixelAt(1, 1).getRed());
+  }
+}
@@ -0,0 +1,84 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.CopyOnWriteImage;
+import model.Image;
+import model.ImageImpl;
+import model.Pixel;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the CopyOnWriteImage class.
+ */
+public class CopyOnWriteImageTest {
+  private Image original;
+  private CopyOnWriteImage image;
+
+  @Before
+  public void setup() {
+    this.original = new ImageImpl(new Pixel[][]{{new Pixel(10, 20, 30), new Pixel(1, 2, 3)},
+        {new Pixel(40, 50, 60), new Pixel(4, 5, 6)}});
+    this.image = new CopyOnWriteImage(this.original);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullImageFails() {
+    new CopyOnWriteImage(null);
+  }
+
+  @Test
+  public void testConstructorCopiesImage() {
+    assertTrue(TestUtils.equalsImages(this.original, this.image));
+    this.original.setPixelAt(0, 0, 0, 0, 0);
+    assertEquals(10, this.image.getPixelAt(0, 0).getRed());
+  }
+
+  @Test
+  public void testCopySharesStorage() {
+    Image copy = this.image.copy();
+    assertTrue(this.image.sharesStorageWith(copy));
+    assertTrue(this.image.sharesStorageWith(new CopyOnWriteImage(this.image)));
+    assertFalse(this.image.sharesStorageWith(this.original));
+    assertTrue(TestUtils.equalsImages(this.image, copy));
+  }
+
+  @Test
+  public void testWriteToCopyDoesNotAffectOriginal() {
+    Image copy = this.image.copy();
+    copy.setPixelAt(0, 0, 7, 8, 9);
+    assertFalse(this.image.sharesStorageWith(copy));
+    assertEquals(7, copy.getPixelAt(0, 0).getRed());
+    assertEquals(10, this.image.getPixelAt(0, 0).getRed());
+    assertEquals(40, copy.getPixelAt(1, 0).getRed());
+  }
+
+  @Test
+  public void testWriteToOriginalDoesNotAffectCopy() {
+    Image copy = this.image.copy();
+    this.image.setRow(1, new int[]{0x0A0B0C, 0x0D0E0F});
+    this.image.copyChannel(Image.RED, Image.BLUE);
+    this.image.applyLookupTable(Image.GREEN, new int[256]);
+    this.image.setChannel(Image.RED, 0, 0, 1, 1, new byte[]{99}, 0, 1);
+    assertEquals(99, this.image.getPixelAt(0, 0).getRed());
+    assertEquals(10, this.image.getPixelAt(0, 0).getBlue());
+    assertEquals(0, this.image.getPixelAt(1, 1).getGreen());
+    assertEquals(10, copy.getPixelAt(0, 0).getRed());
+    assertEquals(50, copy.getPixelAt(1, 0).getGreen());
+    assertEquals(30, copy.getPixelAt(0, 0).getBlue());
+  }
+
+  @Test
+  public void testUnsharedImageIsWrittenInPlace() {
+    Image copy = this.image.copy();
+    copy.setPixelAt(0, 0, 7, 8, 9);
+    Image again = copy.copy();
+    again.setPixelAt(0, 1, 1, 1, 1);
+    assertEquals(2, copy.getPixelAt(0, 1).getGreen());
+    copy.setPixelAt(1, 1, 0, 0, 0);
+    assertEquals(6, again.getPixelAt(1, 1).getBlue());
+  }
+}
@@ -0,0 +1,466 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+import model.Image;
+import model.ImageProcessingModel;
+import model.ImageProcessingModelImpl;
+import model.PackedImage;
+import model.Pixel;
+import model.macros.BlurMacro;
+import model.macros.CustomFilterMacro;
+import model.macros.FilterMacro;
+import model.macros.LoadMacro;
+import model.macros.SharpenMacro;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the FilterMacro class, comparing every way of applying a kernel
+ * with applying the whole kernel to every pixel.
+ */
+public class FilterMacroTest {
+
+  private ImageProcessingModel model;
+  private Image image;
+
+  @Before
+  public void setup() {
+    this.model = new ImageProcessingModelImpl();
+    this.image = TestUtils.randomImage(37, 23, 5);
+    this.model.addImage("image", this.image);
+  }
+
+  @Test
+  public void testBlurMatchesWholeKernel() {
+    new BlurMacro("image", "blur").execute(this.model);
+    assertTrue(TestUtils.equalsImages(convolve(this.image, new double[][]{
+        {1.0 / 16, 1.0 / 8, 1.0 / 16}, {1.0 / 8, 1.0 / 4, 1.0 / 8},
+        {1.0 / 16, 1.0 / 8, 1.0 / 16}}), this.model.getImage("blur")));
+  }
+
+  @Test
+  public void testSharpenMatchesWholeKernel() {
+    double[][] kernel = new double[5][5];
+    for (int k = 0; k < 5; k++) {
+      for (int l = 0; l < 5; l++) {
+        kernel[k][l] = k % 4 == 0 || l % 4 == 0 ? -1.0 / 8 : 1.0 / 4;
+      }
+    }
+    kernel[2][2] = 1;
+    new SharpenMacro("image", "sharpen").execute(this.model);
+    assertTrue(TestUtils.equalsImages(convolve(this.image, kernel),
+            this.model.getImage("sharpen")));
+  }
+
+  @Test
+  public void testSeparableKernelsMatchWholeKernel() {
+    double[][] rows = {{1, 4, 6, 4, 1}, {-1, 0, 1}, {0.5, -3, 0.25, 2, 0.5, -3, 0.25},
+        {1.0 / 3, 1.0 / 3, 1.0 / 3}, {0.1, 0.8, 0.1}, {3}};
+    for (double[] row : rows) {
+      for (double[] column : rows) {
+        if (row.length == column.length) {
+          double[][] kernel = new double[row.length][row.length];
+          for (int k = 0; k < row.length; k++) {
+            for (int l = 0; l < row.length; l++) {
+              kernel[k][l] = column[k] * row[l] / 64;
+            }
+          }
+          assertFilterMatches(kernel);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testExactKernelsBelowFourierSizeMatchExactly() {
+    int size = FilterMacro.FOURIER_MIN_FIXED_POINT_SIZE - 2;
+    double[][] kernel = new double[size][size];
+    Random random = new Random(31);
+    for (int k = 0; k < size; k++) {
+      for (int l = 0; l < size; l++) {
+        // sums of few weights in sixteenths are often whole, where rounding would show
+        kernel[k][l] = random.nextInt(8) == 0 ? (random.nextInt(5) - 1) / 16.0 : 0;
+      }
+    }
+    assertFilterMatches(kernel);
+  }
+
+  @Test
+  public void testKernelLargerThanImageMatchesWholeKernel() {
+    this.image = TestUtils.randomImage(3, 2, 11);
+    this.model.addImage("image", this.image);
+    double[][] kernel = new double[9][9];
+    for (int k = 0; k < 9; k++) {
+      for (int l = 0; l < 9; l++) {
+        kernel[k][l] = (k + 1) * (9 - l) / 1024.0;
+      }
+    }
+    assertFilterMatches(kernel);
+  }
+
+  @Test
+  public void testImagesAroundKernelWidthMatchWholeKernel() {
+    double[][] kernel = new double[7][7];
+    Random random = new Random(17);
+    for (int k = 0; k < 7; k++) {
+      for (int l = 0; l < 7; l++) {
+        kernel[k][l] = random.nextDouble() / 10 - 0.02;
+      }
+    }
+    for (int width = 1; width <= 9; width++) {
+      this.image = TestUtils.randomImage(width, 4, width);
+      this.model.addImage("image", this.image);
+      assertFilterMatches(kernel);
+    }
+  }
+
+  @Test
+  public void testUnevenWeightsMatchWholeKernel() {
+    assertFilterMatches(new double[][]{{0.3, -0.7, 0.05}, {1.1, 0.2, -0.4}, {0, 0.6, 0.1}});
+    assertFilterMatches(new double[][]{{1e300, 0, 0}, {0, 1, 0}, {0, 0, 1e-300}});
+  }
+
+  @Test
+  public void testSpecializedKernelsMatchWholeKernel() {
+    Random random = new Random(23);
+    for (int size = 1; size <= 7; size += 2) {
+      // no mirroring, left to right, top to bottom and both, each with and without many zeros
+      for (int symmetry = 0; symmetry < 8; symmetry++) {
+        double[][] kernel = new double[size][size];
+        for (int k = 0; k < size; k++) {
+          for (int l = 0; l < size; l++) {
+            boolean zero = symmetry >= 4 && random.nextInt(3) > 0;
+            kernel[k][l] = zero ? 0 : (random.nextInt(81) - 30) / 256.0;
+          }
+        }
+        for (int k = 0; k < size; k++) {
+          for (int l = 0; l < size; l++) {
+            if ((symmetry & 1) != 0) {
+              kernel[k][size - 1 - l] = kernel[k][l];
+            }
+            if ((symmetry & 2) != 0) {
+              kernel[size - 1 - k][l] = kernel[k][l];
+            }
+          }
+        }
+        assertFilterMatches(kernel);
+        // the same weights in double arithmetic
+        kernel[size / 2][size / 2] += 0.1;
+        assertFilterMatches(kernel);
+      }
+    }
+  }
+
+  @Test
+  public void testEmptyImagesStayEmpty() {
+    double[][] uneven = new double[13][13];
+    for (int k = 0; k < 13; k++) {
+      for (int l = 0; l < 13; l++) {
+        uneven[k][l] = Math.sin(k * 13 + l) / 50;
+      }
+    }
+    for (int[] size : new int[][]{{5, 0}, {0, 5}, {0, 0}}) {
+      this.image = new PackedImage(size[0], size[1]);
+      this.model.addImage("image", this.image);
+      new BlurMacro("image", "blur").execute(this.model);
+      new SharpenMacro("image", "sharpen").execute(this.model);
+      assertFilterMatches(new double[][]{{0.3, -0.7, 0.05}, {1.1, 0.2, -0.4}, {0, 0.6, 0.1}});
+      assertFilterMatches(uneven);
+      assertEquals(size[0], this.model.getImage("sharpen").getWidth());
+      assertEquals(size[1], this.model.getImage("sharpen").getHeight());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeFixedPointShiftFails() {
+    new FilterMacro(new double[][]{{1}}, -1, "image", "filtered") {
+    };
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooLargeFixedPointShiftFails() {
+    new FilterMacro(new double[][]{{1}}, 31, "image", "filtered") {
+    };
+  }
+
+  @Test
+  public void testFixedPointMatchesDoubleArithmeticOnResImages() {
+    double[][] blur = {{1.0 / 16, 1.0 / 8, 1.0 / 16}, {1.0 / 8, 1.0 / 4, 1.0 / 8},
+        {1.0 / 16, 1.0 / 8, 1.0 / 16}};
+    double[][] sharpen = new double[5][5];
+    double[][] edges = new double[5][5];
+    for (int k = 0; k < 5; k++) {
+      for (int l = 0; l < 5; l++) {
+        sharpen[k][l] = k % 4 == 0 || l % 4 == 0 ? -1.0 / 8 : 1.0 / 4;
+        edges[k][l] = (k * 5 + l) % 7 / 32.0 - 3.0 / 32;
+      }
+    }
+    sharpen[2][2] = 1;
+    for (String file : new String[]{"res/1.jpg", "res/1x2000.jpg", "res/test.ppm",
+        "res/testMos.jpg"}) {
+      new LoadMacro(file, "image").execute(this.model);
+      for (double[][] kernel : new double[][][]{blur, sharpen, edges}) {
+        // none of these weights is a whole number, so a shift of 0 filters in double arithmetic
+        new FilterMacro(kernel, 0, "image", "double") {
+        }.execute(this.model);
+        new FilterMacro(kernel, 8, "image", "fixed") {
+        }.execute(this.model);
+        assertTrue(file, TestUtils.equalsImages(this.model.getImage("double"),
+                this.model.getImage("fixed")));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroParallelismFails() {
+    FilterMacro.setParallelism(0);
+  }
+
+  @Test
+  public void testParallelFilteringMatchesOneThread() {
+    this.image = TestUtils.randomImage(61, 301, 23);
+    this.model.addImage("image", this.image);
+    double[][] separable = new double[5][5];
+    double[][] fixed = new double[5][5];
+    double[][] uneven = new double[5][5];
+    for (int k = 0; k < 5; k++) {
+      for (int l = 0; l < 5; l++) {
+        separable[k][l] = (k + 1) * (l + 2) / 256.0;
+        fixed[k][l] = (k * 3 + l) % 5 / 16.0 - 0.1875;
+        uneven[k][l] = Math.sin(k * 5 + l) / 7;
+      }
+    }
+    int parallelism = FilterMacro.getParallelism();
+    try {
+      for (double[][] kernel : new double[][][]{separable, fixed, uneven}) {
+        FilterMacro.setParallelism(1);
+        new FilterMacro(kernel, "image", "one") {
+        }.execute(this.model);
+        FilterMacro.setParallelism(7);
+        new FilterMacro(kernel, "image", "seven") {
+        }.execute(this.model);
+        assertTrue(TestUtils.equalsImages(this.model.getImage("one"),
+                this.model.getImage("seven")));
+        assertTrue(TestUtils.equalsImages(convolve(this.image, kernel),
+                this.model.getImage("seven")));
+      }
+    } finally {
+      FilterMacro.setParallelism(parallelism);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeBlockWidthFails() {
+    FilterMacro.setBlockWidth(-1);
+  }
+
+  @Test
+  public void testBlocksMatchWholeRows() {
+    this.image = TestUtils.randomImage(61, 41, 31);
+    this.model.addImage("image", this.image);
+    double[][] separable = new double[5][5];
+    double[][] fixed = new double[5][5];
+    double[][] uneven = new double[5][5];
+    for (int k = 0; k < 5; k++) {
+      for (int l = 0; l < 5; l++) {
+        separable[k][l] = (k + 1) * (l + 2) / 256.0;
+        fixed[k][l] = (k * 3 + l) % 5 / 16.0 - 0.1875;
+        uneven[k][l] = Math.sin(k * 5 + l) / 7;
+      }
+    }
+    int blockWidth = FilterMacro.getBlockWidth();
+    int parallelism = FilterMacro.getParallelism();
+    try {
+      FilterMacro.setParallelism(3);
+      // blocks narrower than the kernel, blocks that leave a narrow last block, and one block
+      for (int columns : new int[]{1, 2, 7, 60, 61, Integer.MAX_VALUE}) {
+        FilterMacro.setBlockWidth(columns);
+        for (double[][] kernel : new double[][][]{separable, fixed, uneven}) {
+          assertFilterMatches(kernel);
+        }
+      }
+    } finally {
+      FilterMacro.setBlockWidth(blockWidth);
+      FilterMacro.setParallelism(parallelism);
+    }
+  }
+
+  @Test
+  public void testRingKernelsMatchWholeKernel() {
+    this.image = TestUtils.randomImage(61, 41, 37);
+    this.model.addImage("image", this.image);
+    Random random = new Random(41);
+    int blockWidth = FilterMacro.getBlockWidth();
+    int parallelism = FilterMacro.getParallelism();
+    try {
+      FilterMacro.setParallelism(3);
+      // sizes from the smallest applied as boxes to one that would otherwise use transforms
+      for (int size : new int[]{5, 7, 9, FilterMacro.FOURIER_MIN_FIXED_POINT_SIZE + 2}) {
+        int offset = size / 2;
+        double[] rings = new double[offset + 1];
+        for (int r = 0; r <= offset; r++) {
+          rings[r] = random.nextInt(3) == 0 ? 0 : (random.nextInt(41) - 20) / 512.0;
+        }
+        double[][] kernel = new double[size][size];
+        for (int k = 0; k < size; k++) {
+          for (int l = 0; l < size; l++) {
+            kernel[k][l] = rings[Math.max(Math.abs(k - offset), Math.abs(l - offset))];
+          }
+        }
+        for (int columns : new int[]{1, 3, 60, Integer.MAX_VALUE}) {
+          FilterMacro.setBlockWidth(columns);
+          assertFilterMatches(kernel);
+        }
+      }
+    } finally {
+      FilterMacro.setBlockWidth(blockWidth);
+      FilterMacro.setParallelism(parallelism);
+    }
+  }
+
+  @Test
+  public void testSharpenMatchesDoubleArithmetic() {
+    double[][] kernel = new double[5][5];
+    for (int k = 0; k < 5; k++) {
+      for (int l = 0; l < 5; l++) {
+        kernel[k][l] = k % 4 == 0 || l % 4 == 0 ? -1.0 / 8 : 1.0 / 4;
+      }
+    }
+    kernel[2][2] = 1;
+    for (int width = 1; width <= 9; width++) {
+      this.image = TestUtils.randomImage(width, 7, width);
+      this.model.addImage("image", this.image);
+      new SharpenMacro("image", "sharpen").execute(this.model);
+      // a shift of 0 leaves the fractional weights in double arithmetic
+      new FilterMacro(kernel, 0, "image", "double") {
+      }.execute(this.model);
+      assertTrue(TestUtils.equalsImages(this.model.getImage("double"),
+              this.model.getImage("sharpen")));
+    }
+  }
+
+  @Test
+  public void testLargeKernelsMatchWholeKernelUpToRounding() {
+    Random random = new Random(29);
+    int parallelism = FilterMacro.getParallelism();
+    try {
+      for (int size : new int[]{FilterMacro.FOURIER_MIN_SIZE, 15, 31}) {
+        double[][] kernel = new double[size][size];
+        for (int k = 0; k < size; k++) {
+          for (int l = 0; l < size; l++) {
+            kernel[k][l] = (random.nextDouble() * 3 - 1) / (size * size);
+          }
+        }
+        // one block, a kernel larger than the image, and many tiles split over bands
+        for (Image image : new Image[]{this.image, TestUtils.randomImage(3, 2, size),
+            TestUtils.randomImage(157, 211, size)}) {
+          this.model.addImage("image", image);
+          for (int threads : new int[]{1, 7}) {
+            FilterMacro.setParallelism(threads);
+            new FilterMacro(kernel, "image", "filtered") {
+            }.execute(this.model);
+            assertWithinRounding(convolve(image, kernel), this.model.getImage("filtered"));
+          }
+        }
+      }
+    } finally {
+      FilterMacro.setParallelism(parallelism);
+    }
+  }
+
+  @Test
+  public void testKernelFileMatchesFilterMacro() throws IOException {
+    File file = File.createTempFile("kernel", ".txt");
+    file.deleteOnExit();
+    try (Writer writer = new FileWriter(file)) {
+      writer.write("# uneven weights\n0.3 -0.7  0.05\n\n1.1 0.2 -0.4\n  0 0.6 0.1\n");
+    }
+    new CustomFilterMacro(file.getPath(), "image", "loaded").execute(this.model);
+    new FilterMacro(new double[][]{{0.3, -0.7, 0.05}, {1.1, 0.2, -0.4}, {0, 0.6, 0.1}},
+            "image", "filtered") {
+    }.execute(this.model);
+    assertTrue(TestUtils.equalsImages(this.model.getImage("filtered"),
+            this.model.getImage("loaded")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingKernelFileFails() {
+    new CustomFilterMacro("res/missing-kernel.txt", "image", "filtered").execute(this.model);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidKernelFileFails() throws IOException {
+    File file = File.createTempFile("kernel", ".txt");
+    file.deleteOnExit();
+    try (Writer writer = new FileWriter(file)) {
+      writer.write("1 0 0\n0 one 0\n0 0 1\n");
+    }
+    new CustomFilterMacro(file.getPath(), "image", "filtered").execute(this.model);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonSquareKernelFileFails() throws IOException {
+    File file = File.createTempFile("kernel", ".txt");
+    file.deleteOnExit();
+    try (Writer writer = new FileWriter(file)) {
+      writer.write("1 0 0\n0 1 0\n");
+    }
+    new CustomFilterMacro(file.getPath(), "image", "filtered").execute(this.model);
+  }
+
+  private void assertFilterMatches(double[][] kernel) {
+    new FilterMacro(kernel, "image", "filtered") {
+    }.execute(this.model);
+    assertTrue(TestUtils.equalsImages(convolve(this.image, kernel),
+            this.model.getImage("filtered")));
+  }
+
+  private static void assertWithinRounding(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int i = 0; i < expected.getHeight(); i++) {
+      for (int j = 0; j < expected.getWidth(); j++) {
+        Pixel a = expected.getPixelAt(i, j);
+        Pixel b = actual.getPixelAt(i, j);
+        assertTrue(i + ", " + j, Math.abs(a.getRed() - b.getRed()) <= 1
+                && Math.abs(a.getGreen() - b.getGreen()) <= 1
+                && Math.abs(a.getBlue() - b.getBlue()) <= 1);
+      }
+    }
+  }
+
+  // applies every weight of the kernel to every pixel, clamping positions to the edges
+  private static Image convolve(Image image, double[][] kernel) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int offset = kernel.length / 2;
+    Image result = new PackedImage(width, height);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        double red = 0;
+        double green = 0;
+        double blue = 0;
+        for (int k = 0; k < kernel.length; k++) {
+          for (int l = 0; l < kernel.length; l++) {
+            Pixel pixel = image.getPixelAt(Math.min(height - 1, Math.max(0, i - offset + k)),
+                    Math.min(width - 1, Math.max(0, j - offset + l)));
+            red += pixel.getRed() * kernel[k][l];
+            green += pixel.getGreen() * kernel[k][l];
+            blue += pixel.getBlue() * kernel[k][l];
+          }
+        }
+        result.setPixelAt(i, j, (int) Math.max(0, Math.min(255, red)),
+                (int) Math.max(0, Math.min(255, green)), (int) Math.max(0, Math.min(255, blue)));
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,148 @@
+import org.junit.Test;
+
+import model.Image;
+import model.ImageBackend;
+import model.ImageProcessingModel;
+import model.ImageProcessingModelImpl;
+import model.PackedImage;
+import model.Pixel;
+import model.macros.FilterMacro;
+import model.macros.GaussianBlurMacro;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * This class contains tests for the GaussianBlurMacro class, comparing it with applying a
+ * Gaussian kernel to every pixel.
+ */
+public class GaussianBlurMacroTest {
+
+  @Test
+  public void testMatchesGaussianKernel() {
+    // below one pixel a sampled Gaussian no longer has the variance of its standard deviation
+    for (double sigma : new double[]{1, 2.5, 8}) {
+      for (Image image : new Image[]{TestUtils.randomImage(64, 48, 3),
+          TestUtils.randomImage(3, 2, 4), TestUtils.randomImage(1, 9, 5)}) {
+        Image expected = gaussian(image, sigma);
+        for (ImageBackend backend : ImageBackend.values()) {
+          ImageProcessingModel model = new ImageProcessingModelImpl(backend);
+          model.addImage("image", image);
+          new GaussianBlurMacro(sigma, "image", "blurred").execute(model);
+          assertWithin(3, expected, model.getImage("blurred"));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testUniformImageStaysUniform() {
+    Image image = new PackedImage(40, 30);
+    for (int i = 0; i < image.getHeight(); i++) {
+      for (int j = 0; j < image.getWidth(); j++) {
+        image.setPixelAt(i, j, 255, 7, 130);
+      }
+    }
+    ImageProcessingModel model = new ImageProcessingModelImpl();
+    model.addImage("image", image);
+    for (double sigma : new double[]{0.01, 1.5, 100, GaussianBlurMacro.MAX_SIGMA}) {
+      new GaussianBlurMacro(sigma, "image", "blurred").execute(model);
+      assertTrue(TestUtils.equalsImages(image, model.getImage("blurred")));
+    }
+  }
+
+  @Test
+  public void testParallelBlurMatchesOneThread() {
+    ImageProcessingModel model = new ImageProcessingModelImpl();
+    model.addImage("image", TestUtils.randomImage(211, 157, 9));
+    int parallelism = FilterMacro.getParallelism();
+    try {
+      FilterMacro.setParallelism(1);
+      new GaussianBlurMacro(4.2, "image", "one").execute(model);
+      FilterMacro.setParallelism(7);
+      new GaussianBlurMacro(4.2, "image", "seven").execute(model);
+    } finally {
+      FilterMacro.setParallelism(parallelism);
+    }
+    assertTrue(TestUtils.equalsImages(model.getImage("one"), model.getImage("seven")));
+  }
+
+  @Test
+  public void testEveryBackendBlursTheSame() {
+    Image image = TestUtils.randomImage(53, 37, 11);
+    ImageProcessingModel model = new ImageProcessingModelImpl();
+    model.addImage("image", image);
+    new GaussianBlurMacro(3.7, "image", "blurred").execute(model);
+    for (ImageBackend backend : ImageBackend.values()) {
+      // a threshold of 0 keeps the scratch images of the blur off the heap as well
+      ImageProcessingModel other = new ImageProcessingModelImpl(backend, 0);
+      other.addImage("image", image);
+      new GaussianBlurMacro(3.7, "image", "blurred").execute(other);
+      assertTrue(backend.toString(), TestUtils.equalsImages(model.getImage("blurred"),
+              other.getImage("blurred")));
+    }
+  }
+
+  @Test
+  public void testInvalidSigmaFails() {
+    ImageProcessingModel model = new ImageProcessingModelImpl();
+    model.addImage("image", TestUtils.randomImage(5, 5, 1));
+    for (double sigma : new double[]{0, -1, Double.NaN, GaussianBlurMacro.MAX_SIGMA + 1,
+        Double.POSITIVE_INFINITY}) {
+      try {
+        new GaussianBlurMacro(sigma, "image", "blurred").execute(model);
+        fail("sigma " + sigma);
+      } catch (IllegalArgumentException e) {
+        assertEquals("Sigma must be positive and at most 10000.", e.getMessage());
+      }
+    }
+  }
+
+  private static void assertWithin(int tolerance, Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int i = 0; i < expected.getHeight(); i++) {
+      for (int j = 0; j < expected.getWidth(); j++) {
+        Pixel a = expected.getPixelAt(i, j);
+        Pixel b = actual.getPixelAt(i, j);
+        assertTrue(i + ", " + j, Math.abs(a.getRed() - b.getRed()) <= tolerance
+                && Math.abs(a.getGreen() - b.getGreen()) <= tolerance
+                && Math.abs(a.getBlue() - b.getBlue()) <= tolerance);
+      }
+    }
+  }
+
+  // applies a Gaussian kernel reaching four standard deviations, clamping positions to the edges
+  private static Image gaussian(Image image, double sigma) {
+    int radius = (int) Math.ceil(4 * sigma);
+    double[] weights = new double[2 * radius + 1];
+    double total = 0;
+    for (int k = -radius; k <= radius; k++) {
+      weights[k + radius] = Math.exp(-k * k / (2 * sigma * sigma));
+      total += weights[k + radius];
+    }
+    int height = image.getHeight();
+    int width = image.getWidth();
+    Image result = new PackedImage(width, height);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        double[] rgb = new double[3];
+        for (int k = -radius; k <= radius; k++) {
+          for (int l = -radius; l <= radius; l++) {
+            Pixel pixel = image.getPixelAt(Math.min(height - 1, Math.max(0, i + k)),
+                    Math.min(width - 1, Math.max(0, j + l)));
+            double weight = weights[k + radius] * weights[l + radius] / (total * total);
+            rgb[0] += pixel.getRed() * weight;
+            rgb[1] += pixel.getGreen() * weight;
+            rgb[2] += pixel.getBlue() * weight;
+          }
+        }
+        result.setPixelAt(i, j, (int) Math.round(rgb[0]), (int) Math.round(rgb[1]),
+                (int) Math.round(rgb[2]));
+      }
+    }
+    return result;
+  }
+}
@@ -4,7 +4,9 @@ import org.junit.Test;
 import model.Image;
 import model.ImageHistogramModel;
 import model.ImageImpl;
+import model.PackedImage;
 import model.Pixel;
+import model.ReadOnlyImage;
 
 import static org.junit.Assert.assertEquals;
 
@@ -61,4 +63,13 @@ public class ImageHistogramModelTest {
       assertEquals(expectedCounts[i], actualCounts[i]);
     }
   }
+
+  @Test
+  public void testReadOnlyImageIsNotChangedLater() {
+    Image image = new PackedImage(2, 1);
+    ImageHistogramModel histogram = new ImageHistogramModel(new ReadOnlyImage(image));
+    image.setPixelAt(0, 0, 5, 5, 5);
+    assertEquals(2, histogram.getRedHistogram()[0]);
+    assertEquals(0, histogram.getRedHistogram()[5]);
+  }
 }
@@ -0,0 +1,173 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.CopyOnWriteImage;
+import model.Image;
+import model.ImageHistory;
+import model.PackedImage;
+import model.TransformedImage;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the ImageHistory class.
+ */
+public class ImageHistoryTest {
+
+  // bytes of one version of the 5x4 image: the array of rows and four rows of five ints
+  private static final long VERSION_BYTES = (16 + 4 * 4) + 4 * (16 + 4 * 5);
+  private static final long ROW_BYTES = 16 + 4 * 5;
+
+  private ImageHistory history;
+  private Image image;
+
+  @Before
+  public void setup() {
+    this.history = new ImageHistory();
+    this.image = new PackedImage(5, 4);
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 5; j++) {
+        this.image.setPixelAt(i, j, i * 10, j * 10, i + j);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeLimitFails() {
+    new ImageHistory(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCommitNullFails() {
+    this.history.commit(null);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUndoWithoutVersionsFails() {
+    this.history.commit(this.image);
+    this.history.undo();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testGetCurrentOfEmptyHistoryFails() {
+    this.history.getCurrent();
+  }
+
+  @Test
+  public void testUndoAndRedo() {
+    Image first = new PackedImage(this.image);
+    this.history.commit(this.image);
+    this.image.setPixelAt(2, 2, 255, 255, 255);
+    Image second = new PackedImage(this.image);
+    this.history.commit(this.image);
+    assertTrue(this.history.canUndo());
+    assertFalse(this.history.canRedo());
+    assertTrue(TestUtils.equalsImages(first, this.history.undo()));
+    assertTrue(this.history.canRedo());
+    assertTrue(TestUtils.equalsImages(second, this.history.redo()));
+    assertTrue(TestUtils.equalsImages(second, this.history.getCurrent()));
+  }
+
+  @Test
+  public void testCommitAfterUndoDropsRedo() {
+    this.history.commit(this.image);
+    this.image.setPixelAt(0, 0, 1, 1, 1);
+    this.history.commit(this.image);
+    this.history.undo();
+    this.image.setPixelAt(0, 0, 2, 2, 2);
+    this.history.commit(this.image);
+    assertFalse(this.history.canRedo());
+    assertEquals(2, this.history.getVersionCount());
+    assertEquals(2, this.history.getCurrent().getPixelAt(0, 0).getRed());
+  }
+
+  @Test
+  public void testWritingVersionDoesNotChangeHistory() {
+    this.history.commit(this.image);
+    Image current = this.history.getCurrent();
+    current.setPixelAt(1, 1, 0, 0, 0);
+    assertEquals(0, current.getPixelAt(1, 1).getRed());
+    assertTrue(TestUtils.equalsImages(this.image, this.history.getCurrent()));
+  }
+
+  @Test
+  public void testUnchangedRowsAreShared() {
+    this.history.commit(this.image);
+    assertEquals(VERSION_BYTES, this.history.getOwnedBytes());
+    assertEquals(0, this.history.getSharedBytes());
+    this.image.setPixelAt(3, 0, 0, 0, 0);
+    this.history.commit(this.image);
+    // only the changed row and the array of rows are new
+    assertEquals(VERSION_BYTES + (16 + 4 * 4) + ROW_BYTES, this.history.getOwnedBytes());
+    assertEquals(3 * ROW_BYTES, this.history.getSharedBytes());
+  }
+
+  @Test
+  public void testReorderedRowsAreShared() {
+    this.history.commit(this.image);
+    this.history.commit(TransformedImage.flipVertical(this.image));
+    assertEquals(VERSION_BYTES + (16 + 4 * 4), this.history.getOwnedBytes());
+    assertEquals(4 * ROW_BYTES, this.history.getSharedBytes());
+    assertTrue(TestUtils.equalsImages(TransformedImage.flipVertical(this.image),
+            this.history.getCurrent()));
+  }
+
+  @Test
+  public void testMemoryLimitDropsOldestVersions() {
+    ImageHistory limited = new ImageHistory(2 * VERSION_BYTES);
+    for (int v = 0; v < 5; v++) {
+      this.image.applyLookupTable(Image.RED, lookupTable(v));
+      limited.commit(this.image);
+      assertTrue(limited.getOwnedBytes() <= 2 * VERSION_BYTES);
+    }
+    assertEquals(2, limited.getVersionCount());
+    assertTrue(TestUtils.equalsImages(this.image, limited.getCurrent()));
+    limited.undo();
+    assertFalse(limited.canUndo());
+  }
+
+  @Test
+  public void testSharedPixelsAreGivenUpBeforeVersions() {
+    CopyOnWriteImage shared = new CopyOnWriteImage(this.image);
+    long sharedBytes = shared.getMemoryUsage();
+    ImageHistory limited = new ImageHistory(2 * VERSION_BYTES + sharedBytes);
+    Image[] expected = new Image[3];
+    for (int v = 0; v < 3; v++) {
+      shared.applyLookupTable(Image.RED, lookupTable(v));
+      expected[v] = new PackedImage(shared);
+      limited.commit(shared);
+      assertTrue(limited.getOwnedBytes() <= 2 * VERSION_BYTES + sharedBytes);
+    }
+    // the newest version keeps sharing the pixels, the one before it only has its rows left
+    assertEquals(2, limited.getVersionCount());
+    assertTrue(shared.sharesStorageWith(limited.getCurrent()));
+    Image previous = limited.undo();
+    assertFalse(shared.sharesStorageWith(previous));
+    assertTrue(TestUtils.equalsImages(expected[1], previous));
+  }
+
+  @Test
+  public void testCurrentVersionIsKeptAboveLimit() {
+    ImageHistory limited = new ImageHistory(0);
+    limited.commit(this.image);
+    assertEquals(1, limited.getVersionCount());
+    assertTrue(TestUtils.equalsImages(this.image, limited.getCurrent()));
+  }
+
+  @Test
+  public void testSummary() {
+    this.history.commit(this.image);
+    assertEquals("1 version, 0.0 MB owned, 0.0 MB shared", this.history.getSummary());
+  }
+
+  private static int[] lookupTable(int increment) {
+    int[] lut = new int[256];
+    for (int v = 0; v < lut.length; v++) {
+      lut[v] = Math.min(255, v + 1 + increment);
+    }
+    return lut;
+  }
+}
@@ -2,10 +2,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import model.Image;
+import model.ImageBackend;
 import model.ImageImpl;
+import model.PackedImage;
 import model.Pixel;
 import utils.TestUtils;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -52,6 +55,18 @@ public class ImageImplTest {
     new ImageImpl(arr);
   }
 
+  @Test
+  public void testImagesWithoutRowsKeepTheirWidth() {
+    Image image = new ImageImpl(4, 0);
+    assertEquals(4, image.getWidth());
+    assertEquals(0, image.getHeight());
+    Image copy = image.copy();
+    assertEquals(4, copy.getWidth());
+    assertEquals(0, copy.getHeight());
+    assertEquals(4, ImageBackend.PIXEL_ARRAY.create(4, 0).getWidth());
+    assertEquals(4, new ImageImpl(new PackedImage(4, 0)).getWidth());
+  }
+
   @Test
   public void testConstructorPixelArrayWorks() {
     Image image = new ImageImpl(new Pixel[][]{{new Pixel(10, 20, 30)},
@@ -173,4 +188,54 @@ public class ImageImplTest {
     assertEquals(100, actualAfter.getGreen());
     assertEquals(110, actualAfter.getBlue());
   }
+
+  @Test
+  public void testGetAndSetRGBRegionWorks() {
+    Image image = new ImageImpl(3, 2);
+    image.setRGB(0, 1, 2, 2, new int[]{-1, 0xFF0A141E, 0x28323C, -1, 0x465064, 0x010203}, 1, 3);
+    int[] actual = new int[6];
+    image.getRGB(0, 0, 3, 2, actual, 0, 3);
+    assertArrayEquals(new int[]{0, 0x0A141E, 0x28323C, 0, 0x465064, 0x010203}, actual);
+    Pixel p = image.getPixelAt(0, 1);
+    assertEquals(10, p.getRed());
+    assertEquals(20, p.getGreen());
+    assertEquals(30, p.getBlue());
+  }
+
+  @Test
+  public void testGetAndSetRowWorks() {
+    int[] row = new int[1];
+    this.expectedImage.getRow(1, row);
+    assertEquals(0x28323C, row[0]);
+    this.expectedImage.setRow(0, new int[]{0x010203});
+    assertEquals(3, this.expectedImage.getPixelAt(0, 0).getBlue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRGBRegionOutOfBoundsFails() {
+    this.expectedImage.getRGB(1, 0, 1, 2, new int[2], 0, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRGBArrayTooSmallFails() {
+    this.expectedImage.setRGB(0, 0, 1, 2, new int[1], 0, 1);
+  }
+
+  @Test
+  public void testGetAndSetChannelWorks() {
+    byte[] reds = new byte[2];
+    this.expectedImage.getChannel(Image.RED, 0, 0, 1, 2, reds, 0, 1);
+    assertEquals(10, reds[0]);
+    assertEquals(40, reds[1]);
+    this.expectedImage.setChannel(Image.GREEN, 0, 0, 1, 2, new byte[]{(byte) 200, 7}, 0, 1);
+    assertEquals(200, this.expectedImage.getPixelAt(0, 0).getGreen());
+    assertEquals(10, this.expectedImage.getPixelAt(0, 0).getRed());
+    assertEquals(30, this.expectedImage.getPixelAt(0, 0).getBlue());
+    assertEquals(7, this.expectedImage.getPixelAt(1, 0).getGreen());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetChannelInvalidChannelFails() {
+    this.expectedImage.getChannel(3, 0, 0, 1, 1, new byte[1], 0, 1);
+  }
 }
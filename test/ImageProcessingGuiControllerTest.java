@@ -379,4 +379,41 @@ public class ImageProcessingGuiControllerTest {
 
     assertTrue(TestUtils.equalsImages(expected, actual));
   }
+
+  @Test
+  public void undoWithoutHistoryShowsError() {
+    JButton undoButton = new JButton("undo");
+    this.view = new ConfirmInputsImageProcessingGuiView(this.log, undoButton, "test"
+            + "/images/monkeys.png");
+    this.controller = new ImageProcessingGuiController(this.model, this.view);
+    this.controller.runController();
+    undoButton.doClick();
+    undoButton.setText("redo");
+    undoButton.doClick();
+    assertEquals("called makeVisible\ncalled showErrorMessage\ncalled showErrorMessage\n",
+            this.log.toString());
+  }
+
+  @Test
+  public void undoAndRedoButtonsWork() {
+    JButton button = new JButton("load");
+    this.view = new ConfirmInputsImageProcessingGuiView(this.log, button, "test"
+            + "/images/monkeys.png");
+    this.controller = new ImageProcessingGuiController(this.model, this.view);
+    this.controller.runController();
+    button.doClick();
+    Image loaded = this.model.getImage(this.activeImage);
+    button.setText("brighten");
+    button.doClick();
+    Image brightened = this.model.getImage(this.activeImage);
+    button.setText("undo");
+    button.doClick();
+    assertTrue(TestUtils.equalsImages(loaded, this.model.getImage(this.activeImage)));
+    button.setText("redo");
+    button.doClick();
+    assertTrue(TestUtils.equalsImages(brightened, this.model.getImage(this.activeImage)));
+    assertEquals("called makeVisible\ncalled showLoadFileChooser\ncalled refresh\n"
+                    + "called refresh\ncalled refresh\ncalled refresh\n",
+            this.log.toString());
+  }
 }
@@ -1,13 +1,28 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Random;
+
+import model.CopyOnWriteImage;
 import model.Image;
+import model.ImageBackend;
+import model.ImageHistory;
 import model.ImageImpl;
 import model.ImageProcessingModel;
+import model.ImageMemoryUsage;
 import model.ImageProcessingModelImpl;
+import model.MemoryReport;
+import model.PackedImage;
 import model.Pixel;
+import model.TransformedImage;
+import model.macros.GreyscaleMacro;
+import model.macros.RedComponentMacro;
+import utils.TestUtils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * This class contains tests for the ImageProcessingModelImpl class.
@@ -60,4 +75,310 @@ public class ImageProcessingModelImplTest {
     assertEquals(20, actual.getGreen());
     assertEquals(30, actual.getBlue());
   }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullBackendFails() {
+    new ImageProcessingModelImpl(null);
+  }
+
+  @Test
+  public void testEveryBackendStoresSameImage() {
+    for (ImageBackend backend : ImageBackend.values()) {
+      ImageProcessingModel backendModel = new ImageProcessingModelImpl(backend);
+      backendModel.addImage(this.imageName, this.image);
+      Image addedImg = backendModel.getImage(this.imageName);
+      assertEquals(this.image.getHeight(), addedImg.getHeight());
+      assertEquals(this.image.getWidth(), addedImg.getWidth());
+      Pixel actual = addedImg.getPixelAt(1, 0);
+      assertEquals(40, actual.getRed());
+      assertEquals(50, actual.getGreen());
+      assertEquals(60, actual.getBlue());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNegativeThresholdFails() {
+    new ImageProcessingModelImpl(ImageBackend.PACKED, -1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddNullImageFails() {
+    this.model.addImage(this.imageName, null);
+  }
+
+  @Test
+  public void testImagesAboveThresholdAreKeptOffHeap() {
+    ImageProcessingModel thresholdModel = new ImageProcessingModelImpl(ImageBackend.PACKED, 1);
+    thresholdModel.addImage(this.imageName, this.image);
+    Image addedImg = thresholdModel.getImage(this.imageName);
+    assertEquals(ImageBackend.OFF_HEAP, ImageBackend.of(addedImg));
+    assertEquals(60, addedImg.getPixelAt(1, 0).getBlue());
+    assertEquals(ImageBackend.PACKED, ImageBackend.of(thresholdModel.createImage(1, 1)));
+    assertEquals(ImageBackend.OFF_HEAP, ImageBackend.of(thresholdModel.createImage(2, 1)));
+  }
+
+  @Test
+  public void testGetImageSharesPixelsUntilWritten() {
+    this.model.addImage(this.imageName, this.image);
+    CopyOnWriteImage first = (CopyOnWriteImage) this.model.getImage(this.imageName);
+    Image second = this.model.getImage(this.imageName);
+    assertTrue(first.sharesStorageWith(second));
+    first.setPixelAt(0, 0, 1, 1, 1);
+    assertFalse(first.sharesStorageWith(second));
+    this.model.addImage("edited", first);
+    assertTrue(first.sharesStorageWith(this.model.getImage("edited")));
+    assertEquals(10, this.model.getImage(this.imageName).getPixelAt(0, 0).getRed());
+    first.setPixelAt(0, 0, 2, 2, 2);
+    assertEquals(1, this.model.getImage("edited").getPixelAt(0, 0).getRed());
+  }
+
+  @Test
+  public void testMemoryReportListsImagesByName() {
+    this.model.addImage("b", this.image);
+    this.model.addImage("a", new ImageImpl(3, 4));
+    this.model.addImage("b-copy", this.model.getImage("b"));
+    this.model.addImage("b-flipped", TransformedImage.flipVertical(this.model.getImage("b")));
+    MemoryReport report = this.model.getMemoryReport();
+    assertEquals(4, report.getImages().size());
+    ImageMemoryUsage first = report.getImages().get(0);
+    assertEquals("a", first.getName());
+    assertEquals(3, first.getWidth());
+    assertEquals(4, first.getHeight());
+    assertEquals("PACKED", first.getBackend());
+    assertEquals(16 + 4 * 12, first.getBytes());
+    assertEquals("b", report.getImages().get(1).getName());
+    assertEquals("b-flipped", report.getImages().get(3).getName());
+    assertEquals("PACKED view", report.getImages().get(3).getBackend());
+    assertEquals(16 + 4 * 2, report.getImages().get(3).getBytes());
+    // the copy and the view share the pixels of b, which are counted once
+    assertEquals(16 + 4 * 12 + 16 + 4 * 2, report.getTotalBytes());
+    assertEquals("4 images, 0.0 MB", report.getSummary());
+  }
+
+  @Test
+  public void testMemoryUsageOfEveryBackend() {
+    for (ImageBackend backend : ImageBackend.values()) {
+      Image copy = backend.copyOf(this.image);
+      assertTrue(copy.getMemoryUsage() > 0);
+      assertEquals(copy.getMemoryUsage(), new CopyOnWriteImage(copy).getMemoryUsage());
+    }
+    assertEquals(3 * 2, ImageBackend.OFF_HEAP.copyOf(this.image).getMemoryUsage());
+    assertEquals(16 + 3 * (4 + 16 + 2), ImageBackend.PLANAR.copyOf(this.image).getMemoryUsage());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNegativeBudgetFails() {
+    new ImageProcessingModelImpl(ImageBackend.PACKED, 1, -1);
+  }
+
+  @Test
+  public void testLeastRecentlyUsedImagesAreSpilled() {
+    // each 2x1 packed image uses 24 bytes, so two of them fit in the budget
+    ImageProcessingModelImpl budgetModel = new ImageProcessingModelImpl(ImageBackend.PACKED,
+            ImageProcessingModelImpl.DEFAULT_OFF_HEAP_THRESHOLD, 48);
+    budgetModel.addImage("first", this.image);
+    budgetModel.addImage("second", new ImageImpl(1, 2));
+    assertEquals(0, budgetModel.getEvictionCount());
+    budgetModel.getImage("first");
+    // the images differ, so that they are not stored once as duplicates
+    budgetModel.addImage("third", new ImageImpl(new Pixel[][]{{new Pixel(1, 1, 1)},
+        {new Pixel(2, 2, 2)}}));
+    assertEquals(1, budgetModel.getEvictionCount());
+    assertEquals("SPILLED", budgetModel.getMemoryReport().getImages().get(1).getBackend());
+    assertEquals(48, budgetModel.getMemoryReport().getTotalBytes());
+
+    Image reloaded = budgetModel.getImage("second");
+    assertEquals(1, budgetModel.getReloadCount());
+    assertEquals(2, budgetModel.getEvictionCount());
+    assertEquals(0, reloaded.getPixelAt(1, 0).getRed());
+    Image first = budgetModel.getImage("first");
+    assertEquals(2, budgetModel.getReloadCount());
+    assertTrue(TestUtils.equalsImages(this.image, first));
+    assertEquals(60, first.getPixelAt(1, 0).getBlue());
+  }
+
+  @Test
+  public void testReplacingSpilledImageWorks() {
+    ImageProcessingModelImpl budgetModel = new ImageProcessingModelImpl(ImageBackend.PACKED,
+            ImageProcessingModelImpl.DEFAULT_OFF_HEAP_THRESHOLD, 0);
+    budgetModel.addImage("first", this.image);
+    budgetModel.addImage("second", this.image);
+    budgetModel.addImage("first", new ImageImpl(3, 3));
+    assertEquals(3, budgetModel.getImage("first").getWidth());
+    assertEquals(40, budgetModel.getImage("second").getPixelAt(1, 0).getRed());
+  }
+
+  @Test
+  public void testImagesSurviveManySpillsAndReloads() {
+    // room for about two of the images, so that every request spills another one
+    ImageProcessingModelImpl budgetModel = new ImageProcessingModelImpl(ImageBackend.PACKED,
+            ImageProcessingModelImpl.DEFAULT_OFF_HEAP_THRESHOLD, 2 * (16 + 4 * 64));
+    Random random = new Random(7);
+    Image[] expected = new Image[6];
+    for (int n = 0; n < expected.length; n++) {
+      // sizes that differ, so that freed ranges are split and merged again
+      expected[n] = new PackedImage(1 + n, 64 / (1 + n));
+      for (int i = 0; i < expected[n].getHeight(); i++) {
+        for (int j = 0; j < expected[n].getWidth(); j++) {
+          expected[n].setPixelAt(i, j, random.nextInt(256), random.nextInt(256),
+                  random.nextInt(256));
+        }
+      }
+      budgetModel.addImage("image" + n, expected[n]);
+    }
+    for (int step = 0; step < 200; step++) {
+      int n = random.nextInt(expected.length);
+      assertTrue(TestUtils.equalsImages(expected[n], budgetModel.getImage("image" + n)));
+      assertTrue(budgetModel.getMemoryReport().getTotalBytes() <= 2 * (16 + 4 * 64));
+    }
+    assertTrue(budgetModel.getReloadCount() > 100);
+  }
+
+  @Test
+  public void testHistoryVersionsAreCopiedIntoModelStorage() {
+    ImageHistory history = new ImageHistory();
+    history.commit(this.image);
+    ImageProcessingModel planarModel = new ImageProcessingModelImpl(ImageBackend.PLANAR);
+    planarModel.addImage("version", history.getCurrent());
+    assertEquals(ImageBackend.PLANAR, ImageBackend.of(planarModel.getImage("version")));
+    ImageProcessingModel offHeapModel = new ImageProcessingModelImpl(ImageBackend.PACKED, 0);
+    offHeapModel.addImage("version", history.getCurrent());
+    assertEquals(ImageBackend.OFF_HEAP, ImageBackend.of(offHeapModel.getImage("version")));
+    assertTrue(TestUtils.equalsImages(this.image, offHeapModel.getImage("version")));
+  }
+
+  @Test
+  public void testUndoSharesPixelsStoredForVersion() {
+    ImageHistory history = new ImageHistory();
+    this.model.addImage("image", this.image);
+    history.commit(this.model.getImage("image"));
+    CopyOnWriteImage first = (CopyOnWriteImage) this.model.getImage("image");
+    new RedComponentMacro("image", "image").execute(this.model);
+    history.commit(this.model.getImage("image"));
+    CopyOnWriteImage second = (CopyOnWriteImage) this.model.getImage("image");
+    assertFalse(first.sharesStorageWith(second));
+
+    this.model.addImage("image", history.undo());
+    assertTrue(first.sharesStorageWith(this.model.getImage("image")));
+    this.model.addImage("image", history.redo());
+    assertTrue(second.sharesStorageWith(this.model.getImage("image")));
+  }
+
+  @Test
+  public void testViewsOfNewDimensionsAreNotRead() {
+    int[] reads = new int[1];
+    // views keep a copy of their source, which is this image itself so that its reads count
+    Image counted = new PackedImage(3, 2) {
+      @Override
+      public Image copy() {
+        return this;
+      }
+
+      @Override
+      public void getRGB(int row, int col, int width, int height, int[] dest, int offset,
+                         int scansize) {
+        reads[0]++;
+        super.getRGB(row, col, width, height, dest, offset, scansize);
+      }
+    };
+    for (int i = 0; i < 2; i++) {
+      for (int j = 0; j < 3; j++) {
+        counted.setPixelAt(i, j, i * 3 + j, 0, 0);
+      }
+    }
+    ImageProcessingModelImpl dedupModel = new ImageProcessingModelImpl();
+    dedupModel.addImage("flipped", TransformedImage.flipVertical(counted));
+    // replacing the only image of these dimensions has nothing to compare with either
+    dedupModel.addImage("flipped", TransformedImage.flipHorizontal(counted));
+    assertEquals(0, reads[0]);
+    dedupModel.addImage("again", TransformedImage.flipHorizontal(counted));
+    assertEquals(1, dedupModel.getDuplicateCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetReadOnlyImageNotFoundFails() {
+    this.model.getReadOnlyImage("bad-monkeys");
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testReadOnlyImageCannotBeModified() {
+    this.model.addImage(this.imageName, this.image);
+    this.model.getReadOnlyImage(this.imageName).setPixelAt(0, 0, 1, 1, 1);
+  }
+
+  @Test
+  public void testReadOnlyImageSharesPixels() {
+    this.model.addImage(this.imageName, this.image);
+    Image readOnly = this.model.getReadOnlyImage(this.imageName);
+    assertTrue(TestUtils.equalsImages(this.image, readOnly));
+    CopyOnWriteImage copy = (CopyOnWriteImage) readOnly.copy();
+    assertTrue(copy.sharesStorageWith(this.model.getImage(this.imageName)));
+    this.model.addImage("again", readOnly);
+    assertTrue(copy.sharesStorageWith(this.model.getImage("again")));
+    copy.setPixelAt(0, 0, 1, 1, 1);
+    assertEquals(10, readOnly.getPixelAt(0, 0).getRed());
+  }
+
+  @Test
+  public void testIdenticalImagesAreStoredOnce() {
+    ImageProcessingModelImpl dedupModel = new ImageProcessingModelImpl();
+    dedupModel.addImage("first", this.image);
+    dedupModel.addImage("second", new ImageImpl(new Pixel[][]{{new Pixel(10, 20, 30)},
+        {new Pixel(40, 50, 60)}}));
+    assertEquals(1, dedupModel.getDuplicateCount());
+    assertEquals(24, dedupModel.getDuplicateBytesSaved());
+    CopyOnWriteImage first = (CopyOnWriteImage) dedupModel.getImage("first");
+    assertTrue(first.sharesStorageWith(dedupModel.getImage("second")));
+    assertEquals(24, dedupModel.getMemoryReport().getTotalBytes());
+
+    // writing to one name leaves the other unchanged
+    Image changed = dedupModel.getImage("second");
+    changed.setPixelAt(0, 0, 0, 0, 0);
+    dedupModel.addImage("second", changed);
+    assertFalse(first.sharesStorageWith(dedupModel.getImage("second")));
+    assertEquals(10, dedupModel.getImage("first").getPixelAt(0, 0).getRed());
+  }
+
+  @Test
+  public void testSharedCopiesAreNotCountedAsDuplicates() {
+    ImageProcessingModelImpl dedupModel = new ImageProcessingModelImpl();
+    dedupModel.addImage("first", this.image);
+    dedupModel.addImage("second", dedupModel.getImage("first"));
+    assertEquals(0, dedupModel.getDuplicateCount());
+  }
+
+  @Test
+  public void testDuplicatesAreForgottenWhenLastNameIsReplaced() {
+    ImageProcessingModelImpl dedupModel = new ImageProcessingModelImpl();
+    dedupModel.addImage("first", this.image);
+    dedupModel.addImage("second", new ImageImpl(this.image));
+    dedupModel.addImage("first", new ImageImpl(3, 3));
+    dedupModel.addImage("third", new ImageImpl(this.image));
+    assertEquals(2, dedupModel.getDuplicateCount());
+    dedupModel.addImage("second", new ImageImpl(4, 4));
+    dedupModel.addImage("third", new ImageImpl(4, 1));
+    // no name refers to the pixels anymore, so they are stored anew
+    dedupModel.addImage("fourth", new ImageImpl(this.image));
+    assertEquals(2, dedupModel.getDuplicateCount());
+  }
+
+  @Test
+  public void testRedComponentOfGreyImageIsDuplicate() {
+    ImageProcessingModelImpl dedupModel = new ImageProcessingModelImpl();
+    dedupModel.addImage("image", this.image);
+    new GreyscaleMacro("image", "grey").execute(dedupModel);
+    new RedComponentMacro("grey", "red").execute(dedupModel);
+    assertEquals(1, dedupModel.getDuplicateCount());
+    assertTrue(((CopyOnWriteImage) dedupModel.getImage("grey")).sharesStorageWith(
+            dedupModel.getImage("red")));
+  }
+
+  @Test
+  public void testImageNamesIncludeSpilledImages() {
+    ImageProcessingModelImpl budgetModel = new ImageProcessingModelImpl(ImageBackend.PACKED,
+            ImageProcessingModelImpl.DEFAULT_OFF_HEAP_THRESHOLD, 0);
+    budgetModel.addImage("second", this.image);
+    budgetModel.addImage("first", new ImageImpl(3, 3));
+    assertEquals(Arrays.asList("first", "second"), budgetModel.getImageNames());
+  }
 }
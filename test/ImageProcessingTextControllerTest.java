@@ -2,6 +2,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
 
 import controller.ImageProcessingTextController;
@@ -971,6 +972,84 @@ public class ImageProcessingTextControllerTest {
     assertEquals(output[0], output[1]);
   }
 
+  @Test
+  public void memoryReportWorks() {
+    this.model.addImage("small", this.model.createImage(3, 2));
+    String[] output = this.testRun(this.model,
+            prints("Welcome!"),
+            inputs("memory"),
+            prints("small 3x2 PACKED 40 bytes", "total 40 bytes"),
+            prints("Successful memory operation!"),
+            prints("Bye!"));
+    assertEquals(output[0], output[1]);
+  }
+
+  @Test
+  public void snapshotAndRestoreWork() throws IOException {
+    File snapshot = File.createTempFile("session", ".snap");
+    snapshot.deleteOnExit();
+    this.model.addImage("small", this.model.createImage(3, 2));
+    String[] output = this.testRun(this.model,
+            prints("Welcome!"),
+            inputs("snapshot " + snapshot.getPath()),
+            prints("Successful snapshot operation!"),
+            prints("Bye!"));
+    assertEquals(output[0], output[1]);
+
+    ImageProcessingModel restored = new ImageProcessingModelImpl();
+    output = this.testRun(restored,
+            prints("Welcome!"),
+            inputs("restore " + snapshot.getPath()),
+            prints("Successful restore operation!"),
+            inputs("restore " + snapshot.getPath() + "-missing"),
+            prints("File not found: " + snapshot.getPath() + "-missing"),
+            prints("Bye!"));
+    assertEquals(output[0], output[1]);
+    assertTrue(TestUtils.equalsImages(this.model.getImage("small"), restored.getImage("small")));
+  }
+
+  @Test
+  public void gaussianBlurWorks() {
+    this.model.addImage("small", this.model.createImage(3, 2));
+    String[] output = this.testRun(this.model,
+            prints("Welcome!"),
+            inputs("gaussian-blur 2.5 small soft-small"),
+            prints("Successful gaussian-blur operation!"),
+            inputs("gaussian-blur -1 small soft-small"),
+            prints("Sigma must be positive and at most 10000."),
+            prints("Bye!"));
+    assertEquals(output[0], output[1]);
+    assertEquals(2, this.model.getImage("soft-small").getHeight());
+  }
+
+  @Test
+  public void medianWorks() {
+    this.model.addImage("small", this.model.createImage(3, 2));
+    String[] output = this.testRun(this.model,
+            prints("Welcome!"),
+            inputs("median 2 small clean-small"),
+            prints("Successful median operation!"),
+            inputs("median -3 small clean-small"),
+            prints("Radius must be from 0 to 10000."),
+            prints("Bye!"));
+    assertEquals(output[0], output[1]);
+    assertEquals(3, this.model.getImage("clean-small").getWidth());
+  }
+
+  @Test
+  public void filterWorks() {
+    this.model.addImage("small", this.model.createImage(3, 2));
+    String[] output = this.testRun(this.model,
+            prints("Welcome!"),
+            inputs("filter res/emboss.txt small emboss-small"),
+            prints("Successful filter operation!"),
+            inputs("filter res/missing-kernel.txt small emboss-small"),
+            prints("File not found: res/missing-kernel.txt"),
+            prints("Bye!"));
+    assertEquals(output[0], output[1]);
+    assertEquals(3, this.model.getImage("emboss-small").getWidth());
+  }
+
   @Test(expected = IllegalStateException.class)
   public void throwsIOException() {
     ImageProcessingModel badModel = new ImageProcessingModelImpl();
@@ -0,0 +1,146 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import model.Image;
+import model.ImageBackend;
+import model.ImageProcessingModel;
+import model.ImageProcessingModelImpl;
+import model.PackedImage;
+import model.Pixel;
+import model.macros.FilterMacro;
+import model.macros.MedianMacro;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * This class contains tests for the MedianMacro class, comparing it with sorting the square
+ * around every pixel.
+ */
+public class MedianMacroTest {
+
+  @Test
+  public void testMatchesSortedSquares() {
+    for (int radius : new int[]{0, 1, 2, 5}) {
+      // noise moves the median between bins all the time, gradients move it slowly
+      for (Image image : new Image[]{TestUtils.randomImage(37, 23, radius),
+          TestUtils.randomImage(3, 2, 8), TestUtils.randomImage(1, 9, 9), gradientImage(90, 20)}) {
+        Image expected = median(image, radius);
+        for (ImageBackend backend : ImageBackend.values()) {
+          ImageProcessingModel model = new ImageProcessingModelImpl(backend);
+          model.addImage("image", image);
+          new MedianMacro(radius, "image", "median").execute(model);
+          assertTrue(backend + " " + radius,
+                  TestUtils.equalsImages(expected, model.getImage("median")));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRemovesSaltAndPepper() {
+    Image image = new PackedImage(40, 30);
+    Random random = new Random(13);
+    for (int i = 0; i < image.getHeight(); i++) {
+      for (int j = 0; j < image.getWidth(); j++) {
+        int noise = random.nextInt(20);
+        int value = noise == 0 ? 0 : noise == 1 ? 255 : 90;
+        image.setPixelAt(i, j, value, value, value);
+      }
+    }
+    ImageProcessingModel model = new ImageProcessingModelImpl();
+    model.addImage("image", image);
+    new MedianMacro(1, "image", "median").execute(model);
+    Image median = model.getImage("median");
+    for (int i = 0; i < median.getHeight(); i++) {
+      for (int j = 0; j < median.getWidth(); j++) {
+        assertEquals(90, median.getPixelAt(i, j).getGreen());
+      }
+    }
+  }
+
+  @Test
+  public void testParallelMedianMatchesOneThread() {
+    ImageProcessingModel model = new ImageProcessingModelImpl();
+    model.addImage("image", TestUtils.randomImage(61, 301, 23));
+    int parallelism = FilterMacro.getParallelism();
+    try {
+      FilterMacro.setParallelism(1);
+      new MedianMacro(3, "image", "one").execute(model);
+      FilterMacro.setParallelism(7);
+      new MedianMacro(3, "image", "seven").execute(model);
+    } finally {
+      FilterMacro.setParallelism(parallelism);
+    }
+    assertTrue(TestUtils.equalsImages(model.getImage("one"), model.getImage("seven")));
+  }
+
+  @Test
+  public void testEmptyImagesStayEmpty() {
+    ImageProcessingModel model = new ImageProcessingModelImpl();
+    for (int[] size : new int[][]{{5, 0}, {0, 5}, {0, 0}}) {
+      model.addImage("image", new PackedImage(size[0], size[1]));
+      for (int radius : new int[]{0, 1, 3}) {
+        new MedianMacro(radius, "image", "median").execute(model);
+        assertEquals(size[0], model.getImage("median").getWidth());
+        assertEquals(size[1], model.getImage("median").getHeight());
+      }
+    }
+  }
+
+  @Test
+  public void testInvalidRadiusFails() {
+    ImageProcessingModel model = new ImageProcessingModelImpl();
+    model.addImage("image", TestUtils.randomImage(5, 5, 1));
+    for (int radius : new int[]{-1, MedianMacro.MAX_RADIUS + 1, Integer.MIN_VALUE}) {
+      try {
+        new MedianMacro(radius, "image", "median").execute(model);
+        fail("radius " + radius);
+      } catch (IllegalArgumentException e) {
+        assertEquals("Radius must be from 0 to 10000.", e.getMessage());
+      }
+    }
+  }
+
+  private static Image gradientImage(int width, int height) {
+    Image image = new PackedImage(width, height);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        image.setPixelAt(i, j, j * 255 / width, (i * 7 + j) % 256, (j / 3 + i) % 3 * 100);
+      }
+    }
+    return image;
+  }
+
+  // sorts every channel of the square around every pixel, clamping positions to the edges
+  private static Image median(Image image, int radius) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int size = (2 * radius + 1) * (2 * radius + 1);
+    Image result = new PackedImage(width, height);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int[][] values = new int[3][size];
+        int n = 0;
+        for (int k = -radius; k <= radius; k++) {
+          for (int l = -radius; l <= radius; l++) {
+            Pixel pixel = image.getPixelAt(Math.min(height - 1, Math.max(0, i + k)),
+                    Math.min(width - 1, Math.max(0, j + l)));
+            values[0][n] = pixel.getRed();
+            values[1][n] = pixel.getGreen();
+            values[2][n++] = pixel.getBlue();
+          }
+        }
+        for (int[] channel : values) {
+          Arrays.sort(channel);
+        }
+        result.setPixelAt(i, j, values[0][size / 2], values[1][size / 2], values[2][size / 2]);
+      }
+    }
+    return result;
+  }
+}
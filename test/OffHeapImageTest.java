@@ -0,0 +1,114 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.Image;
+import model.ImageImpl;
+import model.OffHeapImage;
+import model.Pixel;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the OffHeapImage class.
+ */
+public class OffHeapImageTest {
+  private Image expectedImage;
+
+  @Before
+  public void setup() {
+    this.expectedImage = new OffHeapImage(new ImageImpl(new Pixel[][]{{
+            new Pixel(10, 20, 30), new Pixel(200, 210, 220)}, {
+            new Pixel(40, 50, 60), new Pixel(70, 80, 90)}}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullImageObjectFails() {
+    Image nullImage = null;
+    new OffHeapImage(nullImage);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNegativeSizeFails() {
+    new OffHeapImage(-4, 2);
+  }
+
+  @Test
+  public void testConstructorSizeIsBlack() {
+    Image image = new OffHeapImage(5, 3);
+    int[] rgb = new int[15];
+    image.getRGB(0, 0, 5, 3, rgb, 0, 5);
+    assertArrayEquals(new int[15], rgb);
+  }
+
+  @Test
+  public void testConstructorImageObjectWorks() {
+    Image copyImage = new OffHeapImage(this.expectedImage);
+    assertTrue(TestUtils.equalsImages(this.expectedImage, copyImage));
+    copyImage.setPixelAt(0, 0, 0, 0, 0);
+    assertEquals(10, this.expectedImage.getPixelAt(0, 0).getRed());
+  }
+
+  @Test
+  public void testGetPixelAtWorks() {
+    Pixel actual = this.expectedImage.getPixelAt(1, 1);
+    assertEquals(70, actual.getRed());
+    assertEquals(80, actual.getGreen());
+    assertEquals(90, actual.getBlue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetPixelAtOutOfBoundsFails() {
+    this.expectedImage.getPixelAt(0, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelAtFailsBlueGreaterThan255() {
+    this.expectedImage.setPixelAt(0, 0, 0, 0, 256);
+  }
+
+  @Test
+  public void testSetPixelAtWorks() {
+    this.expectedImage.setPixelAt(1, 0, 1, 2, 3);
+    Pixel actual = this.expectedImage.getPixelAt(1, 0);
+    assertEquals(1, actual.getRed());
+    assertEquals(2, actual.getGreen());
+    assertEquals(3, actual.getBlue());
+  }
+
+  @Test
+  public void testGetAndSetRGBWorks() {
+    int[] rgb = new int[4];
+    this.expectedImage.getRGB(0, 0, 2, 2, rgb, 0, 2);
+    assertArrayEquals(new int[]{0x0A141E, 0xC8D2DC, 0x28323C, 0x46505A}, rgb);
+    this.expectedImage.setRGB(0, 1, 1, 2, new int[]{0x010203, 0x040506}, 0, 1);
+    assertEquals(2, this.expectedImage.getPixelAt(0, 1).getGreen());
+    assertEquals(6, this.expectedImage.getPixelAt(1, 1).getBlue());
+    assertEquals(40, this.expectedImage.getPixelAt(1, 0).getRed());
+  }
+
+  @Test
+  public void testGetAndSetChannelWorks() {
+    byte[] greens = new byte[2];
+    this.expectedImage.getChannel(Image.GREEN, 0, 1, 1, 2, greens, 0, 1);
+    assertArrayEquals(new byte[]{(byte) 210, 80}, greens);
+    this.expectedImage.setChannel(Image.GREEN, 0, 0, 2, 1, new byte[]{7, 8}, 0, 2);
+    assertEquals(7, this.expectedImage.getPixelAt(0, 0).getGreen());
+    assertEquals(8, this.expectedImage.getPixelAt(0, 1).getGreen());
+    assertEquals(200, this.expectedImage.getPixelAt(0, 1).getRed());
+  }
+
+  @Test
+  public void testApplyLookupTableWorks() {
+    int[] lut = new int[256];
+    for (int v = 0; v < lut.length; v++) {
+      lut[v] = v / 2;
+    }
+    this.expectedImage.applyLookupTable(Image.BLUE, lut);
+    assertEquals(15, this.expectedImage.getPixelAt(0, 0).getBlue());
+    assertEquals(110, this.expectedImage.getPixelAt(0, 1).getBlue());
+    assertEquals(20, this.expectedImage.getPixelAt(0, 0).getGreen());
+  }
+}
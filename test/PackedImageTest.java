@@ -0,0 +1,167 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.Image;
+import model.ImageImpl;
+import model.PackedImage;
+import model.Pixel;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the PackedImage class.
+ */
+public class PackedImageTest {
+  private Image expectedImage;
+
+  @Before
+  public void setup() {
+    this.expectedImage = new PackedImage(new ImageImpl(new Pixel[][]{{
+            new Pixel(10, 20, 30)}, {
+            new Pixel(40, 50, 60)}}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullImageObjectFails() {
+    Image nullImage = null;
+    new PackedImage(nullImage);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNegativeSizeFails() {
+    new PackedImage(-1, 5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorSizeWrappingToZeroFails() {
+    new PackedImage(65536, 65536);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorSizeWrappingNegativeFails() {
+    new PackedImage(46341, 46341);
+  }
+
+  @Test
+  public void testConstructorSizeIsBlack() {
+    Image image = new PackedImage(3, 2);
+    assertEquals(3, image.getWidth());
+    assertEquals(2, image.getHeight());
+    for (int i = 0; i < image.getHeight(); i++) {
+      for (int j = 0; j < image.getWidth(); j++) {
+        assertEquals(0, image.getPixelAt(i, j).getRed());
+        assertEquals(0, image.getPixelAt(i, j).getGreen());
+        assertEquals(0, image.getPixelAt(i, j).getBlue());
+      }
+    }
+  }
+
+  @Test
+  public void testConstructorImageObjectWorks() {
+    Image copyImage = new PackedImage(this.expectedImage);
+    assertTrue(TestUtils.equalsImages(this.expectedImage, copyImage));
+    copyImage.setPixelAt(0, 0, 0, 0, 0);
+    assertEquals(10, this.expectedImage.getPixelAt(0, 0).getRed());
+  }
+
+  @Test
+  public void testGetHeightAndWidthWorks() {
+    assertEquals(2, this.expectedImage.getHeight());
+    assertEquals(1, this.expectedImage.getWidth());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetPixelAtRowOutOfBounds() {
+    this.expectedImage.getPixelAt(2, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetPixelAtColOutOfBounds() {
+    this.expectedImage.getPixelAt(0, -1);
+  }
+
+  @Test
+  public void testGetPixelAtWorks() {
+    Pixel actual = this.expectedImage.getPixelAt(1, 0);
+    assertEquals(40, actual.getRed());
+    assertEquals(50, actual.getGreen());
+    assertEquals(60, actual.getBlue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelAtOutOfBoundsFails() {
+    this.expectedImage.setPixelAt(0, 1, 100, 100, 100);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelAtFailsGreenGreaterThan255() {
+    this.expectedImage.setPixelAt(0, 0, 100, 256, 100);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelAtFailsBlueLessThanZero() {
+    this.expectedImage.setPixelAt(0, 0, 100, 100, -1);
+  }
+
+  @Test
+  public void testSetPixelAtWorks() {
+    this.expectedImage.setPixelAt(0, 0, 255, 0, 128);
+    Pixel actual = this.expectedImage.getPixelAt(0, 0);
+    assertEquals(255, actual.getRed());
+    assertEquals(0, actual.getGreen());
+    assertEquals(128, actual.getBlue());
+  }
+
+  @Test
+  public void testGetAndSetRGBRegionWorks() {
+    Image image = new PackedImage(3, 2);
+    image.setRGB(0, 1, 2, 2, new int[]{-1, 0xFF0A141E, 0x28323C, -1, 0x465064, 0x010203}, 1, 3);
+    int[] actual = new int[6];
+    image.getRGB(0, 0, 3, 2, actual, 0, 3);
+    assertArrayEquals(new int[]{0, 0x0A141E, 0x28323C, 0, 0x465064, 0x010203}, actual);
+    Pixel p = image.getPixelAt(0, 1);
+    assertEquals(10, p.getRed());
+    assertEquals(20, p.getGreen());
+    assertEquals(30, p.getBlue());
+  }
+
+  @Test
+  public void testGetAndSetRowWorks() {
+    int[] row = new int[1];
+    this.expectedImage.getRow(1, row);
+    assertEquals(0x28323C, row[0]);
+    this.expectedImage.setRow(0, new int[]{0x010203});
+    assertEquals(3, this.expectedImage.getPixelAt(0, 0).getBlue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRGBRegionOutOfBoundsFails() {
+    this.expectedImage.getRGB(1, 0, 1, 2, new int[2], 0, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRGBArrayTooSmallFails() {
+    this.expectedImage.setRGB(0, 0, 1, 2, new int[1], 0, 1);
+  }
+
+  @Test
+  public void testGetAndSetChannelWorks() {
+    byte[] reds = new byte[2];
+    this.expectedImage.getChannel(Image.RED, 0, 0, 1, 2, reds, 0, 1);
+    assertEquals(10, reds[0]);
+    assertEquals(40, reds[1]);
+    this.expectedImage.setChannel(Image.GREEN, 0, 0, 1, 2, new byte[]{(byte) 200, 7}, 0, 1);
+    assertEquals(200, this.expectedImage.getPixelAt(0, 0).getGreen());
+    assertEquals(10, this.expectedImage.getPixelAt(0, 0).getRed());
+    assertEquals(30, this.expectedImage.getPixelAt(0, 0).getBlue());
+    assertEquals(7, this.expectedImage.getPixelAt(1, 0).getGreen());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetChannelInvalidChannelFails() {
+    this.expectedImage.getChannel(3, 0, 0, 1, 1, new byte[1], 0, 1);
+  }
+}
@@ -0,0 +1,134 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.Image;
+import model.ImageImpl;
+import model.PlanarImage;
+import model.Pixel;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the PlanarImage class.
+ */
+public class PlanarImageTest {
+  private Image expectedImage;
+
+  @Before
+  public void setup() {
+    this.expectedImage = new PlanarImage(new ImageImpl(new Pixel[][]{{
+            new Pixel(10, 20, 30), new Pixel(200, 210, 220)}, {
+            new Pixel(40, 50, 60), new Pixel(70, 80, 90)}}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullImageObjectFails() {
+    Image nullImage = null;
+    new PlanarImage(nullImage);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNegativeSizeFails() {
+    new PlanarImage(4, -2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorSizeWrappingToZeroFails() {
+    new PlanarImage(65536, 65536);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorSizeWrappingNegativeFails() {
+    new PlanarImage(46341, 46341);
+  }
+
+  @Test
+  public void testConstructorImageObjectWorks() {
+    Image copyImage = new PlanarImage(this.expectedImage);
+    assertTrue(TestUtils.equalsImages(this.expectedImage, copyImage));
+    copyImage.setPixelAt(0, 0, 0, 0, 0);
+    assertEquals(10, this.expectedImage.getPixelAt(0, 0).getRed());
+  }
+
+  @Test
+  public void testGetPixelAtWorks() {
+    Pixel actual = this.expectedImage.getPixelAt(0, 1);
+    assertEquals(200, actual.getRed());
+    assertEquals(210, actual.getGreen());
+    assertEquals(220, actual.getBlue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetPixelAtOutOfBoundsFails() {
+    this.expectedImage.getPixelAt(2, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelAtFailsRedGreaterThan255() {
+    this.expectedImage.setPixelAt(0, 0, 256, 0, 0);
+  }
+
+  @Test
+  public void testGetAndSetRGBWorks() {
+    int[] rgb = new int[4];
+    this.expectedImage.getRGB(0, 0, 2, 2, rgb, 0, 2);
+    assertArrayEquals(new int[]{0x0A141E, 0xC8D2DC, 0x28323C, 0x46505A}, rgb);
+    this.expectedImage.setRGB(1, 1, 1, 1, new int[]{0xFF010203}, 0, 1);
+    Pixel actual = this.expectedImage.getPixelAt(1, 1);
+    assertEquals(1, actual.getRed());
+    assertEquals(2, actual.getGreen());
+    assertEquals(3, actual.getBlue());
+  }
+
+  @Test
+  public void testGetAndSetChannelWorks() {
+    byte[] blues = new byte[4];
+    this.expectedImage.getChannel(Image.BLUE, 0, 0, 2, 2, blues, 0, 2);
+    assertArrayEquals(new byte[]{30, (byte) 220, 60, 90}, blues);
+    this.expectedImage.setChannel(Image.RED, 1, 0, 2, 1, new byte[]{0, 1, 2}, 1, 2);
+    assertEquals(1, this.expectedImage.getPixelAt(1, 0).getRed());
+    assertEquals(2, this.expectedImage.getPixelAt(1, 1).getRed());
+    assertEquals(50, this.expectedImage.getPixelAt(1, 0).getGreen());
+  }
+
+  @Test
+  public void testCopyChannelWorks() {
+    for (Image image : new Image[]{this.expectedImage, new ImageImpl(this.expectedImage)}) {
+      image.copyChannel(Image.GREEN, Image.BLUE);
+      Pixel actual = image.getPixelAt(0, 1);
+      assertEquals(200, actual.getRed());
+      assertEquals(210, actual.getGreen());
+      assertEquals(210, actual.getBlue());
+    }
+  }
+
+  @Test
+  public void testApplyLookupTableWorks() {
+    int[] lut = new int[256];
+    for (int v = 0; v < lut.length; v++) {
+      lut[v] = 255 - v;
+    }
+    for (Image image : new Image[]{this.expectedImage, new ImageImpl(this.expectedImage)}) {
+      image.applyLookupTable(Image.RED, lut);
+      Pixel actual = image.getPixelAt(1, 0);
+      assertEquals(215, actual.getRed());
+      assertEquals(50, actual.getGreen());
+      assertEquals(60, actual.getBlue());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testApplyLookupTableWrongSizeFails() {
+    this.expectedImage.applyLookupTable(Image.RED, new int[255]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testApplyLookupTableValueOutOfRangeFails() {
+    int[] lut = new int[256];
+    lut[3] = 256;
+    this.expectedImage.applyLookupTable(Image.GREEN, lut);
+  }
+}
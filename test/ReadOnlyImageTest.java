@@ -0,0 +1,71 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.Image;
+import model.ImageImpl;
+import model.Pixel;
+import model.ReadOnlyImage;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the ReadOnlyImage class.
+ */
+public class ReadOnlyImageTest {
+  private Image original;
+  private Image image;
+
+  @Before
+  public void setup() {
+    this.original = new ImageImpl(new Pixel[][]{{new Pixel(10, 20, 30), new Pixel(1, 2, 3)},
+        {new Pixel(40, 50, 60), new Pixel(4, 5, 6)}});
+    this.image = new ReadOnlyImage(this.original);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullImageFails() {
+    new ReadOnlyImage(null);
+  }
+
+  @Test
+  public void testReadsDoNotCopy() {
+    assertTrue(TestUtils.equalsImages(this.original, this.image));
+    this.original.setPixelAt(0, 0, 0, 0, 0);
+    assertEquals(0, this.image.getPixelAt(0, 0).getRed());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSetPixelAtFails() {
+    this.image.setPixelAt(0, 0, 1, 1, 1);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSetRowFails() {
+    this.image.setRow(0, new int[2]);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSetChannelFails() {
+    this.image.setChannel(Image.RED, 0, 0, 1, 1, new byte[1], 0, 1);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testCopyChannelFails() {
+    this.image.copyChannel(Image.RED, Image.BLUE);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testApplyLookupTableFails() {
+    this.image.applyLookupTable(Image.RED, new int[256]);
+  }
+
+  @Test
+  public void testCopyIsWritable() {
+    Image copy = this.image.copy();
+    copy.setPixelAt(0, 0, 7, 8, 9);
+    assertEquals(7, copy.getPixelAt(0, 0).getRed());
+    assertEquals(10, this.original.getPixelAt(0, 0).getRed());
+  }
+}
@@ -0,0 +1,170 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import model.ConcurrentImageProcessingModel;
+import model.Image;
+import model.ImageBackend;
+import model.ImageProcessingModel;
+import model.ImageProcessingModelImpl;
+import model.PackedImage;
+import model.SessionSnapshot;
+import model.TransformedImage;
+import model.macros.RedComponentMacro;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the SessionSnapshot class.
+ */
+public class SessionSnapshotTest {
+
+  private ImageProcessingModel model;
+  private Image image;
+  private File file;
+
+  @Before
+  public void setup() throws IOException {
+    this.model = new ImageProcessingModelImpl();
+    this.image = new PackedImage(7, 5);
+    Random random = new Random(3);
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 7; j++) {
+        this.image.setPixelAt(i, j, random.nextInt(256), random.nextInt(256),
+                random.nextInt(256));
+      }
+    }
+    this.file = File.createTempFile("session", ".snap");
+    this.file.deleteOnExit();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRestoreMissingFileFails() {
+    SessionSnapshot.restore(this.model, this.file.getPath() + "-missing");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRestoreInvalidFileFails() throws IOException {
+    try (FileOutputStream out = new FileOutputStream(this.file)) {
+      out.write("P3 1 1 255".getBytes());
+    }
+    SessionSnapshot.restore(this.model, this.file.getPath());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRestoreTruncatedFileFails() throws IOException {
+    this.model.addImage("image", this.image);
+    SessionSnapshot.write(this.model, this.file.getPath());
+    try (RandomAccessFile truncate = new RandomAccessFile(this.file, "rw")) {
+      truncate.setLength(truncate.length() - 1);
+    }
+    SessionSnapshot.restore(new ImageProcessingModelImpl(), this.file.getPath());
+  }
+
+  @Test
+  public void testWriteAndRestoreWorks() {
+    this.model.addImage("image", this.image);
+    this.model.addImage("flipped", TransformedImage.flipVertical(this.image));
+    this.model.addImage("empty", new PackedImage(0, 3));
+    SessionSnapshot.write(this.model, this.file.getPath());
+
+    ImageProcessingModel restored = new ImageProcessingModelImpl();
+    SessionSnapshot.restore(restored, this.file.getPath());
+    assertEquals(Arrays.asList("empty", "flipped", "image"), restored.getImageNames());
+    assertTrue(TestUtils.equalsImages(this.image, restored.getImage("image")));
+    assertTrue(TestUtils.equalsImages(TransformedImage.flipVertical(this.image),
+            restored.getImage("flipped")));
+    assertEquals(3, restored.getImage("empty").getHeight());
+    assertEquals(ImageBackend.OFF_HEAP, ImageBackend.of(restored.getImage("image")));
+  }
+
+  @Test
+  public void testSharedImagesAreWrittenOnce() {
+    this.model.addImage("first", this.image);
+    this.model.addImage("second", this.model.getImage("first"));
+    SessionSnapshot.write(this.model, this.file.getPath());
+    // header, two index entries, and one copy of the pixels
+    long index = (2 + "first".length() + 16) + (2 + "second".length() + 16);
+    assertEquals(12 + index + 3 * 7 * 5, this.file.length());
+  }
+
+  @Test
+  public void testWritingRestoredImageDoesNotChangeFile() {
+    this.model.addImage("image", this.image);
+    SessionSnapshot.write(this.model, this.file.getPath());
+    ImageProcessingModel restored = new ImageProcessingModelImpl();
+    SessionSnapshot.restore(restored, this.file.getPath());
+    Image changed = restored.getImage("image");
+    changed.setPixelAt(0, 0, 1, 2, 3);
+    restored.addImage("image", changed);
+
+    ImageProcessingModel again = new ImageProcessingModelImpl();
+    SessionSnapshot.restore(again, this.file.getPath());
+    assertTrue(TestUtils.equalsImages(this.image, again.getImage("image")));
+  }
+
+  @Test
+  public void testEditedRestoredImagesReturnToModelLayout() {
+    this.model.addImage("image", this.image);
+    SessionSnapshot.write(this.model, this.file.getPath());
+    ImageProcessingModel restored = new ImageProcessingModelImpl();
+    SessionSnapshot.restore(restored, this.file.getPath());
+    new RedComponentMacro("image", "red").execute(restored);
+    Image changed = restored.getImage("image");
+    changed.setPixelAt(0, 0, 1, 2, 3);
+    assertEquals(ImageBackend.PACKED, ImageBackend.of(changed));
+    restored.addImage("changed", changed);
+    assertEquals(ImageBackend.PACKED, ImageBackend.of(restored.getImage("changed")));
+    assertEquals(ImageBackend.PACKED, ImageBackend.of(restored.getImage("red")));
+    // the image that was not written to is still read from the file
+    assertEquals(ImageBackend.OFF_HEAP, ImageBackend.of(restored.getImage("image")));
+    assertTrue(TestUtils.equalsImages(this.image, restored.getImage("image")));
+  }
+
+  @Test
+  public void testRestoreReadOnlyFileWorks() {
+    this.model.addImage("image", this.image);
+    SessionSnapshot.write(this.model, this.file.getPath());
+    assertTrue(this.file.setReadOnly());
+    try {
+      ImageProcessingModel restored = new ImageProcessingModelImpl();
+      SessionSnapshot.restore(restored, this.file.getPath());
+      Image changed = restored.getImage("image");
+      assertTrue(TestUtils.equalsImages(this.image, changed));
+      changed.setPixelAt(0, 0, 1, 2, 3);
+      restored.addImage("image", changed);
+      assertEquals(1, changed.getPixelAt(0, 0).getRed());
+
+      ImageProcessingModel again = new ImageProcessingModelImpl();
+      SessionSnapshot.restore(again, this.file.getPath());
+      assertTrue(TestUtils.equalsImages(this.image, again.getImage("image")));
+    } finally {
+      assertTrue(this.file.setWritable(true));
+    }
+  }
+
+  @Test
+  public void testSnapshotOverRestoredFileWorks() {
+    this.model.addImage("image", this.image);
+    SessionSnapshot.write(this.model, this.file.getPath());
+    ImageProcessingModel restored = new ConcurrentImageProcessingModel();
+    SessionSnapshot.restore(restored, this.file.getPath());
+    restored.addImage("black", new PackedImage(2, 2));
+    SessionSnapshot.write(restored, this.file.getPath());
+    // the images restored before the file was replaced still read the old pixels
+    assertTrue(TestUtils.equalsImages(this.image, restored.getImage("image")));
+
+    ImageProcessingModel again = new ImageProcessingModelImpl();
+    SessionSnapshot.restore(again, this.file.getPath());
+    assertEquals(Arrays.asList("black", "image"), again.getImageNames());
+    assertTrue(TestUtils.equalsImages(this.image, again.getImage("image")));
+  }
+}
@@ -0,0 +1,178 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.Image;
+import model.ImageImpl;
+import model.PackedImage;
+import model.Pixel;
+import model.TileCache;
+import model.TiledImage;
+import utils.TestUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the TiledImage and TileCache classes.
+ */
+public class TiledImageTest {
+  private Image expectedImage;
+  private Image gradient;
+
+  @Before
+  public void setup() {
+    this.expectedImage = new TiledImage(new ImageImpl(new Pixel[][]{{
+            new Pixel(10, 20, 30), new Pixel(200, 210, 220)}, {
+            new Pixel(40, 50, 60), new Pixel(70, 80, 90)}}));
+    // 11 wide and 7 high, so that it does not divide evenly into small tiles
+    this.gradient = new PackedImage(11, 7);
+    for (int i = 0; i < 7; i++) {
+      for (int j = 0; j < 11; j++) {
+        this.gradient.setPixelAt(i, j, i, j, i * j);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullImageObjectFails() {
+    Image nullImage = null;
+    new TiledImage(nullImage);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNegativeSizeFails() {
+    new TiledImage(-4, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullCacheFails() {
+    new TiledImage(2, 2, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCacheBudgetSmallerThanTileFails() {
+    new TileCache(4, 63);
+  }
+
+  @Test
+  public void testConstructorSizeIsBlack() {
+    Image image = new TiledImage(5, 3);
+    int[] rgb = new int[15];
+    image.getRGB(0, 0, 5, 3, rgb, 0, 5);
+    assertArrayEquals(new int[15], rgb);
+  }
+
+  @Test
+  public void testConstructorImageObjectWorks() {
+    Image copyImage = new TiledImage(this.expectedImage);
+    assertTrue(TestUtils.equalsImages(this.expectedImage, copyImage));
+    copyImage.setPixelAt(0, 0, 0, 0, 0);
+    assertEquals(10, this.expectedImage.getPixelAt(0, 0).getRed());
+  }
+
+  @Test
+  public void testGetPixelAtWorks() {
+    Pixel actual = this.expectedImage.getPixelAt(1, 1);
+    assertEquals(70, actual.getRed());
+    assertEquals(80, actual.getGreen());
+    assertEquals(90, actual.getBlue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetPixelAtOutOfBoundsFails() {
+    this.expectedImage.getPixelAt(0, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetPixelAtFailsBlueGreaterThan255() {
+    this.expectedImage.setPixelAt(0, 0, 0, 0, 256);
+  }
+
+  @Test
+  public void testTileSize() {
+    Image image = new TiledImage(3, 3, new TileCache(4, 1024));
+    assertEquals(4, image.getTileWidth());
+    assertEquals(4, image.getTileHeight());
+  }
+
+  @Test
+  public void testRegionAcrossTiles() {
+    Image image = new TiledImage(this.gradient, new TileCache(4, 1024));
+    assertTrue(TestUtils.equalsImages(this.gradient, image));
+    int[] expected = new int[1 + 5 * 4];
+    int[] actual = new int[1 + 5 * 4];
+    this.gradient.getRGB(2, 3, 4, 5, expected, 1, 4);
+    image.getRGB(2, 3, 4, 5, actual, 1, 4);
+    assertArrayEquals(expected, actual);
+    byte[] blues = new byte[8 * 6];
+    image.getChannel(Image.BLUE, 1, 2, 8, 6, blues, 0, 8);
+    assertEquals(3 * 7, blues[2 * 8 + 5]);
+  }
+
+  @Test
+  public void testChannelOperationsAcrossTiles() {
+    Image image = new TiledImage(this.gradient, new TileCache(4, 1024));
+    image.copyChannel(Image.GREEN, Image.RED);
+    int[] lut = new int[256];
+    for (int i = 0; i < 256; i++) {
+      lut[i] = 255 - i;
+    }
+    image.applyLookupTable(Image.BLUE, lut);
+    Pixel actual = image.getPixelAt(6, 10);
+    assertEquals(10, actual.getRed());
+    assertEquals(10, actual.getGreen());
+    assertEquals(255 - 60, actual.getBlue());
+  }
+
+  @Test
+  public void testTilesAreEvictedAndReloaded() {
+    // room for two 4x4 tiles, while the image has six
+    TileCache cache = new TileCache(4, 2 * 4 * 4 * 4);
+    Image image = new TiledImage(this.gradient, cache);
+    assertEquals(2, cache.getResidentTileCount());
+    assertTrue(cache.getEvictionCount() > 0);
+    assertTrue(TestUtils.equalsImages(this.gradient, image));
+    assertTrue(cache.getReloadCount() > 0);
+    image.setPixelAt(0, 0, 1, 2, 3);
+    image.setPixelAt(6, 10, 4, 5, 6);
+    assertEquals(1, image.getPixelAt(0, 0).getRed());
+    assertEquals(6, image.getPixelAt(6, 10).getBlue());
+    assertEquals(2 * 3, image.getPixelAt(2, 3).getBlue());
+  }
+
+  @Test
+  public void testThreadsSharingSmallCache() throws Exception {
+    // a cache of two tiles makes the threads evict each other's tiles constantly
+    TileCache cache = new TileCache(4, 2 * 4 * 4 * 4);
+    Thread[] threads = new Thread[4];
+    boolean[] matched = new boolean[threads.length];
+    for (int t = 0; t < threads.length; t++) {
+      int thread = t;
+      threads[t] = new Thread(() -> {
+        boolean same = true;
+        for (int i = 0; i < 50; i++) {
+          Image tiled = new TiledImage(this.gradient, cache);
+          tiled.applyLookupTable(Image.RED, identity());
+          same &= TestUtils.equalsImages(this.gradient, tiled);
+        }
+        matched[thread] = same;
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (boolean same : matched) {
+      assertTrue(same);
+    }
+  }
+
+  private static int[] identity() {
+    int[] lut = new int[256];
+    for (int v = 0; v < lut.length; v++) {
+      lut[v] = v;
+    }
+    return lut;
+  }
+}
@@ -0,0 +1,149 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.CopyOnWriteImage;
+import model.Image;
+import model.ImageBackend;
+import model.PackedImage;
+import model.TransformedImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class contains tests for the TransformedImage class.
+ */
+public class TransformedImageTest {
+  private Image image;
+
+  @Before
+  public void setup() {
+    // 3 wide and 2 high, pixel (row, col) has red value 10 * row + col
+    this.image = new CopyOnWriteImage(new PackedImage(3, 2));
+    this.image.setRGB(0, 0, 3, 2, new int[]{0x000102, 0x010203, 0x020304,
+        0x0A0B0C, 0x0B0C0D, 0x0C0D0E}, 0, 3);
+  }
+
+  /**
+   * Returns the red values of all pixels of an image in row-major order.
+   */
+  private static int[] reds(Image image) {
+    int[] reds = new int[image.getWidth() * image.getHeight()];
+    for (int i = 0; i < image.getHeight(); i++) {
+      for (int j = 0; j < image.getWidth(); j++) {
+        reds[i * image.getWidth() + j] = image.getPixelAt(i, j).getRed();
+      }
+    }
+    return reds;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFlipNullImageFails() {
+    TransformedImage.flipHorizontal(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCropOutOfBoundsFails() {
+    TransformedImage.crop(this.image, 1, 1, 2, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetPixelOutOfBoundsFails() {
+    TransformedImage.rotateClockwise(this.image).getPixelAt(0, 2);
+  }
+
+  @Test
+  public void testFlipHorizontal() {
+    Image view = TransformedImage.flipHorizontal(this.image);
+    assertEquals(3, view.getWidth());
+    assertEquals(2, view.getHeight());
+    assertArrayEquals(new int[]{2, 1, 0, 12, 11, 10}, reds(view));
+  }
+
+  @Test
+  public void testFlipVertical() {
+    Image view = TransformedImage.flipVertical(this.image);
+    assertArrayEquals(new int[]{10, 11, 12, 0, 1, 2}, reds(view));
+  }
+
+  @Test
+  public void testRotateClockwise() {
+    Image view = TransformedImage.rotateClockwise(this.image);
+    assertEquals(2, view.getWidth());
+    assertEquals(3, view.getHeight());
+    assertArrayEquals(new int[]{10, 0, 11, 1, 12, 2}, reds(view));
+  }
+
+  @Test
+  public void testRotateCounterClockwise() {
+    Image view = TransformedImage.rotateCounterClockwise(this.image);
+    assertArrayEquals(new int[]{2, 12, 1, 11, 0, 10}, reds(view));
+  }
+
+  @Test
+  public void testCrop() {
+    Image view = TransformedImage.crop(this.image, 0, 1, 2, 2);
+    assertEquals(2, view.getWidth());
+    assertArrayEquals(new int[]{1, 2, 11, 12}, reds(view));
+  }
+
+  @Test
+  public void testComposedViews() {
+    Image view = TransformedImage.flipHorizontal(TransformedImage.flipHorizontal(this.image));
+    assertArrayEquals(reds(this.image), reds(view));
+    view = TransformedImage.rotateClockwise(TransformedImage.rotateCounterClockwise(this.image));
+    assertArrayEquals(reds(this.image), reds(view));
+    view = TransformedImage.crop(TransformedImage.rotateClockwise(this.image), 1, 0, 2, 2);
+    assertArrayEquals(new int[]{11, 1, 12, 2}, reds(view));
+    view = TransformedImage.flipVertical(new CopyOnWriteImage(
+            TransformedImage.flipVertical(this.image)));
+    assertArrayEquals(reds(this.image), reds(view));
+  }
+
+  @Test
+  public void testBulkReadsMatchPixels() {
+    Image view = TransformedImage.rotateClockwise(TransformedImage.flipHorizontal(this.image));
+    int[] rgb = new int[view.getWidth() * view.getHeight()];
+    view.getRGB(0, 0, view.getWidth(), view.getHeight(), rgb, 0, view.getWidth());
+    byte[] greens = new byte[rgb.length];
+    view.getChannel(Image.GREEN, 0, 0, view.getWidth(), view.getHeight(), greens, 0,
+            view.getWidth());
+    for (int i = 0; i < view.getHeight(); i++) {
+      for (int j = 0; j < view.getWidth(); j++) {
+        int index = i * view.getWidth() + j;
+        assertEquals(view.getPixelAt(i, j).getRed(), rgb[index] >> 16);
+        assertEquals(view.getPixelAt(i, j).getGreen(), greens[index] & 0xFF);
+      }
+    }
+  }
+
+  @Test
+  public void testViewDoesNotCopyUntilWritten() {
+    TransformedImage view = (TransformedImage) TransformedImage.flipHorizontal(this.image);
+    assertFalse(view.isMaterialized());
+    assertEquals(ImageBackend.PACKED, ImageBackend.of(view));
+    view.setPixelAt(0, 0, 99, 99, 99);
+    assertTrue(view.isMaterialized());
+    assertEquals(99, view.getPixelAt(0, 0).getRed());
+    assertEquals(1, view.getPixelAt(0, 1).getRed());
+    assertEquals(2, this.image.getPixelAt(0, 2).getRed());
+  }
+
+  @Test
+  public void testViewIsSnapshotOfSource() {
+    Image view = TransformedImage.flipVertical(this.image);
+    this.image.setPixelAt(0, 0, 50, 50, 50);
+    assertEquals(0, view.getPixelAt(1, 0).getRed());
+  }
+
+  @Test
+  public void testCopyOfViewIsIndependent() {
+    Image view = TransformedImage.flipHorizontal(this.image);
+    Image copy = view.copy();
+    copy.setPixelAt(0, 0, 77, 77, 77);
+    assertEquals(2, view.getPixelAt(0, 0).getRed());
+    assertEquals(77, copy.getPixelAt(0, 0).getRed());
+  }
+}